@@ -0,0 +1,312 @@
+package org.tbfeng.apt.benchmark;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译耗时的规模测试
+ * <p>
+ * 按参数生成 N 个同时使用 @ToString、@BuildProperty 的类，分别在开启注解处理、-proc:none 两种情况下进程内编译，
+ * 输出注解处理的耗时占比、堆内存峰值、GC 耗时、生成的文件数，以及每个类的平均耗时随 N 的变化，用于发现超线性的退化。
+ * <p>
+ * 参数（均为 --name value 形式）：
+ * <pre>
+ * --classes     类数量，逗号分隔，默认 1000,5000,10000
+ * --fields      每个类的字段数，默认 20
+ * --arrays      其中数组字段数，默认 5
+ * --packages    包的数量，默认 10
+ * --depth       包的嵌套层数，默认 3
+ * --workDir     工作目录，默认 target/compile-scale
+ * --report      报告文件，.csv 结尾输出 CSV，否则输出 JSON；不设置时只打印到控制台
+ * --javacOption 传给 javac 的额外参数，逗号分隔，例如 -Aapt.parallelism=4
+ * </pre>
+ */
+public final class CompileScaleHarness {
+
+    private static final String BASE_PACKAGE = "org.tbfeng.apt.corpus";
+
+    private CompileScaleHarness() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> argMap = parseArgs(args);
+        int fieldCount = Integer.parseInt(argMap.getOrDefault("fields", "20"));
+        int arrayCount = Integer.parseInt(argMap.getOrDefault("arrays", "5"));
+        int packageCount = Integer.parseInt(argMap.getOrDefault("packages", "10"));
+        int depth = Integer.parseInt(argMap.getOrDefault("depth", "3"));
+        File workDir = new File(argMap.getOrDefault("workDir", "target/compile-scale"));
+        String[] javacOptions = argMap.containsKey("javacOption")
+                ? argMap.get("javacOption").split(",") : new String[0];
+
+        // 预热 javac 与处理器，避免第一组数据包含 JIT 的耗时
+        List<File> warmupSources = generateCorpus(new File(workDir, "warmup"), 200, fieldCount, arrayCount, packageCount, depth);
+        FixtureCompiler.compileFiles(warmupSources, new File(workDir, "warmup-out"), true, javacOptions);
+
+        List<ScaleResult> resultList = new ArrayList<ScaleResult>();
+        for (String classes : argMap.getOrDefault("classes", "1000,5000,10000").split(",")) {
+            int classCount = Integer.parseInt(classes.trim());
+            File corpusDir = new File(workDir, "corpus-" + classCount);
+            List<File> sourceList = generateCorpus(corpusDir, classCount, fieldCount, arrayCount, packageCount, depth);
+
+            ScaleResult result = new ScaleResult(classCount);
+            result.none = measure(sourceList, new File(corpusDir, "out-none"), false, javacOptions);
+            result.process = measure(sourceList, new File(corpusDir, "out-process"), true, javacOptions);
+            resultList.add(result);
+            System.out.println(result);
+        }
+
+        printSummary(resultList);
+        String report = argMap.get("report");
+        if (report != null) {
+            writeReport(new File(report), resultList, argMap);
+            System.out.println("report -> " + report);
+        }
+    }
+
+    /**
+     * 生成测试用例
+     *
+     * @return 源文件列表
+     */
+    private static List<File> generateCorpus(File dir, int classCount, int fieldCount, int arrayCount,
+                                             int packageCount, int depth) throws IOException {
+        File srcDir = new File(dir, "src");
+        deleteRecursively(dir);
+
+        List<File> sourceList = new ArrayList<File>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            String packageName = packageName(i % packageCount, depth);
+            String className = "Corpus" + i;
+            File file = new File(srcDir, packageName.replace('.', File.separatorChar) + File.separator + className + ".java");
+            file.getParentFile().mkdirs();
+            Files.write(file.toPath(), FixtureSource.corpusClass(packageName, className, fieldCount, arrayCount)
+                    .getBytes(StandardCharsets.UTF_8));
+            sourceList.add(file);
+        }
+        return sourceList;
+    }
+
+    /**
+     * 包名：org.tbfeng.apt.corpus.d0.d1...p{index}
+     */
+    private static String packageName(int index, int depth) {
+        StringBuilder packageName = new StringBuilder(BASE_PACKAGE);
+        for (int i = 0; i < depth; i++) {
+            packageName.append(".d").append(i);
+        }
+        return packageName.append(".p").append(index).toString();
+    }
+
+    /**
+     * 编译一次并统计
+     */
+    private static CompileStat measure(List<File> sourceList, File outputDir,
+                                       boolean process, String[] javacOptions) throws IOException {
+        deleteRecursively(outputDir);
+        System.gc();
+
+        List<MemoryPoolMXBean> heapPools = new ArrayList<MemoryPoolMXBean>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        long gcMillis = totalGcMillis();
+        long startNanos = System.nanoTime();
+
+        FixtureCompiler.compileFiles(sourceList, outputDir, process, javacOptions);
+
+        CompileStat stat = new CompileStat();
+        stat.wallMillis = (System.nanoTime() - startNanos) / 1_000_000L;
+        stat.gcMillis = totalGcMillis() - gcMillis;
+        for (MemoryPoolMXBean pool : heapPools) {
+            stat.peakHeapBytes += pool.getPeakUsage().getUsed();
+        }
+        stat.generatedFiles = countGeneratedSources(outputDir);
+        return stat;
+    }
+
+    private static long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * 输出目录中的 .java 文件都是注解处理器生成的
+     */
+    private static int countGeneratedSources(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        int count = 0;
+        for (File file : files) {
+            if (file.isDirectory()) {
+                count += countGeneratedSources(file);
+            } else if (file.getName().endsWith(".java")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 以最小规模的每个类平均耗时为基准，比值明显大于 1 说明存在超线性的退化
+     */
+    private static void printSummary(List<ScaleResult> resultList) {
+        if (resultList.isEmpty()) {
+            return;
+        }
+        double baseline = resultList.get(0).processMicrosPerClass();
+        System.out.println();
+        System.out.println("classes  aptMillis  aptShare  usPerClass  growth");
+        for (ScaleResult result : resultList) {
+            System.out.println(String.format("%7d  %9d  %7.1f%%  %10.1f  %6.2f",
+                    result.classCount, result.aptMillis(), result.aptShare() * 100,
+                    result.processMicrosPerClass(), result.processMicrosPerClass() / baseline));
+        }
+    }
+
+    private static void writeReport(File file, List<ScaleResult> resultList, Map<String, String> argMap) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        String content;
+        if (file.getName().toLowerCase().endsWith(".csv")) {
+            StringBuilder csv = new StringBuilder("classes,procWallMillis,noneWallMillis,aptMillis,aptShare,"
+                    + "procPeakHeapBytes,nonePeakHeapBytes,procGcMillis,noneGcMillis,generatedFiles\n");
+            for (ScaleResult result : resultList) {
+                csv.append(result.classCount).append(',')
+                        .append(result.process.wallMillis).append(',')
+                        .append(result.none.wallMillis).append(',')
+                        .append(result.aptMillis()).append(',')
+                        .append(result.aptShare()).append(',')
+                        .append(result.process.peakHeapBytes).append(',')
+                        .append(result.none.peakHeapBytes).append(',')
+                        .append(result.process.gcMillis).append(',')
+                        .append(result.none.gcMillis).append(',')
+                        .append(result.process.generatedFiles).append('\n');
+            }
+            content = csv.toString();
+        } else {
+            JSONObject root = new JSONObject();
+            root.put("arguments", argMap);
+            JSONArray results = new JSONArray();
+            for (ScaleResult result : resultList) {
+                JSONObject item = new JSONObject();
+                item.put("classes", result.classCount);
+                item.put("aptMillis", result.aptMillis());
+                item.put("aptShare", result.aptShare());
+                item.put("process", result.process.toJson());
+                item.put("none", result.none.toJson());
+                results.add(item);
+            }
+            root.put("results", results);
+            content = JSON.toJSONString(root, JSONWriter.Feature.PrettyFormat);
+        }
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> argMap = new LinkedHashMap<String, String>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("参数格式为 --name value: " + args[i]);
+            }
+            argMap.put(args[i].substring(2), args[i + 1]);
+        }
+        return argMap;
+    }
+
+    private static void deleteRecursively(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        if (file.exists() && !file.delete()) {
+            throw new IOException("无法删除: " + file);
+        }
+    }
+
+    /**
+     * 单次编译的统计
+     */
+    private static class CompileStat {
+
+        private long wallMillis;
+
+        private long gcMillis;
+
+        private long peakHeapBytes;
+
+        private int generatedFiles;
+
+        JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("wallMillis", wallMillis);
+            json.put("gcMillis", gcMillis);
+            json.put("peakHeapBytes", peakHeapBytes);
+            json.put("generatedFiles", generatedFiles);
+            return json;
+        }
+    }
+
+    /**
+     * 单个规模的统计
+     */
+    private static class ScaleResult {
+
+        private final int classCount;
+
+        private CompileStat process;
+
+        private CompileStat none;
+
+        ScaleResult(int classCount) {
+            this.classCount = classCount;
+        }
+
+        long aptMillis() {
+            return Math.max(0, process.wallMillis - none.wallMillis);
+        }
+
+        double aptShare() {
+            return process.wallMillis == 0 ? 0 : (double) aptMillis() / process.wallMillis;
+        }
+
+        double processMicrosPerClass() {
+            return aptMillis() * 1000.0 / classCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("classes=%d, proc=%dms (gc %dms, peak heap %dMB, files %d), none=%dms (gc %dms, peak heap %dMB)",
+                    classCount, process.wallMillis, process.gcMillis, process.peakHeapBytes >> 20, process.generatedFiles,
+                    none.wallMillis, none.gcMillis, none.peakHeapBytes >> 20);
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+package org.tbfeng.apt.benchmark;
+
+/**
+ * 测试用例的字段类型
+ */
+public enum FieldKind {
+
+    /**
+     * 基本类型：int、long、double、boolean 轮流出现
+     */
+    PRIMITIVE(new String[]{"int", "long", "double", "boolean"},
+            new String[]{"%d", "%dL", "%d.5", "true"}),
+
+    /**
+     * 包装类型：Integer、Long、Double、String 轮流出现
+     */
+    BOXED(new String[]{"Integer", "Long", "Double", "String"},
+            new String[]{"%d", "%dL", "%d.5", "\"v%d\""}),
+
+    /**
+     * 数组：int[]、long[]、String[] 轮流出现
+     */
+    ARRAY(new String[]{"int[]", "long[]", "String[]"},
+            new String[]{"{%d, 1, 2}", "{%dL, 1L, 2L}", "{\"v%d\", \"w\"}"});
+
+    /**
+     * 字段类型
+     */
+    private final String[] typeNames;
+
+    /**
+     * 字段初始值模板，%d 为字段下标
+     */
+    private final String[] valueFormats;
+
+    FieldKind(String[] typeNames, String[] valueFormats) {
+        this.typeNames = typeNames;
+        this.valueFormats = valueFormats;
+    }
+
+    /**
+     * 第 index 个字段的类型
+     *
+     * @param index 字段下标
+     * @return 类型
+     */
+    public String typeName(int index) {
+        return typeNames[index % typeNames.length];
+    }
+
+    /**
+     * 第 index 个字段的初始值
+     *
+     * @param index 字段下标
+     * @return 初始值表达式
+     */
+    public String value(int index) {
+        return String.format(valueFormats[index % valueFormats.length], index);
+    }
+
+    /**
+     * 第 index 个字段是否为数组
+     *
+     * @param index 字段下标
+     * @return 是否
+     */
+    public boolean isArray(int index) {
+        return typeName(index).endsWith("[]");
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.tbfeng.apt.benchmark;
+
+import com.sun.tools.javac.api.JavacTool;
+import org.tbfeng.apt.processor.DispatchProcessor;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 进程内编译测试用例
+ * <p>
+ * 直接使用 javac 的 JavacTool 与 {@link DispatchProcessor}，两者由同一个类加载器加载，
+ * 运行时需要把 JDK 的 tools.jar 加到 classpath 上。
+ */
+public final class FixtureCompiler {
+
+    private FixtureCompiler() {
+    }
+
+    /**
+     * 内存中的源文件
+     *
+     * @param className 全限定类名
+     * @param source    源码
+     * @return 源文件
+     */
+    public static JavaFileObject memorySource(final String className, final String source) {
+        URI uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+    }
+
+    /**
+     * 编译内存中的源文件
+     *
+     * @param sourceList 源文件
+     * @param outputDir  输出目录，class 与生成的源码都写到这里
+     * @param process    是否执行注解处理，false 时等价于 -proc:none
+     * @param options    额外的编译参数，例如 -Aapt.parallelism=4
+     */
+    public static void compile(List<? extends JavaFileObject> sourceList, File outputDir,
+                               boolean process, String... options) {
+        JavaCompiler compiler = JavacTool.create();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            compile(compiler, fileManager, diagnostics, sourceList, outputDir, process, options);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 编译磁盘上的源文件
+     *
+     * @param sourceFileList 源文件
+     * @param outputDir      输出目录，class 与生成的源码都写到这里
+     * @param process        是否执行注解处理，false 时等价于 -proc:none
+     * @param options        额外的编译参数
+     */
+    public static void compileFiles(List<File> sourceFileList, File outputDir,
+                                    boolean process, String... options) {
+        JavaCompiler compiler = JavacTool.create();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            List<JavaFileObject> sourceList = new ArrayList<JavaFileObject>();
+            for (JavaFileObject fileObject : fileManager.getJavaFileObjectsFromFiles(sourceFileList)) {
+                sourceList.add(fileObject);
+            }
+            compile(compiler, fileManager, diagnostics, sourceList, outputDir, process, options);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void compile(JavaCompiler compiler, StandardJavaFileManager fileManager,
+                                DiagnosticCollector<JavaFileObject> diagnostics,
+                                List<? extends JavaFileObject> sourceList, File outputDir,
+                                boolean process, String... options) {
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                buildOptions(outputDir, process, options), null, sourceList);
+        if (process) {
+            task.setProcessors(Collections.singletonList(new DispatchProcessor()));
+        }
+        if (!task.call()) {
+            throw new IllegalStateException("编译失败: " + errors(diagnostics));
+        }
+    }
+
+    private static List<String> buildOptions(File outputDir, boolean process, String... options) {
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalStateException("无法创建目录: " + outputDir);
+        }
+
+        List<String> optionList = new ArrayList<String>();
+        optionList.add("-classpath");
+        optionList.add(System.getProperty("java.class.path"));
+        optionList.add("-d");
+        optionList.add(outputDir.getAbsolutePath());
+        optionList.add("-s");
+        optionList.add(outputDir.getAbsolutePath());
+        optionList.add("-nowarn");
+        if (!process) {
+            optionList.add("-proc:none");
+        }
+        Collections.addAll(optionList, options);
+        return optionList;
+    }
+
+    private static String errors(DiagnosticCollector<JavaFileObject> diagnostics) {
+        StringBuilder errors = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.append('\n').append(diagnostic);
+            }
+        }
+        return errors.toString();
+    }
+
+}
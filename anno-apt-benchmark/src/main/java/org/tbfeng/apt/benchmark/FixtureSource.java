@@ -0,0 +1,110 @@
+package org.tbfeng.apt.benchmark;
+
+/**
+ * 测试用例源码生成
+ * <p>
+ * 字段命名为 f0、f1 ...，生成的源码只与入参有关，相同的入参得到相同的源码。
+ */
+public final class FixtureSource {
+
+    private FixtureSource() {
+    }
+
+    /**
+     * 使用 @ToString 生成 toString() 的类
+     *
+     * @param packageName 包名
+     * @param className   类名
+     * @param fieldCount  字段数量
+     * @param fieldKind   字段类型
+     * @return 源码
+     */
+    public static String toStringClass(String packageName, String className,
+                                       int fieldCount, FieldKind fieldKind) {
+        StringBuilder source = header(packageName);
+        source.append("@org.tbfeng.apt.annotation.ToString\n")
+                .append("public class ").append(className).append(" {\n\n");
+        appendFields(source, fieldCount, fieldKind);
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * 手写 StringBuilder 实现 toString() 的类，输出格式与 @ToString 一致
+     *
+     * @param packageName 包名
+     * @param className   类名
+     * @param fieldCount  字段数量
+     * @param fieldKind   字段类型
+     * @return 源码
+     */
+    public static String handWrittenClass(String packageName, String className,
+                                          int fieldCount, FieldKind fieldKind) {
+        StringBuilder source = header(packageName);
+        source.append("public class ").append(className).append(" {\n\n");
+        appendFields(source, fieldCount, fieldKind);
+
+        source.append("    @Override\n")
+                .append("    public String toString() {\n")
+                .append("        StringBuilder sb = new StringBuilder();\n")
+                .append("        sb.append(\"").append(className).append("{\");\n");
+        for (int i = 0; i < fieldCount; i++) {
+            source.append("        sb.append(\"").append(i == 0 ? "" : ", ").append('f').append(i).append("=\")");
+            if (fieldKind.isArray(i)) {
+                source.append(".append(java.util.Arrays.toString(f").append(i).append("));\n");
+            } else {
+                source.append(".append(f").append(i).append(");\n");
+            }
+        }
+        return source.append("        return sb.append('}').toString();\n")
+                .append("    }\n\n")
+                .append("}\n")
+                .toString();
+    }
+
+    /**
+     * 同时使用 @ToString、@BuildProperty 的类，用于编译耗时测试
+     *
+     * @param packageName 包名
+     * @param className   类名
+     * @param fieldCount  字段数量
+     * @param arrayCount  其中数组字段的数量
+     * @return 源码
+     */
+    public static String corpusClass(String packageName, String className,
+                                     int fieldCount, int arrayCount) {
+        StringBuilder source = header(packageName);
+        source.append("@org.tbfeng.apt.annotation.ToString\n")
+                .append("public class ").append(className).append(" {\n\n");
+        for (int i = 0; i < fieldCount; i++) {
+            source.append("    private ").append(corpusFieldKind(i, arrayCount).typeName(i))
+                    .append(" f").append(i).append(";\n");
+        }
+        source.append('\n');
+        for (int i = 0; i < fieldCount; i++) {
+            source.append("    @org.tbfeng.apt.annotation.BuildProperty\n")
+                    .append("    public void setF").append(i).append('(')
+                    .append(corpusFieldKind(i, arrayCount).typeName(i)).append(" f").append(i).append(") {\n")
+                    .append("        this.f").append(i).append(" = f").append(i).append(";\n")
+                    .append("    }\n\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    private static FieldKind corpusFieldKind(int index, int arrayCount) {
+        return index < arrayCount ? FieldKind.ARRAY : FieldKind.BOXED;
+    }
+
+    private static StringBuilder header(String packageName) {
+        return new StringBuilder("package ").append(packageName).append(";\n\n");
+    }
+
+    private static void appendFields(StringBuilder source, int fieldCount, FieldKind fieldKind) {
+        for (int i = 0; i < fieldCount; i++) {
+            source.append("    private ").append(fieldKind.typeName(i))
+                    .append(" f").append(i)
+                    .append(" = ").append(fieldKind.value(i)).append(";\n");
+        }
+        source.append('\n');
+    }
+
+}
@@ -0,0 +1,165 @@
+package org.tbfeng.apt.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tbfeng.apt.utils.ClassUtil;
+import org.tbfeng.apt.utils.ReflectFieldUtil;
+
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * toString() 性能对比
+ * <p>
+ * 对比 @ToString 生成的方法、手写的 StringBuilder 实现，以及基于反射的 ClassUtil.beanToMap、ReflectFieldUtil.getValue。
+ * 测试用例在 {@link #setup()} 中按参数生成源码，并通过注解处理器在进程内编译。
+ * <p>
+ * 运行方式见 anno-apt-benchmark/README.md，分配情况使用 -prof gc 查看。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ToStringBenchmark {
+
+    private static final String PACKAGE_NAME = "org.tbfeng.apt.benchmark.fixture";
+
+    @Param({"5", "50", "500"})
+    private int fieldCount;
+
+    @Param({"PRIMITIVE", "BOXED", "ARRAY"})
+    private FieldKind fieldKind;
+
+    /**
+     * 生成 toString() 的实现方式，对应 -Aapt.toString.strategy
+     */
+    @Param({"concat", "builder", "chunked"})
+    private String strategy;
+
+    /**
+     * @ToString 生成的实现
+     */
+    private Object generated;
+
+    /**
+     * 手写的实现
+     */
+    private Object handWritten;
+
+    /**
+     * 字段名称，按声明顺序
+     */
+    private String[] fieldNames;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        String generatedName = "Generated" + fieldKind + fieldCount;
+        String handWrittenName = "HandWritten" + fieldKind + fieldCount;
+        List<JavaFileObject> sourceList = Arrays.asList(
+                FixtureCompiler.memorySource(PACKAGE_NAME + "." + generatedName,
+                        FixtureSource.toStringClass(PACKAGE_NAME, generatedName, fieldCount, fieldKind)),
+                FixtureCompiler.memorySource(PACKAGE_NAME + "." + handWrittenName,
+                        FixtureSource.handWrittenClass(PACKAGE_NAME, handWrittenName, fieldCount, fieldKind)));
+
+        File outputDir = Files.createTempDirectory("apt-benchmark").toFile();
+        FixtureCompiler.compile(sourceList, outputDir, true, "-Aapt.toString.strategy=" + strategy);
+
+        ClassLoader classLoader = new URLClassLoader(new URL[]{outputDir.toURI().toURL()},
+                ToStringBenchmark.class.getClassLoader());
+        generated = classLoader.loadClass(PACKAGE_NAME + "." + generatedName).newInstance();
+        handWritten = classLoader.loadClass(PACKAGE_NAME + "." + handWrittenName).newInstance();
+
+        fieldNames = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fieldNames[i] = "f" + i;
+        }
+
+        // 两种实现的输出必须一致，否则对比没有意义
+        String expect = handWritten.toString().replace(handWrittenName, generatedName);
+        if (!expect.equals(generated.toString())) {
+            throw new IllegalStateException("输出不一致:\n" + expect + "\n" + generated);
+        }
+    }
+
+    @Benchmark
+    public String generated() {
+        return generated.toString();
+    }
+
+    @Benchmark
+    public String handWritten() {
+        return handWritten.toString();
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public String reflectBeanToMap() {
+        return ClassUtil.beanToMap(generated).toString();
+    }
+
+    @Benchmark
+    public String reflectFieldValue() {
+        StringBuilder sb = new StringBuilder(generated.getClass().getSimpleName()).append('{');
+        for (int i = 0; i < fieldNames.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(fieldNames[i]).append('=');
+            appendValue(sb, ReflectFieldUtil.getValue(fieldNames[i], generated));
+        }
+        return sb.append('}').toString();
+    }
+
+    @Benchmark
+    public String reflectCachedFields() {
+        StringBuilder sb = new StringBuilder(generated.getClass().getSimpleName()).append('{');
+        List<Field> fieldList = ClassUtil.getAllFieldList(generated.getClass());
+        for (int i = 0; i < fieldList.size(); i++) {
+            Field field = fieldList.get(i);
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(field.getName()).append('=');
+            appendValue(sb, ReflectFieldUtil.getValue(field, generated));
+        }
+        return sb.append('}').toString();
+    }
+
+    private static void appendValue(StringBuilder sb, Object value) {
+        if (value == null || !value.getClass().isArray()) {
+            sb.append(value);
+            return;
+        }
+
+        sb.append('[');
+        int length = Array.getLength(value);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(Array.get(value, i));
+        }
+        sb.append(']');
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.tbfeng.apt.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 在类中生成 public static void copy(source, target)，按属性名称把 source 的属性逐个复制到 target
+ * <p>
+ * 读取使用 getter（getXxx、isXxx）或者可以访问的字段，写入使用 setter 或者可以访问的非 final 字段，包括父类、接口中的属性。
+ * 类型是否可以复制与 {@link org.tbfeng.apt.utils.ClassUtil#isAssignable(Class, Class)} 的规则一致，在编译期判断；
+ * 目标中没有复制的属性输出编译警告。
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface BeanCopy {
+
+    /**
+     * 来源类型
+     */
+    Class<?> source();
+
+    /**
+     * 目标类型
+     */
+    Class<?> target();
+
+    /**
+     * 忽略的目标属性，不复制也不输出警告
+     */
+    String[] ignore() default {};
+
+}
@@ -0,0 +1,25 @@
+package org.tbfeng.apt.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 生成 toMap()、fromMap(Map)、asMap()，代替 {@link org.tbfeng.apt.utils.ClassUtil#beanToMap(Object)}
+ * <p>
+ * 键为类本身声明的非静态字段名称，按声明顺序，不包含父类的字段：
+ * <ul>
+ *     <li>toMap()：复制到预先设置容量的 LinkedHashMap 中</li>
+ *     <li>fromMap(Map)：按 map 中存在的键设置字段，跳过 final 字段，返回当前对象</li>
+ *     <li>asMap()：以字段为后端的固定键视图，不复制，读取时才读取字段；
+ *     使用 {@link FieldAccess} 生成的访问器，类上没有 @FieldAccess 时一起生成</li>
+ * </ul>
+ * 类中已经声明了同名方法时不生成对应的方法。
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface BeanMap {
+}
@@ -0,0 +1,21 @@
+package org.tbfeng.apt.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 生成嵌套的 Builder 类
+ * <p>
+ * 读取类中的所有非静态字段，在同一轮中生成 public static final class Builder、static builder() 方法，
+ * 以及 private 的 X(Builder) 构造器。泛型参数与原类一致；只能用于顶层类或者静态嵌套类。
+ * <p>
+ * 有初始值的字段只有在 Builder 中设置过时才会覆盖；final 且有初始值的字段不会出现在 Builder 中。
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface Builder {
+}
@@ -0,0 +1,28 @@
+package org.tbfeng.apt.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 生成 equals(Object)、hashCode()
+ * <p>
+ * 比较所有非静态、非 transient 的字段：基本类型直接比较，不装箱；数组使用 Arrays.equals、Arrays.hashCode；
+ * equals 先判断同一对象，再按开销从小到大比较字段。类中已经声明了 equals 或者 hashCode 时不生成。
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface EqualsHashCode {
+
+    /**
+     * 是否缓存 hashCode() 的结果
+     * <p>
+     * 只适用于所有字段都是 final 的不可变类，否则编译报错。
+     * 结果延迟计算后保存在 transient 字段中，不加锁也不使用 volatile；equals 会先比较两者的 hashCode。
+     */
+    boolean cache() default false;
+
+}
@@ -0,0 +1,22 @@
+package org.tbfeng.apt.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 生成字段访问器
+ * <p>
+ * 在类中生成嵌套类 Access（二进制名称 X$Access），实现 {@link org.tbfeng.apt.utils.FieldAccessor}：
+ * 按下标、名称读写类本身声明的非静态字段，使用 switch 直接访问字段，不使用反射。
+ * 运行时由 {@link org.tbfeng.apt.utils.FieldAccessorRegistry} 查找，{@link org.tbfeng.apt.utils.ReflectFieldUtil} 会优先使用。
+ * <p>
+ * 只能用于顶层类或者静态嵌套类。
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface FieldAccess {
+}
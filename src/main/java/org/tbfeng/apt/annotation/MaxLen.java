@@ -0,0 +1,31 @@
+package org.tbfeng.apt.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 字符串（CharSequence）的最大长度，null 的长度为 0
+ * <p>
+ * 与 {@link org.tbfeng.apt.utils.ArgUtil#isFitMaxLen(String, int)} 一致。
+ *
+ * @see Validate
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface MaxLen {
+
+    /**
+     * 最大长度
+     */
+    int value();
+
+    /**
+     * 错误信息，为空时使用默认的错误信息
+     */
+    String message() default "";
+
+}
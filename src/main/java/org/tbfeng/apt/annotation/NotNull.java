@@ -0,0 +1,24 @@
+package org.tbfeng.apt.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 字段不能为 null，不能用于基本类型
+ *
+ * @see Validate
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface NotNull {
+
+    /**
+     * 错误信息，为空时使用默认的错误信息
+     */
+    String message() default "";
+
+}
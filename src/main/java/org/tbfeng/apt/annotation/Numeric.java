@@ -0,0 +1,26 @@
+package org.tbfeng.apt.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 字符串（CharSequence）需要是数字，null 通过
+ * <p>
+ * 格式与 new BigDecimal(String) 一致，由 {@link org.tbfeng.apt.utils.NumberUtil#isNumber(CharSequence)} 逐个字符判断，不创建对象也不使用异常。
+ *
+ * @see Validate
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface Numeric {
+
+    /**
+     * 错误信息，为空时使用默认的错误信息
+     */
+    String message() default "";
+
+}
@@ -0,0 +1,31 @@
+package org.tbfeng.apt.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 字符串（CharSequence）需要完整匹配正则表达式，null 通过
+ * <p>
+ * 正则表达式在编译期检查，生成为 static final Pattern 常量，不会像 String.matches 一样每次重新编译。
+ *
+ * @see Validate
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface Regex {
+
+    /**
+     * 正则表达式
+     */
+    String value();
+
+    /**
+     * 错误信息，为空时使用默认的错误信息
+     */
+    String message() default "";
+
+}
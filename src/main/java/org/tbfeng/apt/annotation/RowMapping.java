@@ -0,0 +1,23 @@
+package org.tbfeng.apt.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 生成嵌套的行映射器 X.RowMapper，继承 {@link org.tbfeng.apt.utils.AbstractRowMapper}
+ * <p>
+ * 映射类本身声明的非静态、非 final 字段，需要无参构造器，不支持泛型类。
+ * 支持基本类型及其包装类型、String、BigDecimal、byte[]、java.util.Date、java.sql 的日期时间类型、枚举（按名称），
+ * 其他类型使用 ResultSet.getObject(int, Class)。
+ * <p>
+ * MyBatis 中注册为 X 的 TypeHandler 后（例如 type-handlers-package 指向 X 所在的包），resultType 为 X 的查询不再自动映射。
+ * 映射器只能读取结果集，不能作为参数的 TypeHandler，设置参数时抛出 SQLException。
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface RowMapping {
+}
@@ -4,15 +4,49 @@ import java.lang.annotation.*;
 
 /**
  * 注解
+ * <p>
+ * 标记在字段上时只用于覆盖类上的 {@link #maxElements()}、{@link #maxLength()}，类上仍然需要标记。
  */
-@Target(ElementType.TYPE)
+@Target({ElementType.TYPE, ElementType.FIELD})
 @Retention(RetentionPolicy.SOURCE)
 @Documented
 public @interface ToString {
 
     /**
      * 转换为字符串的实现方式
+     * <p>
+     * 可选值见 {@link org.tbfeng.apt.constant.ToStringConst}，为空时使用处理器参数 apt.toString.strategy，默认为 concat。
      */
     String value() default "";
 
+    /**
+     * 是否缓存 toString() 的结果
+     * <p>
+     * 只适用于所有字段都是 final 的不可变类，否则编译报错。
+     * 结果延迟计算后保存在 transient 字段中，不加锁也不使用 volatile。
+     */
+    boolean cache() default false;
+
+    /**
+     * 是否生成快照
+     * <p>
+     * 生成嵌套类 Snapshot 和 snapshot()、snapshot(Snapshot) 方法：只复制字段的值和引用，不做格式化；
+     * 快照的 toString()、appendTo() 与原类输出一致，可以在异步日志的线程中执行。
+     */
+    boolean snapshot() default false;
+
+    /**
+     * 数组、Collection、Map 最多输出的元素个数，超出部分输出为 "... (size=M)"
+     * <p>
+     * 小于 0 时不限制；标记在字段上时小于 0 表示沿用类上的值。
+     */
+    int maxElements() default -1;
+
+    /**
+     * CharSequence 最多输出的字符数，超出部分输出为 "... (length=M)"
+     * <p>
+     * 小于 0 时不限制；标记在字段上时小于 0 表示沿用类上的值。
+     */
+    int maxLength() default -1;
+
 }
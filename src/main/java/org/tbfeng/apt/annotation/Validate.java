@@ -0,0 +1,21 @@
+package org.tbfeng.apt.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 根据字段上的约束注解生成 validate()、validate(ValidationResult)
+ * <p>
+ * 支持的约束：{@link NotNull}、{@link MinLen}、{@link MaxLen}、{@link Numeric}、{@link Regex}，
+ * 只检查类本身声明的字段，不包括父类的字段。
+ * 违反的约束收集到 {@link org.tbfeng.apt.utils.ValidationResult} 中，不会在第一个违反时抛出异常；
+ * 正则表达式在编译期检查，生成为 static final Pattern 常量。类中已经声明了 validate 方法时不生成。
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface Validate {
+}
@@ -0,0 +1,86 @@
+package org.tbfeng.apt.compat;
+
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeMaker;
+import org.tbfeng.apt.utils.JavacUtil;
+
+/**
+ * javac 版本兼容层
+ * <p>
+ * 不同版本 tools 的部分 API 签名不同，例如 TreeMaker.Binary 的操作符在 [6-7] 是 int，[8+] 是 JCTree.Tag；
+ * TreeMaker.Literal、TreeMaker.TypeIdent 的类型标记在 [6-7] 是 TypeTags 中的 int，[8+] 是 TypeTag。
+ * 每个 ProcessingEnvironment 只根据 {@link JavacUtil#getJavaCompilerVersion()} 解析一次，
+ * 之后通过 ProcessContext 共享，避免每次构建节点都走反射。
+ * <p>
+ * 与 TreeMaker 一样不是线程安全的，只能在应用阶段使用。
+ */
+public abstract class JavacCompat {
+
+    /**
+     * TreeMaker封装了创建AST节点的一些方法
+     */
+    protected final TreeMaker treeMaker;
+
+    protected JavacCompat(TreeMaker treeMaker) {
+        this.treeMaker = treeMaker;
+    }
+
+    /**
+     * 根据当前 javac 版本创建兼容层
+     *
+     * @param treeMaker TreeMaker
+     * @return 兼容层
+     */
+    public static JavacCompat newInstance(TreeMaker treeMaker) {
+        if (JavacUtil.getJavaCompilerVersion() < 8) {
+            return new LegacyJavacCompat(treeMaker);
+        }
+        return new TagJavacCompat(treeMaker);
+    }
+
+    /**
+     * 构建 lhs + rhs
+     *
+     * @param lhs 左边
+     * @param rhs 右边
+     * @return 结果
+     */
+    public abstract JCTree.JCBinary plus(JCTree.JCExpression lhs, JCTree.JCExpression rhs);
+
+    /**
+     * 构建二元表达式
+     *
+     * @param tagName 操作符名称，与 JCTree.Tag 的枚举名一致，例如 EQ、AND
+     * @param lhs     左边
+     * @param rhs     右边
+     * @return 结果
+     */
+    public abstract JCTree.JCBinary binary(String tagName, JCTree.JCExpression lhs, JCTree.JCExpression rhs);
+
+    /**
+     * 构建一元表达式
+     *
+     * @param tagName 操作符名称，与 JCTree.Tag 的枚举名一致，例如 NOT、NEG
+     * @param arg     操作数
+     * @return 结果
+     */
+    public abstract JCTree.JCUnary unary(String tagName, JCTree.JCExpression arg);
+
+    /**
+     * 构建 null 字面量
+     * <p>
+     * TreeMaker.Literal 的类型标记在 [6-7] 是 TypeTags 中的 int，[8+] 是 TypeTag 枚举。
+     *
+     * @return null
+     */
+    public abstract JCTree.JCLiteral nullLiteral();
+
+    /**
+     * 构建基本类型
+     *
+     * @param tagName 类型名称，与 TypeTag 的枚举名一致，例如 INT、LONG
+     * @return 类型
+     */
+    public abstract JCTree.JCPrimitiveTypeTree primitiveType(String tagName);
+
+}
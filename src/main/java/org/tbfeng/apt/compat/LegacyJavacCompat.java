@@ -0,0 +1,159 @@
+package org.tbfeng.apt.compat;
+
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeMaker;
+import org.tbfeng.apt.utils.AstReflectUtil;
+import org.tbfeng.apt.utils.ClassUtil;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * javac [6-7] 兼容层
+ * <p>
+ * 操作符为 JCTree 中的 int 常量，TreeMaker.Binary(int, ...) 在编译期不可见，
+ * 创建时一次性解析为绑定了 TreeMaker 的 MethodHandle，操作符与类型标签的值也只反射读取一次。
+ */
+class LegacyJavacCompat extends JavacCompat {
+
+    private static final String TREE_CLASS_NAME = "com.sun.tools.javac.tree.JCTree";
+
+    private static final String TYPE_TAGS_CLASS_NAME = "com.sun.tools.javac.code.TypeTags";
+
+    /**
+     * TreeMaker.Binary(int, JCExpression, JCExpression)，已绑定 treeMaker
+     */
+    private final MethodHandle binaryHandle;
+
+    /**
+     * 预先解析的 PLUS
+     */
+    private final int plusOpcode;
+
+    /**
+     * 操作符名称 -> 值
+     */
+    private final Map<String, Integer> opcodeMap = new HashMap<String, Integer>();
+
+    /**
+     * 类型标签名称 -> 值
+     */
+    private final Map<String, Integer> typeTagMap = new HashMap<String, Integer>();
+
+    /**
+     * TreeMaker.Unary(int, JCExpression)，已绑定 treeMaker，首次使用时解析
+     */
+    private MethodHandle unaryHandle;
+
+    /**
+     * TreeMaker.Literal(int, Object)，已绑定 treeMaker，首次使用时解析
+     */
+    private MethodHandle literalHandle;
+
+    /**
+     * TreeMaker.TypeIdent(int)，已绑定 treeMaker，首次使用时解析
+     */
+    private MethodHandle typeIdentHandle;
+
+    LegacyJavacCompat(TreeMaker treeMaker) {
+        super(treeMaker);
+        try {
+            this.binaryHandle = MethodHandles.publicLookup()
+                    .unreflect(ClassUtil.getMethod(TreeMaker.class, "Binary",
+                            int.class, JCTree.JCExpression.class, JCTree.JCExpression.class))
+                    .bindTo(treeMaker);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        this.plusOpcode = opcode("PLUS");
+    }
+
+    @Override
+    public JCTree.JCBinary plus(JCTree.JCExpression lhs, JCTree.JCExpression rhs) {
+        return invokeBinary(plusOpcode, lhs, rhs);
+    }
+
+    @Override
+    public JCTree.JCBinary binary(String tagName, JCTree.JCExpression lhs, JCTree.JCExpression rhs) {
+        return invokeBinary(opcode(tagName), lhs, rhs);
+    }
+
+    @Override
+    public JCTree.JCUnary unary(String tagName, JCTree.JCExpression arg) {
+        try {
+            if (unaryHandle == null) {
+                unaryHandle = MethodHandles.publicLookup()
+                        .unreflect(ClassUtil.getMethod(TreeMaker.class, "Unary", int.class, JCTree.JCExpression.class))
+                        .bindTo(treeMaker);
+            }
+            return (JCTree.JCUnary) unaryHandle.invoke(opcode(tagName), arg);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public JCTree.JCLiteral nullLiteral() {
+        try {
+            if (literalHandle == null) {
+                literalHandle = MethodHandles.publicLookup()
+                        .unreflect(ClassUtil.getMethod(TreeMaker.class, "Literal", int.class, Object.class))
+                        .bindTo(treeMaker);
+            }
+            return (JCTree.JCLiteral) literalHandle.invoke(typeTag("BOT"), null);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public JCTree.JCPrimitiveTypeTree primitiveType(String tagName) {
+        try {
+            if (typeIdentHandle == null) {
+                typeIdentHandle = MethodHandles.publicLookup()
+                        .unreflect(ClassUtil.getMethod(TreeMaker.class, "TypeIdent", int.class))
+                        .bindTo(treeMaker);
+            }
+            return (JCTree.JCPrimitiveTypeTree) typeIdentHandle.invoke(typeTag(tagName));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private int opcode(String tagName) {
+        Integer opcode = opcodeMap.get(tagName);
+        if (opcode == null) {
+            opcode = (Integer) AstReflectUtil.getStaticFieldValue(TREE_CLASS_NAME, tagName);
+            opcodeMap.put(tagName, opcode);
+        }
+        return opcode;
+    }
+
+    private int typeTag(String tagName) {
+        Integer typeTag = typeTagMap.get(tagName);
+        if (typeTag == null) {
+            typeTag = (Integer) AstReflectUtil.getStaticFieldValue(TYPE_TAGS_CLASS_NAME, tagName);
+            typeTagMap.put(tagName, typeTag);
+        }
+        return typeTag;
+    }
+
+    private JCTree.JCBinary invokeBinary(int opcode, JCTree.JCExpression lhs, JCTree.JCExpression rhs) {
+        try {
+            return (JCTree.JCBinary) binaryHandle.invoke(opcode, lhs, rhs);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
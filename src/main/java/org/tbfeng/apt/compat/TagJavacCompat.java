@@ -0,0 +1,44 @@
+package org.tbfeng.apt.compat;
+
+import com.sun.tools.javac.code.TypeTag;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeMaker;
+
+/**
+ * javac [8+] 兼容层
+ * <p>
+ * 操作符为 JCTree.Tag 枚举，直接调用 TreeMaker.Binary。
+ * 只有在 8 及以上版本才会加载该类，因此可以直接引用 JCTree.Tag。
+ */
+class TagJavacCompat extends JavacCompat {
+
+    TagJavacCompat(TreeMaker treeMaker) {
+        super(treeMaker);
+    }
+
+    @Override
+    public JCTree.JCBinary plus(JCTree.JCExpression lhs, JCTree.JCExpression rhs) {
+        return treeMaker.Binary(JCTree.Tag.PLUS, lhs, rhs);
+    }
+
+    @Override
+    public JCTree.JCBinary binary(String tagName, JCTree.JCExpression lhs, JCTree.JCExpression rhs) {
+        return treeMaker.Binary(JCTree.Tag.valueOf(tagName), lhs, rhs);
+    }
+
+    @Override
+    public JCTree.JCUnary unary(String tagName, JCTree.JCExpression arg) {
+        return treeMaker.Unary(JCTree.Tag.valueOf(tagName), arg);
+    }
+
+    @Override
+    public JCTree.JCLiteral nullLiteral() {
+        return treeMaker.Literal(TypeTag.BOT, null);
+    }
+
+    @Override
+    public JCTree.JCPrimitiveTypeTree primitiveType(String tagName) {
+        return treeMaker.TypeIdent(TypeTag.valueOf(tagName));
+    }
+
+}
@@ -0,0 +1,40 @@
+package org.tbfeng.apt.constant;
+
+/**
+ * 属性复制常量
+ *
+ * @see org.tbfeng.apt.annotation.BeanCopy
+ */
+public final class BeanCopyConst {
+
+    /**
+     * copy(source, target) 方法名称
+     */
+    public static final String COPY_METHOD = "copy";
+
+    /**
+     * 来源参数名称
+     */
+    public static final String SOURCE_PARAM = "source";
+
+    /**
+     * 目标参数名称
+     */
+    public static final String TARGET_PARAM = "target";
+
+    /**
+     * getter 前缀
+     */
+    public static final String GET_PREFIX = "get";
+
+    /**
+     * boolean getter 前缀
+     */
+    public static final String IS_PREFIX = "is";
+
+    /**
+     * setter 前缀
+     */
+    public static final String SET_PREFIX = "set";
+
+}
@@ -0,0 +1,22 @@
+package org.tbfeng.apt.constant;
+
+/**
+ * toMap、fromMap、asMap 常量
+ *
+ * @see org.tbfeng.apt.annotation.BeanMap
+ */
+public final class BeanMapConst {
+
+    /**
+     * HashMap 默认的负载因子，用于计算 toMap() 中 LinkedHashMap 的初始容量
+     */
+    public static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * 估算的每个 map.put("a", this.a) 的字节码大小（包括基本类型的装箱），用于拆分 toMap()
+     * <p>
+     * MethodSplitter 的估算不包括装箱，因此 toMap() 单独按条数拆分。
+     */
+    public static final int PUT_SIZE = 17;
+
+}
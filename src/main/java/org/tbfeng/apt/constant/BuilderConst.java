@@ -0,0 +1,40 @@
+package org.tbfeng.apt.constant;
+
+/**
+ * Builder 常量
+ *
+ * @see org.tbfeng.apt.annotation.Builder
+ */
+public final class BuilderConst {
+
+    /**
+     * 嵌套的 Builder 类名称
+     */
+    public static final String BUILDER_CLASS = "Builder";
+
+    /**
+     * 创建 Builder 的静态方法名称
+     */
+    public static final String BUILDER_METHOD = "builder";
+
+    /**
+     * 创建对象的方法名称
+     */
+    public static final String BUILD_METHOD = "build";
+
+    /**
+     * 恢复默认值的方法名称
+     */
+    public static final String RESET_METHOD = "reset";
+
+    /**
+     * 构造器拆分出的赋值方法名称前缀，生成 init$N(Builder)
+     */
+    public static final String INIT_METHOD = "init";
+
+    /**
+     * 标记字段是否设置过的后缀
+     */
+    public static final String SET_FLAG_SUFFIX = "$set";
+
+}
@@ -0,0 +1,27 @@
+package org.tbfeng.apt.constant;
+
+/**
+ * equals、hashCode 常量
+ *
+ * @see org.tbfeng.apt.annotation.EqualsHashCode
+ */
+public final class EqualsHashCodeConst {
+
+    /**
+     * 缓存 hashCode() 结果的字段名称
+     *
+     * @see org.tbfeng.apt.annotation.EqualsHashCode#cache()
+     */
+    public static final String CACHE_FIELD = "$hashCodeCache";
+
+    /**
+     * hashCode 的初始值
+     */
+    public static final int HASH_SEED = 1;
+
+    /**
+     * hashCode 的乘数，与 Arrays.hashCode、List.hashCode 一致
+     */
+    public static final int HASH_MULTIPLIER = 31;
+
+}
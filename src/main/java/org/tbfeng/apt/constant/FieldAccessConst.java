@@ -0,0 +1,52 @@
+package org.tbfeng.apt.constant;
+
+/**
+ * 字段访问器常量
+ *
+ * @see org.tbfeng.apt.annotation.FieldAccess
+ */
+public final class FieldAccessConst {
+
+    /**
+     * 嵌套的访问器类名称，二进制名称为 X$Access
+     *
+     * @see org.tbfeng.apt.utils.FieldAccessorRegistry#ACCESSOR_SUFFIX
+     */
+    public static final String ACCESS_CLASS = "Access";
+
+    /**
+     * 访问器实例的常量名称，访问器没有状态，可以共享
+     */
+    public static final String INSTANCE_FIELD = "INSTANCE";
+
+    /**
+     * 字段名称数组的常量名称
+     */
+    public static final String FIELD_NAMES_FIELD = "FIELD_NAMES";
+
+    /**
+     * 是否可写数组的常量名称
+     */
+    public static final String WRITABLE_FIELD = "WRITABLE";
+
+    /**
+     * 估算的 get 每个 case 的字节码大小（跳转表、读字段、装箱、返回），用于拆分 switch
+     */
+    public static final int GET_CASE_SIZE = 14;
+
+    /**
+     * 估算的 set 每个 case 的字节码大小（跳转表、类型转换、拆箱、写字段），用于拆分 switch
+     */
+    public static final int SET_CASE_SIZE = 19;
+
+    /**
+     * 估算的 indexOf 每个 case 的字节码大小（hashCode 跳转、equals、二次跳转），用于拆分 switch
+     */
+    public static final int INDEX_OF_CASE_SIZE = 40;
+
+    /**
+     * 估算的 indexOf$N 每个字段的字节码大小（hashCode 跳转、equals、返回），用于计算分桶数
+     */
+    public static final int INDEX_OF_HASH_CASE_SIZE = 22;
+
+}
@@ -11,4 +11,39 @@ public final class MethodConst {
      **/
     public static final String TO_STRING = "toString";
 
+    /**
+     * appendTo(StringBuilder) 方法名称
+     **/
+    public static final String APPEND_TO = "appendTo";
+
+    /**
+     * snapshot() 方法名称
+     **/
+    public static final String SNAPSHOT = "snapshot";
+
+    /**
+     * equals(Object) 方法名称
+     **/
+    public static final String EQUALS = "equals";
+
+    /**
+     * hashCode() 方法名称
+     **/
+    public static final String HASH_CODE = "hashCode";
+
+    /**
+     * toMap() 方法名称
+     **/
+    public static final String TO_MAP = "toMap";
+
+    /**
+     * fromMap(Map) 方法名称
+     **/
+    public static final String FROM_MAP = "fromMap";
+
+    /**
+     * asMap() 方法名称
+     **/
+    public static final String AS_MAP = "asMap";
+
 }
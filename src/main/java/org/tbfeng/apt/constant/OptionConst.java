@@ -0,0 +1,34 @@
+package org.tbfeng.apt.constant;
+
+/**
+ * 处理器参数常量
+ * <p>
+ * 通过 javac 的 -A 参数传入，例如：-Aapt.parallelism=4
+ */
+public final class OptionConst {
+
+    /**
+     * 分析阶段的并行度，默认为 1（单线程）
+     */
+    public static final String PARALLELISM = "apt.parallelism";
+
+    /**
+     * 性能统计报告文件，以 .csv 结尾时输出 CSV，否则输出 JSON；不设置时不统计
+     */
+    public static final String PROFILE = "apt.profile";
+
+    /**
+     * toString() 默认的实现方式，@ToString 未指定 value 时使用，默认为 concat
+     *
+     * @see ToStringConst
+     */
+    public static final String TO_STRING_STRATEGY = "apt.toString.strategy";
+
+    /**
+     * 生成方法的字节码大小上限（估算值），超过时拆分为多个 private 方法；默认 325，小于等于 0 时不拆分
+     *
+     * @see org.tbfeng.apt.domian.MethodSplitter
+     */
+    public static final String MAX_METHOD_SIZE = "apt.maxMethodSize";
+
+}
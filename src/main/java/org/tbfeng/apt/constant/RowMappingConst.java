@@ -0,0 +1,30 @@
+package org.tbfeng.apt.constant;
+
+/**
+ * 行映射器常量
+ *
+ * @see org.tbfeng.apt.annotation.RowMapping
+ */
+public final class RowMappingConst {
+
+    /**
+     * 嵌套的行映射器类名称，二进制名称为 X$RowMapper
+     */
+    public static final String ROW_MAPPER_CLASS = "RowMapper";
+
+    /**
+     * 行映射器实例的常量名称，行映射器可以共享
+     */
+    public static final String INSTANCE_FIELD = "INSTANCE";
+
+    /**
+     * 字段名称数组的常量名称
+     */
+    public static final String FIELD_NAMES_FIELD = "FIELD_NAMES";
+
+    /**
+     * mapRow(ResultSet, int[]) 方法名称
+     */
+    public static final String MAP_ROW_METHOD = "mapRow";
+
+}
@@ -0,0 +1,44 @@
+package org.tbfeng.apt.constant;
+
+/**
+ * toString() 实现方式常量
+ *
+ * @see org.tbfeng.apt.annotation.ToString#value()
+ */
+public final class ToStringConst {
+
+    /**
+     * 字符串拼接：return "X{a=" + a + ", b=" + b + "}";
+     */
+    public static final String CONCAT = "concat";
+
+    /**
+     * 预估容量的 StringBuilder 链式调用：return new StringBuilder(n).append("X{a=").append(a)...toString();
+     */
+    public static final String BUILDER = "builder";
+
+    /**
+     * 分段的 StringBuilder：每 {@link #CHUNK_SIZE} 个字段一条语句，适用于字段很多的类
+     */
+    public static final String CHUNKED = "chunked";
+
+    /**
+     * 分段时每条语句包含的字段数
+     */
+    public static final int CHUNK_SIZE = 32;
+
+    /**
+     * 缓存 toString() 结果的字段名称
+     *
+     * @see org.tbfeng.apt.annotation.ToString#cache()
+     */
+    public static final String CACHE_FIELD = "$toStringCache";
+
+    /**
+     * 快照类的名称
+     *
+     * @see org.tbfeng.apt.annotation.ToString#snapshot()
+     */
+    public static final String SNAPSHOT_CLASS = "Snapshot";
+
+}
@@ -0,0 +1,55 @@
+package org.tbfeng.apt.constant;
+
+/**
+ * 校验常量
+ *
+ * @see org.tbfeng.apt.annotation.Validate
+ */
+public final class ValidateConst {
+
+    /**
+     * validate 方法名称
+     */
+    public static final String VALIDATE_METHOD = "validate";
+
+    /**
+     * validate(ValidationResult) 的参数名称
+     */
+    public static final String RESULT_PARAM = "result";
+
+    /**
+     * 正则表达式常量的名称：$ + 字段名称 + Pattern
+     */
+    public static final String PATTERN_FIELD_PREFIX = "$";
+
+    /**
+     * 正则表达式常量的名称后缀
+     */
+    public static final String PATTERN_FIELD_SUFFIX = "Pattern";
+
+    /**
+     * {@link org.tbfeng.apt.annotation.NotNull} 默认的错误信息
+     */
+    public static final String NOT_NULL_MESSAGE = "can not be null";
+
+    /**
+     * {@link org.tbfeng.apt.annotation.MinLen} 默认的错误信息，后面拼接最小长度
+     */
+    public static final String MIN_LEN_MESSAGE = "length must be >= ";
+
+    /**
+     * {@link org.tbfeng.apt.annotation.MaxLen} 默认的错误信息，后面拼接最大长度
+     */
+    public static final String MAX_LEN_MESSAGE = "length must be <= ";
+
+    /**
+     * {@link org.tbfeng.apt.annotation.Numeric} 默认的错误信息
+     */
+    public static final String NUMERIC_MESSAGE = "must be a number";
+
+    /**
+     * {@link org.tbfeng.apt.annotation.Regex} 默认的错误信息，后面拼接正则表达式
+     */
+    public static final String REGEX_MESSAGE = "must match ";
+
+}
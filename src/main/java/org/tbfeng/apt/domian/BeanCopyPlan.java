@@ -0,0 +1,75 @@
+package org.tbfeng.apt.domian;
+
+import javax.lang.model.type.TypeMirror;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 属性复制的分析结果
+ * <p>
+ * 在分析阶段生成，只包含纯数据，不持有任何 TreeMaker 创建的节点。
+ * 属性需要补全来源、目标类的符号，在应用阶段解析。
+ */
+public class BeanCopyPlan {
+
+    /**
+     * 错误信息，不为空时不生成
+     */
+    private String error;
+
+    /**
+     * 来源类型
+     */
+    private TypeMirror sourceType;
+
+    /**
+     * 目标类型
+     */
+    private TypeMirror targetType;
+
+    /**
+     * 忽略的目标属性
+     */
+    private final Set<String> ignoreSet = new LinkedHashSet<String>();
+
+    public static BeanCopyPlan newInstance() {
+        return new BeanCopyPlan();
+    }
+
+    public String error() {
+        return error;
+    }
+
+    public BeanCopyPlan error(String error) {
+        this.error = error;
+        return this;
+    }
+
+    public TypeMirror sourceType() {
+        return sourceType;
+    }
+
+    public BeanCopyPlan sourceType(TypeMirror sourceType) {
+        this.sourceType = sourceType;
+        return this;
+    }
+
+    public TypeMirror targetType() {
+        return targetType;
+    }
+
+    public BeanCopyPlan targetType(TypeMirror targetType) {
+        this.targetType = targetType;
+        return this;
+    }
+
+    public Set<String> ignoreSet() {
+        return ignoreSet;
+    }
+
+    public BeanCopyPlan addIgnore(String propertyName) {
+        this.ignoreSet.add(propertyName);
+        return this;
+    }
+
+}
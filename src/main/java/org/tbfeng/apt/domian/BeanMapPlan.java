@@ -0,0 +1,98 @@
+package org.tbfeng.apt.domian;
+
+/**
+ * toMap、fromMap、asMap 的分析结果
+ * <p>
+ * 在分析阶段生成，只包含纯数据，不持有任何 TreeMaker 创建的节点。
+ */
+public class BeanMapPlan {
+
+    /**
+     * 错误信息，不为空时不生成
+     */
+    private String error;
+
+    /**
+     * 是否已经存在 toMap() 方法
+     */
+    private boolean existsToMap;
+
+    /**
+     * 是否已经存在 fromMap(Map) 方法
+     */
+    private boolean existsFromMap;
+
+    /**
+     * 是否已经存在 asMap() 方法
+     */
+    private boolean existsAsMap;
+
+    /**
+     * 是否需要生成访问器，类上已经标记了 @FieldAccess 时由其生成
+     */
+    private boolean generateAccess;
+
+    /**
+     * 字段及访问器的分析结果
+     */
+    private FieldAccessPlan fieldAccessPlan;
+
+    public static BeanMapPlan newInstance() {
+        return new BeanMapPlan();
+    }
+
+    public String error() {
+        return error;
+    }
+
+    public BeanMapPlan error(String error) {
+        this.error = error;
+        return this;
+    }
+
+    public boolean existsToMap() {
+        return existsToMap;
+    }
+
+    public BeanMapPlan existsToMap(boolean existsToMap) {
+        this.existsToMap = existsToMap;
+        return this;
+    }
+
+    public boolean existsFromMap() {
+        return existsFromMap;
+    }
+
+    public BeanMapPlan existsFromMap(boolean existsFromMap) {
+        this.existsFromMap = existsFromMap;
+        return this;
+    }
+
+    public boolean existsAsMap() {
+        return existsAsMap;
+    }
+
+    public BeanMapPlan existsAsMap(boolean existsAsMap) {
+        this.existsAsMap = existsAsMap;
+        return this;
+    }
+
+    public boolean generateAccess() {
+        return generateAccess;
+    }
+
+    public BeanMapPlan generateAccess(boolean generateAccess) {
+        this.generateAccess = generateAccess;
+        return this;
+    }
+
+    public FieldAccessPlan fieldAccessPlan() {
+        return fieldAccessPlan;
+    }
+
+    public BeanMapPlan fieldAccessPlan(FieldAccessPlan fieldAccessPlan) {
+        this.fieldAccessPlan = fieldAccessPlan;
+        return this;
+    }
+
+}
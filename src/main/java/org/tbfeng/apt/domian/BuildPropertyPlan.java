@@ -0,0 +1,148 @@
+package org.tbfeng.apt.domian;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * XXXBuilder 的分析结果
+ */
+public class BuildPropertyPlan {
+
+    /**
+     * 全限定类名
+     */
+    private String className;
+
+    /**
+     * setter 所在的类，作为生成文件的来源元素
+     */
+    private TypeElement originatingElement;
+
+    /**
+     * 需要构建的属性
+     */
+    private final List<PropertyEntry> propertyList = new ArrayList<PropertyEntry>();
+
+    /**
+     * 全参构造器的参数，按构造器的参数顺序保存属性名称；不存在时为 null
+     */
+    private List<String> constructorParamList;
+
+    /**
+     * 注解使用错误的方法
+     */
+    private final List<Element> otherMethodList = new ArrayList<Element>();
+
+    public static BuildPropertyPlan newInstance() {
+        return new BuildPropertyPlan();
+    }
+
+    public String className() {
+        return className;
+    }
+
+    public BuildPropertyPlan className(String className) {
+        this.className = className;
+        return this;
+    }
+
+    public TypeElement originatingElement() {
+        return originatingElement;
+    }
+
+    public BuildPropertyPlan originatingElement(TypeElement originatingElement) {
+        this.originatingElement = originatingElement;
+        return this;
+    }
+
+    public List<PropertyEntry> propertyList() {
+        return propertyList;
+    }
+
+    public BuildPropertyPlan addProperty(PropertyEntry propertyEntry) {
+        this.propertyList.add(propertyEntry);
+        return this;
+    }
+
+    public List<String> constructorParamList() {
+        return constructorParamList;
+    }
+
+    public BuildPropertyPlan constructorParamList(List<String> constructorParamList) {
+        this.constructorParamList = constructorParamList;
+        return this;
+    }
+
+    public List<Element> otherMethodList() {
+        return otherMethodList;
+    }
+
+    /**
+     * 属性信息
+     */
+    public static class PropertyEntry {
+
+        /**
+         * set方法名
+         */
+        private String setterName;
+
+        /**
+         * 属性名称，同时作为 builder 中的字段名
+         */
+        private String name;
+
+        /**
+         * 参数类型
+         */
+        private String typeName;
+
+        /**
+         * 类型的默认值，用于 reset()
+         */
+        private String defaultValue;
+
+        public static PropertyEntry newInstance() {
+            return new PropertyEntry();
+        }
+
+        public String setterName() {
+            return setterName;
+        }
+
+        public PropertyEntry setterName(String setterName) {
+            this.setterName = setterName;
+            return this;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public PropertyEntry name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public String typeName() {
+            return typeName;
+        }
+
+        public PropertyEntry typeName(String typeName) {
+            this.typeName = typeName;
+            return this;
+        }
+
+        public String defaultValue() {
+            return defaultValue;
+        }
+
+        public PropertyEntry defaultValue(String defaultValue) {
+            this.defaultValue = defaultValue;
+            return this;
+        }
+    }
+
+}
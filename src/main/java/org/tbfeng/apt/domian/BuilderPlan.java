@@ -0,0 +1,112 @@
+package org.tbfeng.apt.domian;
+
+import javax.lang.model.type.TypeKind;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 嵌套 Builder 的分析结果
+ * <p>
+ * 在分析阶段生成，只包含纯数据，不持有任何 TreeMaker 创建的节点。
+ */
+public class BuilderPlan {
+
+    /**
+     * 错误信息，不为空时不生成
+     */
+    private String error;
+
+    /**
+     * 是否存在未赋值的 final 字段，此时 javac 生成的默认构造器无法通过编译，需要移除
+     */
+    private boolean uninitializedFinal;
+
+    /**
+     * 需要构建的字段，按声明顺序
+     */
+    private final List<FieldEntry> fieldList = new ArrayList<FieldEntry>();
+
+    public static BuilderPlan newInstance() {
+        return new BuilderPlan();
+    }
+
+    public String error() {
+        return error;
+    }
+
+    public BuilderPlan error(String error) {
+        this.error = error;
+        return this;
+    }
+
+    public boolean uninitializedFinal() {
+        return uninitializedFinal;
+    }
+
+    public BuilderPlan uninitializedFinal(boolean uninitializedFinal) {
+        this.uninitializedFinal = uninitializedFinal;
+        return this;
+    }
+
+    public List<FieldEntry> fieldList() {
+        return fieldList;
+    }
+
+    public BuilderPlan addField(FieldEntry fieldEntry) {
+        this.fieldList.add(fieldEntry);
+        return this;
+    }
+
+    /**
+     * 字段信息
+     */
+    public static class FieldEntry {
+
+        /**
+         * 字段名称
+         */
+        private String name;
+
+        /**
+         * 是否有初始值，有初始值时只在设置过的情况下覆盖
+         */
+        private boolean initialized;
+
+        /**
+         * 类型，用于 reset() 时确定默认值：基本类型为对应的 TypeKind，其他为 DECLARED
+         */
+        private TypeKind typeKind;
+
+        public static FieldEntry newInstance() {
+            return new FieldEntry();
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public FieldEntry name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public boolean initialized() {
+            return initialized;
+        }
+
+        public FieldEntry initialized(boolean initialized) {
+            this.initialized = initialized;
+            return this;
+        }
+
+        public TypeKind typeKind() {
+            return typeKind;
+        }
+
+        public FieldEntry typeKind(TypeKind typeKind) {
+            this.typeKind = typeKind;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+package org.tbfeng.apt.domian;
+
+import javax.lang.model.type.TypeKind;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * equals、hashCode 的分析结果
+ * <p>
+ * 在分析阶段生成，只包含纯数据，不持有任何 TreeMaker 创建的节点。
+ */
+public class EqualsHashCodePlan {
+
+    /**
+     * 是否已经存在 equals(Object) 方法
+     */
+    private boolean existsEquals;
+
+    /**
+     * 是否已经存在 hashCode() 方法
+     */
+    private boolean existsHashCode;
+
+    /**
+     * 是否缓存 hashCode
+     */
+    private boolean cache;
+
+    /**
+     * 非 final 的字段名称，缓存时需要为空
+     */
+    private final List<String> nonFinalFieldList = new ArrayList<String>();
+
+    /**
+     * 需要比较的字段，按声明顺序
+     */
+    private final List<FieldEntry> fieldList = new ArrayList<FieldEntry>();
+
+    public static EqualsHashCodePlan newInstance() {
+        return new EqualsHashCodePlan();
+    }
+
+    public boolean existsEquals() {
+        return existsEquals;
+    }
+
+    public EqualsHashCodePlan existsEquals(boolean existsEquals) {
+        this.existsEquals = existsEquals;
+        return this;
+    }
+
+    public boolean existsHashCode() {
+        return existsHashCode;
+    }
+
+    public EqualsHashCodePlan existsHashCode(boolean existsHashCode) {
+        this.existsHashCode = existsHashCode;
+        return this;
+    }
+
+    public boolean cache() {
+        return cache;
+    }
+
+    public EqualsHashCodePlan cache(boolean cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    public List<String> nonFinalFieldList() {
+        return nonFinalFieldList;
+    }
+
+    public EqualsHashCodePlan addNonFinalField(String fieldName) {
+        this.nonFinalFieldList.add(fieldName);
+        return this;
+    }
+
+    public List<FieldEntry> fieldList() {
+        return fieldList;
+    }
+
+    public EqualsHashCodePlan addField(FieldEntry fieldEntry) {
+        this.fieldList.add(fieldEntry);
+        return this;
+    }
+
+    /**
+     * 字段信息
+     */
+    public static class FieldEntry {
+
+        /**
+         * 字段名称
+         */
+        private String name;
+
+        /**
+         * 类型：基本类型为对应的 TypeKind，数组为 ARRAY，其他为 DECLARED
+         */
+        private TypeKind typeKind;
+
+        /**
+         * 是否为一维的基本类型数组，使用 Arrays.equals；其他数组使用 Arrays.deepEquals
+         */
+        private boolean primitiveArray;
+
+        public static FieldEntry newInstance() {
+            return new FieldEntry();
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public FieldEntry name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public TypeKind typeKind() {
+            return typeKind;
+        }
+
+        public FieldEntry typeKind(TypeKind typeKind) {
+            this.typeKind = typeKind;
+            return this;
+        }
+
+        public boolean primitiveArray() {
+            return primitiveArray;
+        }
+
+        public FieldEntry primitiveArray(boolean primitiveArray) {
+            this.primitiveArray = primitiveArray;
+            return this;
+        }
+
+        /**
+         * equals 中比较的开销，从小到大比较
+         * <p>
+         * 0：整数、boolean、char；1：float、double；2：引用；3：数组
+         *
+         * @return 开销
+         */
+        public int cost() {
+            if (typeKind == TypeKind.FLOAT || typeKind == TypeKind.DOUBLE) {
+                return 1;
+            }
+            if (typeKind.isPrimitive()) {
+                return 0;
+            }
+            return typeKind == TypeKind.ARRAY ? 3 : 2;
+        }
+    }
+
+}
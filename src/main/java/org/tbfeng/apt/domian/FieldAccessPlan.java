@@ -0,0 +1,83 @@
+package org.tbfeng.apt.domian;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 字段访问器的分析结果
+ * <p>
+ * 在分析阶段生成，只包含纯数据，不持有任何 TreeMaker 创建的节点。
+ */
+public class FieldAccessPlan {
+
+    /**
+     * 错误信息，不为空时不生成
+     */
+    private String error;
+
+    /**
+     * 字段，按声明顺序，下标即字段的下标
+     */
+    private final List<FieldEntry> fieldList = new ArrayList<FieldEntry>();
+
+    public static FieldAccessPlan newInstance() {
+        return new FieldAccessPlan();
+    }
+
+    public String error() {
+        return error;
+    }
+
+    public FieldAccessPlan error(String error) {
+        this.error = error;
+        return this;
+    }
+
+    public List<FieldEntry> fieldList() {
+        return fieldList;
+    }
+
+    public FieldAccessPlan addField(FieldEntry fieldEntry) {
+        this.fieldList.add(fieldEntry);
+        return this;
+    }
+
+    /**
+     * 字段信息
+     */
+    public static class FieldEntry {
+
+        /**
+         * 字段名称
+         */
+        private String name;
+
+        /**
+         * 是否为 final，final 字段不可写
+         */
+        private boolean finalField;
+
+        public static FieldEntry newInstance() {
+            return new FieldEntry();
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public FieldEntry name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public boolean finalField() {
+            return finalField;
+        }
+
+        public FieldEntry finalField(boolean finalField) {
+            this.finalField = finalField;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package org.tbfeng.apt.domian;
+
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeMaker;
+import com.sun.tools.javac.util.ListBuffer;
+import com.sun.tools.javac.util.Names;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 导入收集器
+ * <p>
+ * 按编译单元收集需要新增的 import，与已有的 import 去重，每一轮统一写回一次，
+ * 避免每次导入都重建 JCCompilationUnit.defs。
+ * <p>
+ * 只能在应用阶段（单线程）使用。
+ */
+public class ImportCollector {
+
+    /**
+     * 默认导入的包
+     */
+    private static final String JAVA_LANG = "java.lang";
+
+    /**
+     * [9+] package 声明的语法树类名，[6-8] 中不存在，只能按名称判断
+     */
+    private static final String PACKAGE_DECL_CLASS = "JCPackageDecl";
+
+    /**
+     * TreeMaker封装了创建AST节点的一些方法
+     */
+    private final TreeMaker treeMaker;
+
+    /**
+     * Names提供了创建标识符的方法
+     */
+    private final Names names;
+
+    /**
+     * 编译单元 -> 已有的 import
+     */
+    private final Map<JCTree.JCCompilationUnit, Set<String>> existsImportMap
+            = new IdentityHashMap<JCTree.JCCompilationUnit, Set<String>>();
+
+    /**
+     * 编译单元 -> 待新增的 import，按名称排序，与处理器的执行顺序无关
+     */
+    private final Map<JCTree.JCCompilationUnit, Set<String>> pendingImportMap
+            = new IdentityHashMap<JCTree.JCCompilationUnit, Set<String>>();
+
+    public ImportCollector(TreeMaker treeMaker, Names names) {
+        this.treeMaker = treeMaker;
+        this.names = names;
+    }
+
+    /**
+     * 添加一个导入
+     *
+     * @param compilationUnit 编译单元
+     * @param importClass     要导入的类
+     */
+    public void add(JCTree.JCCompilationUnit compilationUnit, Class<?> importClass) {
+        Package importPackage = importClass.getPackage();
+        // 基本类型、java.lang 不需要导入
+        if (importPackage == null || JAVA_LANG.equals(importPackage.getName())) {
+            return;
+        }
+
+        String packageName = importPackage.getName();
+        String qualifiedName = packageName + "." + importClass.getSimpleName();
+        Set<String> existsImports = getExistsImports(compilationUnit);
+        if (existsImports.contains(qualifiedName) || existsImports.contains(packageName + ".*")) {
+            return;
+        }
+
+        Set<String> pendingImports = pendingImportMap.get(compilationUnit);
+        if (pendingImports == null) {
+            pendingImports = new TreeSet<String>();
+            pendingImportMap.put(compilationUnit, pendingImports);
+        }
+        pendingImports.add(qualifiedName);
+    }
+
+    /**
+     * 将收集到的导入写回编译单元，每个编译单元只重建一次 defs
+     */
+    public void flush() {
+        for (Map.Entry<JCTree.JCCompilationUnit, Set<String>> entry : pendingImportMap.entrySet()) {
+            JCTree.JCCompilationUnit compilationUnit = entry.getKey();
+            ListBuffer<JCTree> defs = new ListBuffer<JCTree>();
+            com.sun.tools.javac.util.List<JCTree> rest = compilationUnit.defs;
+            // [9+] package 声明也在 defs 中，并且必须是第一个，否则类会被当作默认包中的类
+            if (rest.nonEmpty() && PACKAGE_DECL_CLASS.equals(rest.head.getClass().getSimpleName())) {
+                defs.append(rest.head);
+                rest = rest.tail;
+            }
+            for (String qualifiedName : entry.getValue()) {
+                defs.append(buildImport(qualifiedName));
+            }
+            defs.appendList(rest);
+            compilationUnit.defs = defs.toList();
+        }
+
+        pendingImportMap.clear();
+        existsImportMap.clear();
+    }
+
+    /**
+     * 获取编译单元已有的 import，只解析一次
+     *
+     * @param compilationUnit 编译单元
+     * @return 全限定名集合
+     */
+    private Set<String> getExistsImports(JCTree.JCCompilationUnit compilationUnit) {
+        Set<String> existsImports = existsImportMap.get(compilationUnit);
+        if (existsImports == null) {
+            existsImports = new HashSet<String>();
+            for (JCTree def : compilationUnit.defs) {
+                if (def instanceof JCTree.JCImport) {
+                    JCTree.JCImport jcImport = (JCTree.JCImport) def;
+                    if (!jcImport.isStatic()) {
+                        existsImports.add(jcImport.getQualifiedIdentifier().toString());
+                    }
+                }
+            }
+            existsImportMap.put(compilationUnit, existsImports);
+        }
+        return existsImports;
+    }
+
+    /**
+     * 构建 import 语句
+     *
+     * @param qualifiedName 全限定名
+     * @return import
+     */
+    private JCTree.JCImport buildImport(String qualifiedName) {
+        int lastDot = qualifiedName.lastIndexOf('.');
+        JCTree.JCIdent packageIdent = treeMaker.Ident(names.fromString(qualifiedName.substring(0, lastDot)));
+        JCTree.JCFieldAccess fieldAccess = treeMaker.Select(packageIdent,
+                names.fromString(qualifiedName.substring(lastDot + 1)));
+        return treeMaker.Import(fieldAccess, false);
+    }
+
+}
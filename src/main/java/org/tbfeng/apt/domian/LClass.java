@@ -7,6 +7,15 @@ import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.util.ListBuffer;
 import org.tbfeng.apt.constant.ClassConst;
 
+import javax.lang.model.element.Element;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * 类信息
  */
@@ -22,6 +31,32 @@ public class LClass extends LCommon {
      */
     private final JCTree.JCClassDecl classDecl;
 
+    /**
+     * 类所在的编译单元，首次使用时获取
+     */
+    private JCTree.JCCompilationUnit compilationUnit;
+
+    /**
+     * 本轮中被注解标记的元素（类本身或者类中的方法、字段）
+     */
+    private final Map<Class<? extends Annotation>, java.util.List<Element>> annotatedElementMap
+            = new HashMap<Class<? extends Annotation>, java.util.List<Element>>();
+
+    /**
+     * 方法索引：方法名(参数类型,...)，首次使用时构建
+     */
+    private Set<String> methodKeySet;
+
+    /**
+     * 字段索引：字段名，首次使用时构建
+     */
+    private Set<String> fieldNameSet;
+
+    /**
+     * 接口索引：接口全限定名，首次使用时构建
+     */
+    private Set<String> interfaceNameSet;
+
     /**
      * 设置类的修饰符
      *
@@ -67,7 +102,7 @@ public class LClass extends LCommon {
 
         // 添加 JCTree
         JCTree.JCVariableDecl variableDecl = treeMaker.VarDef(treeMaker.Modifiers(field.modifiers()),
-                names.fromString(field.name()), buildClassIdent(field.type()), field.value().expression());
+                names.fromString(field.name()), buildTypeTree(field.type()), field.value().expression());
         statements.append(variableDecl);
 
         // 循环添加，重新赋值。
@@ -75,6 +110,7 @@ public class LClass extends LCommon {
             statements.append(jcTree);
         }
         classDecl.defs = statements.toList();
+        fieldNameSet.add(field.name());
         return this;
     }
 
@@ -100,10 +136,24 @@ public class LClass extends LCommon {
             JCTree.JCIdent ident = buildClassIdent(interfaceClass);
             statements.append(ident);
             classDecl.implementing = statements.toList();
+            interfaceNameSet.add(interfaceClass.getName());
         }
         return this;
     }
 
+    /**
+     * 构建类型，基本类型使用 TypeIdent，其他使用类标识
+     *
+     * @param clazz 类信息
+     * @return 类型
+     */
+    private JCTree.JCExpression buildTypeTree(final Class<?> clazz) {
+        if (clazz.isPrimitive()) {
+            return processContext.javacCompat().primitiveType(clazz.getName().toUpperCase(java.util.Locale.ROOT));
+        }
+        return buildClassIdent(clazz);
+    }
+
     /**
      * 构建类标识
      *
@@ -125,12 +175,8 @@ public class LClass extends LCommon {
      * @return 如果类已经实现了指定接口则返回true，否则返回false
      */
     private boolean existsInterface(Class<?> interfaceClass) {
-        for (JCTree.JCExpression impl : classDecl.implementing) {
-            if (impl.type.toString().equals(interfaceClass.getName())) {
-                return true;
-            }
-        }
-        return false;
+        buildMemberIndex();
+        return interfaceNameSet.contains(interfaceClass.getName());
     }
 
 
@@ -141,17 +187,108 @@ public class LClass extends LCommon {
      * @return 若存在返回true，否则返回false
      */
     private boolean existsField(String fieldName) {
+        buildMemberIndex();
+        return fieldNameSet.contains(fieldName);
+    }
+
+    /**
+     * 构建成员索引
+     * <p>
+     * 只在首次使用时遍历一次 defs、implementing，之后由 insertField、addInterface、insertMethod 增量维护。
+     * 分析阶段可能有多个处理器同时访问同一个类，因此需要同步。
+     */
+    private synchronized void buildMemberIndex() {
+        if (methodKeySet != null) {
+            return;
+        }
+
+        Set<String> methodKeys = new HashSet<String>();
+        Set<String> fieldNames = new HashSet<String>();
         for (JCTree jcTree : classDecl.defs) {
-            if (jcTree.getKind() == Tree.Kind.VARIABLE) {
-                JCTree.JCVariableDecl var = (JCTree.JCVariableDecl) jcTree;
+            if (jcTree instanceof JCTree.JCMethodDecl) {
+                methodKeys.add(buildMethodKey((JCTree.JCMethodDecl) jcTree));
+            } else if (jcTree.getKind() == Tree.Kind.VARIABLE) {
+                fieldNames.add(((JCTree.JCVariableDecl) jcTree).name.toString());
+            }
+        }
 
-                System.out.println(var.sym.flags_field);
-                if (fieldName.equals(var.name.toString())) {
-                    return true;
-                }
+        Set<String> interfaceNames = new HashSet<String>();
+        for (JCTree.JCExpression impl : classDecl.implementing) {
+            // 已经解析过类型的使用全限定名，否则使用源码中的写法
+            interfaceNames.add(impl.type != null ? impl.type.tsym.getQualifiedName().toString() : impl.toString());
+        }
+
+        this.fieldNameSet = fieldNames;
+        this.interfaceNameSet = interfaceNames;
+        this.methodKeySet = methodKeys;
+    }
+
+    /**
+     * 构建方法索引的键
+     *
+     * @param methodDecl 方法声明
+     * @return 方法名(参数类型,...)
+     */
+    private static String buildMethodKey(final JCTree.JCMethodDecl methodDecl) {
+        StringBuilder key = new StringBuilder(methodDecl.name.toString()).append('(');
+        boolean first = true;
+        for (JCTree.JCVariableDecl param : methodDecl.params) {
+            if (!first) {
+                key.append(',');
             }
+            key.append(param.vartype.toString());
+            first = false;
         }
-        return false;
+        return key.append(')').toString();
+    }
+
+    /**
+     * 构建方法索引的键
+     *
+     * @param methodName 方法名
+     * @param paramTypes 参数类型，与源码中的写法一致
+     * @return 方法名(参数类型,...)
+     */
+    private static String buildMethodKey(final String methodName, final String... paramTypes) {
+        StringBuilder key = new StringBuilder(methodName).append('(');
+        for (int i = 0; i < paramTypes.length; i++) {
+            if (i > 0) {
+                key.append(',');
+            }
+            key.append(paramTypes[i]);
+        }
+        return key.append(')').toString();
+    }
+
+    /**
+     * 记录被注解标记的元素
+     *
+     * @param annotationClass 注解类型
+     * @param element         元素
+     * @return 返回当前类
+     */
+    public LClass addAnnotatedElement(Class<? extends Annotation> annotationClass, Element element) {
+        java.util.List<Element> elementList = annotatedElementMap.get(annotationClass);
+        if (elementList == null) {
+            elementList = new ArrayList<Element>();
+            annotatedElementMap.put(annotationClass, elementList);
+        }
+        elementList.add(element);
+        return this;
+    }
+
+    /**
+     * 获取被注解标记的元素
+     *
+     * @param annotationClass 注解类型
+     * @return 元素列表，不存在时返回空列表
+     */
+    public java.util.List<Element> annotatedElementList(Class<? extends Annotation> annotationClass) {
+        java.util.List<Element> elementList = annotatedElementMap.get(annotationClass);
+        if (elementList == null) {
+            return Collections.emptyList();
+        }
+        return elementList;
     }
 
     /**
@@ -172,6 +309,18 @@ public class LClass extends LCommon {
         return classDecl;
     }
 
+    /**
+     * 获取类所在的编译单元
+     *
+     * @return 编译单元
+     */
+    public JCTree.JCCompilationUnit compilationUnit() {
+        if (compilationUnit == null) {
+            compilationUnit = (JCTree.JCCompilationUnit) trees.getPath(classSymbol).getCompilationUnit();
+        }
+        return compilationUnit;
+    }
+
     /**
      * 设置无参数构造器
      *
@@ -208,22 +357,73 @@ public class LClass extends LCommon {
      * 是否包含指定的方法
      *
      * @param methodName 方法名称
+     * @param paramTypes 参数类型，与源码中的写法一致；不传时匹配无参方法
      * @return 是否
      */
-    public boolean containsMethod(final String methodName) {
-        // 遍历类的所有字段和方法
-        for (JCTree jcTree : this.classDecl().defs) {
-            // 只处理方法
-            if (jcTree instanceof JCTree.JCMethodDecl) {
-                JCTree.JCMethodDecl methodDecl = (JCTree.JCMethodDecl) jcTree;
-                // 如果是构造方法 并且 没有参数
-                if (methodName.equals(methodDecl.name.toString())
-                        && methodDecl.params.isEmpty()) {
-                    return true;
-                }
+    public boolean containsMethod(final String methodName, final String... paramTypes) {
+        buildMemberIndex();
+        return methodKeySet.contains(buildMethodKey(methodName, paramTypes));
+    }
+
+    /**
+     * 在类的末尾插入方法
+     *
+     * @param methodDecl 方法声明
+     * @return 返回当前类
+     */
+    public LClass insertMethod(final JCTree.JCMethodDecl methodDecl) {
+        buildMemberIndex();
+        classDecl.defs = classDecl.defs.append(methodDecl);
+        methodKeySet.add(buildMethodKey(methodDecl));
+        return this;
+    }
+
+    /**
+     * 移除 javac 生成的默认构造器
+     * <p>
+     * 类中没有声明构造器时 javac 在 enter 阶段生成，新增其他构造器后不再需要。
+     *
+     * @return 返回当前类
+     */
+    public LClass removeGeneratedConstructor() {
+        buildMemberIndex();
+        ListBuffer<JCTree> defs = new ListBuffer<JCTree>();
+        for (JCTree jcTree : classDecl.defs) {
+            if (jcTree instanceof JCTree.JCMethodDecl
+                    && (((JCTree.JCMethodDecl) jcTree).mods.flags & Flags.GENERATEDCONSTR) != 0) {
+                methodKeySet.remove(buildMethodKey((JCTree.JCMethodDecl) jcTree));
+                continue;
             }
+            defs.append(jcTree);
         }
+        classDecl.defs = defs.toList();
+        return this;
+    }
 
+    /**
+     * 是否存在指定名称的成员类
+     *
+     * @param className 成员类的简单名称
+     * @return 是否
+     */
+    public boolean containsClass(final String className) {
+        for (JCTree jcTree : classDecl.defs) {
+            if (jcTree instanceof JCTree.JCClassDecl
+                    && ((JCTree.JCClassDecl) jcTree).name.contentEquals(className)) {
+                return true;
+            }
+        }
         return false;
     }
+
+    /**
+     * 在类的末尾插入成员类
+     *
+     * @param memberClassDecl 成员类声明
+     * @return 返回当前类
+     */
+    public LClass insertClass(final JCTree.JCClassDecl memberClassDecl) {
+        classDecl.defs = classDecl.defs.append(memberClassDecl);
+        return this;
+    }
 }
@@ -3,7 +3,6 @@ package org.tbfeng.apt.domian;
 import com.sun.tools.javac.api.JavacTrees;
 import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.tree.TreeMaker;
-import com.sun.tools.javac.util.ListBuffer;
 import com.sun.tools.javac.util.Names;
 
 import javax.annotation.processing.Messager;
@@ -33,7 +32,13 @@ public class LCommon {
      */
     protected Names names;
 
+    /**
+     * 执行上下文
+     */
+    protected ProcessContext processContext;
+
     public LCommon(ProcessContext processContext) {
+        this.processContext = processContext;
         this.treeMaker = processContext.treeMaker();
         this.trees = processContext.trees();
         this.names = processContext.names();
@@ -42,25 +47,15 @@ public class LCommon {
 
     /**
      * 导入一个包
+     * <p>
+     * 已经存在的 import 会被忽略，新增的 import 在本轮结束时统一写回编译单元。
      *
      * @param lClass      所在的类
      * @param importClass 要导入的包
      */
     public void importPackage(LClass lClass, Class<?> importClass) {
-        JCTree.JCCompilationUnit compilationUnit = (JCTree.JCCompilationUnit) trees.getPath(lClass.classSymbol()).getCompilationUnit();
-        ListBuffer<JCTree> imports = new ListBuffer<JCTree>();
-
-        JCTree.JCIdent packageIdent = treeMaker.Ident(names.fromString(importClass.getPackage().getName()));
-        JCTree.JCFieldAccess fieldAccess = treeMaker.Select(packageIdent,
-                names.fromString(importClass.getSimpleName()));
-        JCTree.JCImport jcImport = treeMaker.Import(fieldAccess, false);
-        imports.append(jcImport);
-
-        for (int i = 0; i < compilationUnit.defs.size(); i++) {
-            imports.append(compilationUnit.defs.get(i));
-        }
-
-        compilationUnit.defs = imports.toList();
+        // 去重后暂存，每一轮结束时统一写回
+        processContext.importCollector().add(lClass.compilationUnit(), importClass);
     }
 
 
@@ -0,0 +1,378 @@
+package org.tbfeng.apt.domian;
+
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeCopier;
+import com.sun.tools.javac.tree.TreeMaker;
+import com.sun.tools.javac.tree.TreeScanner;
+import com.sun.tools.javac.util.List;
+import com.sun.tools.javac.util.ListBuffer;
+import com.sun.tools.javac.util.Names;
+import org.tbfeng.apt.compat.JavacCompat;
+
+import java.util.Collections;
+
+/**
+ * 方法拆分
+ * <p>
+ * 按语句估算生成方法的字节码大小，超过 {@link #maxMethodSize()} 时把语句拆分到多个 private 方法中，
+ * 使每个方法都不超过 HotSpot 的 FreqInlineSize（默认 325 字节），更不会超过 HugeMethodLimit（8000 字节），
+ * 保证可以被 JIT 编译和内联。
+ * <p>
+ * 估算按语法树节点累加，不需要先编译，只用于决定是否拆分。
+ * <p>
+ * 只能在应用阶段（单线程）使用。
+ */
+public class MethodSplitter {
+
+    /**
+     * 默认的方法大小上限，与 HotSpot 的 FreqInlineSize 一致
+     */
+    public static final int DEFAULT_MAX_METHOD_SIZE = 325;
+
+    /**
+     * TreeMaker封装了创建AST节点的一些方法
+     */
+    private final TreeMaker treeMaker;
+
+    /**
+     * Names提供了创建标识符的方法
+     */
+    private final Names names;
+
+    /**
+     * javac 版本兼容层
+     */
+    private final JavacCompat javacCompat;
+
+    /**
+     * 方法大小上限，小于等于 0 时不拆分
+     */
+    private final int maxMethodSize;
+
+    public MethodSplitter(TreeMaker treeMaker, Names names, JavacCompat javacCompat, int maxMethodSize) {
+        this.treeMaker = treeMaker;
+        this.names = names;
+        this.javacCompat = javacCompat;
+        this.maxMethodSize = maxMethodSize;
+    }
+
+    public int maxMethodSize() {
+        return maxMethodSize;
+    }
+
+    /**
+     * 语句是否超过方法大小上限
+     *
+     * @param statements 语句
+     * @return 是否
+     */
+    public boolean exceeds(final java.util.List<? extends JCTree> statements) {
+        return maxMethodSize > 0 && estimate(statements) > maxMethodSize;
+    }
+
+    /**
+     * 拆分方法
+     * <p>
+     * 除最后的 return 外，顶层语句按顺序分组，每组生成一个 private void name$N(参数) 方法，原方法依次调用；
+     * 调用语句仍然超过上限时再分组，见 {@link #splitStatements(List, int, HelperFactory)}。
+     * 顶层存在局部变量声明时无法拆分，原样返回。
+     * 原方法上的 @SuppressWarnings 复制到拆分出的方法上，语句移动后警告仍然被抑制。
+     *
+     * <pre>
+     * public StringBuilder appendTo(StringBuilder sb) {
+     *     appendTo$0(sb);
+     *     appendTo$1(sb);
+     *     return sb.append("}");
+     * }
+     * </pre>
+     *
+     * @param methodDecl 方法
+     * @return 原方法在前，拆分出的方法在后
+     */
+    public java.util.List<JCTree.JCMethodDecl> split(final JCTree.JCMethodDecl methodDecl) {
+        List<JCTree.JCStatement> statements = methodDecl.body.stats;
+        if (!exceeds(statements)) {
+            return Collections.singletonList(methodDecl);
+        }
+
+        JCTree.JCStatement returnStatement = null;
+        ListBuffer<JCTree.JCStatement> bodyStatements = new ListBuffer<JCTree.JCStatement>();
+        for (JCTree.JCStatement statement : statements) {
+            if (statement instanceof JCTree.JCVariableDecl) {
+                return Collections.singletonList(methodDecl);
+            }
+            if (statement instanceof JCTree.JCReturn) {
+                returnStatement = statement;
+            } else {
+                bodyStatements.append(statement);
+            }
+        }
+
+        TreeCopier<Void> treeCopier = new TreeCopier<Void>(treeMaker);
+        List<JCTree.JCAnnotation> suppressWarnings = suppressWarnings(methodDecl);
+        java.util.List<JCTree.JCMethodDecl> methodList = new java.util.ArrayList<JCTree.JCMethodDecl>();
+        methodList.add(methodDecl);
+        List<JCTree.JCStatement> mainStatements = splitStatements(bodyStatements.toList(),
+                returnStatement == null ? 0 : estimate(returnStatement), (index, group) -> {
+                    String helperName = methodDecl.name + "$" + index;
+                    ListBuffer<JCTree.JCVariableDecl> params = new ListBuffer<JCTree.JCVariableDecl>();
+                    ListBuffer<JCTree.JCExpression> args = new ListBuffer<JCTree.JCExpression>();
+                    for (JCTree.JCVariableDecl param : methodDecl.params) {
+                        params.append(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), param.name,
+                                treeCopier.copy(param.vartype), null));
+                        args.append(treeMaker.Ident(param.name));
+                    }
+                    methodList.add(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PRIVATE | (methodDecl.mods.flags & Flags.STATIC),
+                                    treeCopier.copy(suppressWarnings)),
+                            names.fromString(helperName),
+                            javacCompat.primitiveType("VOID"),
+                            List.<JCTree.JCTypeParameter>nil(),
+                            params.toList(),
+                            List.<JCTree.JCExpression>nil(),
+                            treeMaker.Block(0, group),
+                            null));
+                    return treeMaker.Exec(treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                            treeMaker.Ident(names.fromString(helperName)), args.toList()));
+                });
+        if (methodList.size() == 1) {
+            return methodList;
+        }
+
+        methodDecl.body.stats = returnStatement == null ? mainStatements : mainStatements.append(returnStatement);
+        return methodList;
+    }
+
+    /**
+     * 按大小拆分语句，返回调用方保留的语句
+     * <p>
+     * 语句超过上限时按大小分组，每组由 factory 生成一个方法，调用方只保留调用这些方法的语句；
+     * 方法很多时调用语句本身也会超过上限，此时再把调用语句分组，形成多层调用，直到调用方不超过上限。
+     * 拆分出的方法按生成的顺序从 0 开始编号，同一次拆分中的编号不重复。
+     *
+     * @param statements   语句
+     * @param reservedSize 调用方中其他语句的估算大小，例如 return
+     * @param factory      生成方法
+     * @return 调用方的语句，不需要拆分时原样返回
+     */
+    public List<JCTree.JCStatement> splitStatements(final List<JCTree.JCStatement> statements, final int reservedSize,
+                                                    final HelperFactory factory) {
+        List<JCTree.JCStatement> current = statements;
+        int index = 0;
+        while (maxMethodSize > 0 && estimate(current) + reservedSize > maxMethodSize) {
+            java.util.List<List<JCTree.JCStatement>> groupList = group(current);
+            // 只有一组，或者调用语句已经无法再合并
+            if (groupList.size() <= 1 || (index > 0 && groupList.size() >= current.size())) {
+                break;
+            }
+            ListBuffer<JCTree.JCStatement> calls = new ListBuffer<JCTree.JCStatement>();
+            for (List<JCTree.JCStatement> group : groupList) {
+                calls.append(factory.create(index++, group));
+            }
+            current = calls.toList();
+        }
+        return current;
+    }
+
+    /**
+     * 方法上的 @SuppressWarnings，不复制 @Override 等其他注解
+     *
+     * @param methodDecl 方法
+     * @return 注解
+     */
+    private static List<JCTree.JCAnnotation> suppressWarnings(final JCTree.JCMethodDecl methodDecl) {
+        ListBuffer<JCTree.JCAnnotation> annotations = new ListBuffer<JCTree.JCAnnotation>();
+        for (JCTree.JCAnnotation annotation : methodDecl.mods.annotations) {
+            JCTree type = annotation.annotationType;
+            String name = type instanceof JCTree.JCFieldAccess ? ((JCTree.JCFieldAccess) type).name.toString() : type.toString();
+            if (SuppressWarnings.class.getSimpleName().equals(name)) {
+                annotations.append(annotation);
+            }
+        }
+        return annotations.toList();
+    }
+
+    /**
+     * 按大小把语句顺序分组，每组不超过方法大小上限（单条语句超过时独占一组）
+     * <p>
+     * 用于需要自定义拆分方式的方法，例如带返回值的 equals、hashCode。
+     *
+     * @param statements 语句
+     * @return 分组
+     */
+    public java.util.List<List<JCTree.JCStatement>> group(final List<JCTree.JCStatement> statements) {
+        java.util.List<List<JCTree.JCStatement>> groupList = new java.util.ArrayList<List<JCTree.JCStatement>>();
+        ListBuffer<JCTree.JCStatement> group = new ListBuffer<JCTree.JCStatement>();
+        int groupSize = 0;
+        for (JCTree.JCStatement statement : statements) {
+            int size = estimate(statement);
+            if (!group.isEmpty() && maxMethodSize > 0 && groupSize + size > maxMethodSize) {
+                groupList.add(group.toList());
+                group = new ListBuffer<JCTree.JCStatement>();
+                groupSize = 0;
+            }
+            group.append(statement);
+            groupSize += size;
+        }
+        if (!group.isEmpty()) {
+            groupList.add(group.toList());
+        }
+        return groupList;
+    }
+
+    /**
+     * 估算语法树的字节码大小
+     *
+     * @param tree 语法树
+     * @return 字节数
+     */
+    public static int estimate(final JCTree tree) {
+        SizeScanner scanner = new SizeScanner();
+        scanner.scan(tree);
+        return scanner.size;
+    }
+
+    /**
+     * 估算多条语句的字节码大小
+     *
+     * @param trees 语法树
+     * @return 字节数
+     */
+    public static int estimate(final java.util.List<? extends JCTree> trees) {
+        int size = 0;
+        for (JCTree tree : trees) {
+            size += estimate(tree);
+        }
+        return size;
+    }
+
+    /**
+     * 生成拆分出的方法
+     */
+    public interface HelperFactory {
+
+        /**
+         * 用一组语句生成方法，并返回调用方调用该方法的语句
+         *
+         * @param index      方法的编号
+         * @param statements 方法中的语句
+         * @return 调用语句
+         */
+        JCTree.JCStatement create(int index, List<JCTree.JCStatement> statements);
+    }
+
+    /**
+     * 按节点类型累加字节码大小
+     * <p>
+     * 取常见指令的长度：局部变量 1~2，字段 3，方法调用 3，常量 2，分支 3。
+     */
+    private static class SizeScanner extends TreeScanner {
+
+        private int size;
+
+        @Override
+        public void visitIdent(JCTree.JCIdent tree) {
+            // 局部变量 aload_n，隐式 this 的字段 aload_0 + getfield
+            size += 2;
+        }
+
+        @Override
+        public void visitSelect(JCTree.JCFieldAccess tree) {
+            super.visitSelect(tree);
+            size += 3;
+        }
+
+        @Override
+        public void visitApply(JCTree.JCMethodInvocation tree) {
+            scan(tree.args);
+            // 方法名本身不产生指令，只计算调用者
+            if (tree.meth instanceof JCTree.JCFieldAccess) {
+                scan(((JCTree.JCFieldAccess) tree.meth).selected);
+            } else {
+                size += 1;
+            }
+            size += 3;
+        }
+
+        @Override
+        public void visitNewClass(JCTree.JCNewClass tree) {
+            scan(tree.args);
+            // new + dup + invokespecial
+            size += 7;
+        }
+
+        @Override
+        public void visitLiteral(JCTree.JCLiteral tree) {
+            size += 2;
+        }
+
+        @Override
+        public void visitBinary(JCTree.JCBinary tree) {
+            super.visitBinary(tree);
+            // 字符串拼接在 8 中是 StringBuilder.append，比较是分支
+            size += 4;
+        }
+
+        @Override
+        public void visitAssign(JCTree.JCAssign tree) {
+            super.visitAssign(tree);
+            size += 3;
+        }
+
+        @Override
+        public void visitIf(JCTree.JCIf tree) {
+            super.visitIf(tree);
+            size += tree.elsepart == null ? 3 : 6;
+        }
+
+        @Override
+        public void visitConditional(JCTree.JCConditional tree) {
+            super.visitConditional(tree);
+            size += 6;
+        }
+
+        @Override
+        public void visitForLoop(JCTree.JCForLoop tree) {
+            super.visitForLoop(tree);
+            size += 6;
+        }
+
+        @Override
+        public void visitForeachLoop(JCTree.JCEnhancedForLoop tree) {
+            super.visitForeachLoop(tree);
+            // iterator()、hasNext()、next()、checkcast
+            size += 16;
+        }
+
+        @Override
+        public void visitVarDef(JCTree.JCVariableDecl tree) {
+            scan(tree.init);
+            size += 2;
+        }
+
+        @Override
+        public void visitIndexed(JCTree.JCArrayAccess tree) {
+            super.visitIndexed(tree);
+            size += 1;
+        }
+
+        @Override
+        public void visitExec(JCTree.JCExpressionStatement tree) {
+            super.visitExec(tree);
+            // 丢弃返回值
+            size += 1;
+        }
+
+        @Override
+        public void visitReturn(JCTree.JCReturn tree) {
+            super.visitReturn(tree);
+            size += 1;
+        }
+
+        @Override
+        public void visitBreak(JCTree.JCBreak tree) {
+            size += 3;
+        }
+    }
+
+}
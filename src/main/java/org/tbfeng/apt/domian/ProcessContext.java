@@ -3,8 +3,15 @@ package org.tbfeng.apt.domian;
 import com.sun.tools.javac.api.JavacTrees;
 import com.sun.tools.javac.tree.TreeMaker;
 import com.sun.tools.javac.util.Names;
+import org.tbfeng.apt.compat.JavacCompat;
+import org.tbfeng.apt.profile.ProcessProfiler;
 
+import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * 执行上下文
@@ -31,6 +38,46 @@ public class ProcessContext {
      */
     private Names names;
 
+    /**
+     * javac 版本兼容层
+     */
+    private JavacCompat javacCompat;
+
+    /**
+     * Filer用来生成新的源文件
+     */
+    private Filer filer;
+
+    /**
+     * 类型工具，判断类型之间的关系
+     */
+    private Types types;
+
+    /**
+     * 元素工具，按名称查找类型
+     */
+    private Elements elements;
+
+    /**
+     * 导入收集器
+     */
+    private ImportCollector importCollector;
+
+    /**
+     * 方法拆分
+     */
+    private MethodSplitter methodSplitter;
+
+    /**
+     * 处理器参数
+     */
+    private Map<String, String> options = Collections.emptyMap();
+
+    /**
+     * 性能统计，未开启时为 null
+     */
+    private ProcessProfiler profiler;
+
     public static ProcessContext newInstance() {
         return new ProcessContext();
     }
@@ -70,4 +117,76 @@ public class ProcessContext {
         this.names = names;
         return this;
     }
+
+    public JavacCompat javacCompat() {
+        return javacCompat;
+    }
+
+    public ProcessContext javacCompat(JavacCompat javacCompat) {
+        this.javacCompat = javacCompat;
+        return this;
+    }
+
+    public Filer filer() {
+        return filer;
+    }
+
+    public ProcessContext filer(Filer filer) {
+        this.filer = filer;
+        return this;
+    }
+
+    public Types types() {
+        return types;
+    }
+
+    public ProcessContext types(Types types) {
+        this.types = types;
+        return this;
+    }
+
+    public Elements elements() {
+        return elements;
+    }
+
+    public ProcessContext elements(Elements elements) {
+        this.elements = elements;
+        return this;
+    }
+
+    public ImportCollector importCollector() {
+        return importCollector;
+    }
+
+    public ProcessContext importCollector(ImportCollector importCollector) {
+        this.importCollector = importCollector;
+        return this;
+    }
+
+    public MethodSplitter methodSplitter() {
+        return methodSplitter;
+    }
+
+    public ProcessContext methodSplitter(MethodSplitter methodSplitter) {
+        this.methodSplitter = methodSplitter;
+        return this;
+    }
+
+    public Map<String, String> options() {
+        return options;
+    }
+
+    public ProcessContext options(Map<String, String> options) {
+        this.options = options;
+        return this;
+    }
+
+    public ProcessProfiler profiler() {
+        return profiler;
+    }
+
+    public ProcessContext profiler(ProcessProfiler profiler) {
+        this.profiler = profiler;
+        return this;
+    }
 }
@@ -0,0 +1,45 @@
+package org.tbfeng.apt.domian;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 行映射器的分析结果
+ * <p>
+ * 在分析阶段生成，只包含纯数据，不持有任何 TreeMaker 创建的节点。
+ */
+public class RowMappingPlan {
+
+    /**
+     * 错误信息，不为空时不生成
+     */
+    private String error;
+
+    /**
+     * 映射的字段名称，按声明顺序，下标即列下标数组的下标
+     */
+    private final List<String> fieldNameList = new ArrayList<String>();
+
+    public static RowMappingPlan newInstance() {
+        return new RowMappingPlan();
+    }
+
+    public String error() {
+        return error;
+    }
+
+    public RowMappingPlan error(String error) {
+        this.error = error;
+        return this;
+    }
+
+    public List<String> fieldNameList() {
+        return fieldNameList;
+    }
+
+    public RowMappingPlan addFieldName(String fieldName) {
+        this.fieldNameList.add(fieldName);
+        return this;
+    }
+
+}
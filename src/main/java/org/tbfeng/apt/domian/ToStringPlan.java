@@ -0,0 +1,306 @@
+package org.tbfeng.apt.domian;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * toString() 的分析结果
+ * <p>
+ * 在分析阶段生成，只包含纯数据，不持有任何 TreeMaker 创建的节点，
+ * 因此可以在多个线程中并行构建。
+ */
+public class ToStringPlan {
+
+    /**
+     * 类的简单名称
+     */
+    private String className;
+
+    /**
+     * 类上是否标记了注解，只有字段上标记时不生成
+     */
+    private boolean classAnnotated;
+
+    /**
+     * 是否已经存在 toString() 方法
+     */
+    private boolean existsToString;
+
+    /**
+     * 是否已经存在 appendTo(StringBuilder) 方法
+     */
+    private boolean existsAppendTo;
+
+    /**
+     * 实现方式
+     *
+     * @see org.tbfeng.apt.constant.ToStringConst
+     */
+    private String strategy;
+
+    /**
+     * 预估的结果长度，用于 StringBuilder 的初始容量
+     */
+    private int capacity;
+
+    /**
+     * 是否缓存结果
+     */
+    private boolean cache;
+
+    /**
+     * 是否生成快照
+     */
+    private boolean snapshot;
+
+    /**
+     * 非 final 的字段名称，缓存时需要为空
+     */
+    private final List<String> nonFinalFieldList = new ArrayList<String>();
+
+    /**
+     * 需要输出的字段
+     */
+    private final List<FieldEntry> fieldList = new ArrayList<FieldEntry>();
+
+    public static ToStringPlan newInstance() {
+        return new ToStringPlan();
+    }
+
+    public String className() {
+        return className;
+    }
+
+    public ToStringPlan className(String className) {
+        this.className = className;
+        return this;
+    }
+
+    public boolean classAnnotated() {
+        return classAnnotated;
+    }
+
+    public ToStringPlan classAnnotated(boolean classAnnotated) {
+        this.classAnnotated = classAnnotated;
+        return this;
+    }
+
+    public boolean existsToString() {
+        return existsToString;
+    }
+
+    public ToStringPlan existsToString(boolean existsToString) {
+        this.existsToString = existsToString;
+        return this;
+    }
+
+    public boolean existsAppendTo() {
+        return existsAppendTo;
+    }
+
+    public ToStringPlan existsAppendTo(boolean existsAppendTo) {
+        this.existsAppendTo = existsAppendTo;
+        return this;
+    }
+
+    public String strategy() {
+        return strategy;
+    }
+
+    public ToStringPlan strategy(String strategy) {
+        this.strategy = strategy;
+        return this;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public ToStringPlan capacity(int capacity) {
+        this.capacity = capacity;
+        return this;
+    }
+
+    public boolean cache() {
+        return cache;
+    }
+
+    public ToStringPlan cache(boolean cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    public boolean snapshot() {
+        return snapshot;
+    }
+
+    public ToStringPlan snapshot(boolean snapshot) {
+        this.snapshot = snapshot;
+        return this;
+    }
+
+    public List<String> nonFinalFieldList() {
+        return nonFinalFieldList;
+    }
+
+    public ToStringPlan addNonFinalField(String fieldName) {
+        this.nonFinalFieldList.add(fieldName);
+        return this;
+    }
+
+    public List<FieldEntry> fieldList() {
+        return fieldList;
+    }
+
+    public ToStringPlan addField(FieldEntry fieldEntry) {
+        this.fieldList.add(fieldEntry);
+        return this;
+    }
+
+    /**
+     * 字段信息
+     */
+    public static class FieldEntry {
+
+        /**
+         * 字段名称
+         */
+        private String name;
+
+        /**
+         * 字段类型，与源码中的写法一致
+         */
+        private String typeName;
+
+        /**
+         * 是否为数组
+         */
+        private boolean array;
+
+        /**
+         * 字段类型是否提供 appendTo(StringBuilder)，在应用阶段解析
+         */
+        private boolean nested;
+
+        /**
+         * 是否为 Collection，在应用阶段解析
+         */
+        private boolean collection;
+
+        /**
+         * 是否为 Map，在应用阶段解析
+         */
+        private boolean map;
+
+        /**
+         * 是否为 CharSequence，在应用阶段解析
+         */
+        private boolean charSequence;
+
+        /**
+         * 最多输出的元素个数，小于 0 时不限制
+         */
+        private int maxElements = -1;
+
+        /**
+         * 最多输出的字符数，小于 0 时不限制
+         */
+        private int maxLength = -1;
+
+        public static FieldEntry newInstance() {
+            return new FieldEntry();
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public FieldEntry name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public String typeName() {
+            return typeName;
+        }
+
+        public FieldEntry typeName(String typeName) {
+            this.typeName = typeName;
+            return this;
+        }
+
+        public boolean array() {
+            return array;
+        }
+
+        public FieldEntry array(boolean array) {
+            this.array = array;
+            return this;
+        }
+
+        public boolean nested() {
+            return nested;
+        }
+
+        public FieldEntry nested(boolean nested) {
+            this.nested = nested;
+            return this;
+        }
+
+        public boolean collection() {
+            return collection;
+        }
+
+        public FieldEntry collection(boolean collection) {
+            this.collection = collection;
+            return this;
+        }
+
+        public boolean map() {
+            return map;
+        }
+
+        public FieldEntry map(boolean map) {
+            this.map = map;
+            return this;
+        }
+
+        public boolean charSequence() {
+            return charSequence;
+        }
+
+        public FieldEntry charSequence(boolean charSequence) {
+            this.charSequence = charSequence;
+            return this;
+        }
+
+        public int maxElements() {
+            return maxElements;
+        }
+
+        public FieldEntry maxElements(int maxElements) {
+            this.maxElements = maxElements;
+            return this;
+        }
+
+        public int maxLength() {
+            return maxLength;
+        }
+
+        public FieldEntry maxLength(int maxLength) {
+            this.maxLength = maxLength;
+            return this;
+        }
+
+        /**
+         * 是否需要限制输出
+         *
+         * @return 是否
+         */
+        public boolean limited() {
+            return ((array || collection || map) && maxElements >= 0)
+                    || (charSequence && maxLength >= 0);
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+package org.tbfeng.apt.domian;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 校验的分析结果
+ * <p>
+ * 在分析阶段生成，只包含纯数据，不持有任何 TreeMaker 创建的节点。
+ */
+public class ValidatePlan {
+
+    /**
+     * 错误信息，不为空时不生成
+     */
+    private String error;
+
+    /**
+     * 是否已经存在 validate 方法
+     */
+    private boolean existsValidate;
+
+    /**
+     * 约束，按字段的声明顺序，同一个字段按 {@link Kind} 的顺序
+     */
+    private final List<ConstraintEntry> constraintList = new ArrayList<ConstraintEntry>();
+
+    public static ValidatePlan newInstance() {
+        return new ValidatePlan();
+    }
+
+    public String error() {
+        return error;
+    }
+
+    public ValidatePlan error(String error) {
+        this.error = error;
+        return this;
+    }
+
+    public boolean existsValidate() {
+        return existsValidate;
+    }
+
+    public ValidatePlan existsValidate(boolean existsValidate) {
+        this.existsValidate = existsValidate;
+        return this;
+    }
+
+    public List<ConstraintEntry> constraintList() {
+        return constraintList;
+    }
+
+    public ValidatePlan addConstraint(ConstraintEntry constraintEntry) {
+        this.constraintList.add(constraintEntry);
+        return this;
+    }
+
+    /**
+     * 约束类型，按检查的开销从小到大排列
+     */
+    public enum Kind {
+        NOT_NULL, MIN_LEN, MAX_LEN, NUMERIC, REGEX
+    }
+
+    /**
+     * 约束信息
+     */
+    public static class ConstraintEntry {
+
+        /**
+         * 字段名称
+         */
+        private String fieldName;
+
+        /**
+         * 约束类型
+         */
+        private Kind kind;
+
+        /**
+         * MIN_LEN、MAX_LEN 的长度
+         */
+        private int length;
+
+        /**
+         * REGEX 的正则表达式
+         */
+        private String regex;
+
+        /**
+         * 错误信息
+         */
+        private String message;
+
+        public static ConstraintEntry newInstance() {
+            return new ConstraintEntry();
+        }
+
+        public String fieldName() {
+            return fieldName;
+        }
+
+        public ConstraintEntry fieldName(String fieldName) {
+            this.fieldName = fieldName;
+            return this;
+        }
+
+        public Kind kind() {
+            return kind;
+        }
+
+        public ConstraintEntry kind(Kind kind) {
+            this.kind = kind;
+            return this;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public ConstraintEntry length(int length) {
+            this.length = length;
+            return this;
+        }
+
+        public String regex() {
+            return regex;
+        }
+
+        public ConstraintEntry regex(String regex) {
+            this.regex = regex;
+            return this;
+        }
+
+        public String message() {
+            return message;
+        }
+
+        public ConstraintEntry message(String message) {
+            this.message = message;
+            return this;
+        }
+    }
+
+}
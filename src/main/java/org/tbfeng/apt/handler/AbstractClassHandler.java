@@ -0,0 +1,79 @@
+package org.tbfeng.apt.handler;
+
+import com.sun.tools.javac.api.JavacTrees;
+import com.sun.tools.javac.tree.TreeMaker;
+import com.sun.tools.javac.util.Names;
+import org.tbfeng.apt.compat.JavacCompat;
+import org.tbfeng.apt.domian.ProcessContext;
+
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * 抽象类处理器
+ *
+ * @param <P> 分析结果类型
+ */
+public abstract class AbstractClassHandler<P> implements ClassHandler<P> {
+
+    /**
+     * Messager主要是用来在编译期打log用的
+     */
+    protected Messager messager;
+
+    /**
+     * JavacTrees提供了待处理的抽象语法树
+     */
+    protected JavacTrees trees;
+
+    /**
+     * TreeMaker封装了创建AST节点的一些方法
+     */
+    protected TreeMaker treeMaker;
+
+    /**
+     * Names提供了创建标识符的方法
+     */
+    protected Names names;
+
+    /**
+     * javac 版本兼容层
+     */
+    protected JavacCompat javacCompat;
+
+    /**
+     * Filer用来生成新的源文件
+     */
+    protected Filer filer;
+
+    /**
+     * 类型工具
+     */
+    protected Types types;
+
+    /**
+     * 元素工具
+     */
+    protected Elements elements;
+
+    /**
+     * 执行上下文
+     */
+    protected ProcessContext processContext;
+
+    @Override
+    public void init(ProcessContext processContext) {
+        this.processContext = processContext;
+        this.messager = processContext.messager();
+        this.trees = processContext.trees();
+        this.treeMaker = processContext.treeMaker();
+        this.names = processContext.names();
+        this.javacCompat = processContext.javacCompat();
+        this.filer = processContext.filer();
+        this.types = processContext.types();
+        this.elements = processContext.elements();
+    }
+
+}
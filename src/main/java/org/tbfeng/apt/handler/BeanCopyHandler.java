@@ -0,0 +1,359 @@
+package org.tbfeng.apt.handler;
+
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.util.List;
+import com.sun.tools.javac.util.ListBuffer;
+import com.sun.tools.javac.util.Name;
+import org.tbfeng.apt.annotation.BeanCopy;
+import org.tbfeng.apt.constant.BeanCopyConst;
+import org.tbfeng.apt.domian.BeanCopyPlan;
+import org.tbfeng.apt.domian.LClass;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.beans.Introspector;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 根据 @BeanCopy 在类中生成属性复制方法
+ *
+ * <pre>
+ * &#64;BeanCopy(source = UserEntity.class, target = UserDto.class)
+ * public class UserCopier {
+ *     public static void copy(UserEntity source, UserDto target) {
+ *         target.setId(source.getId());
+ *         target.setName(source.getName());
+ *     }
+ * }
+ * </pre>
+ * 是否可以复制与 {@link org.tbfeng.apt.utils.ClassUtil#isAssignable(Class, Class)} 的规则一致，在编译期判断：
+ * 基本类型只能复制到相同的基本类型或者对应的包装类型；引用类型按擦除后的类型判断，来源类型是目标类型的父类时需要强制转换。
+ * 语句太多时由 {@link org.tbfeng.apt.domian.MethodSplitter} 拆分。
+ */
+public class BeanCopyHandler extends AbstractClassHandler<BeanCopyPlan> {
+
+    @Override
+    public Class<? extends Annotation> annotationClass() {
+        return BeanCopy.class;
+    }
+
+    @Override
+    public BeanCopyPlan plan(LClass lClass) {
+        BeanCopyPlan plan = BeanCopyPlan.newInstance();
+        if (lClass.classSymbol().getKind() != ElementKind.CLASS) {
+            return plan.error("@BeanCopy 只能用于类");
+        }
+
+        for (AnnotationMirror annotationMirror : lClass.classSymbol().getAnnotationMirrors()) {
+            TypeElement annotationElement = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if (!annotationElement.getQualifiedName().contentEquals(BeanCopy.class.getName())) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : annotationMirror.getElementValues().entrySet()) {
+                String key = entry.getKey().getSimpleName().toString();
+                Object value = entry.getValue().getValue();
+                if ("source".equals(key) && value instanceof TypeMirror) {
+                    plan.sourceType((TypeMirror) value);
+                } else if ("target".equals(key) && value instanceof TypeMirror) {
+                    plan.targetType((TypeMirror) value);
+                } else if ("ignore".equals(key) && value instanceof java.util.List) {
+                    for (Object ignore : (java.util.List<?>) value) {
+                        plan.addIgnore(String.valueOf(((AnnotationValue) ignore).getValue()));
+                    }
+                }
+            }
+        }
+        if (plan.sourceType() == null || plan.sourceType().getKind() != TypeKind.DECLARED
+                || plan.targetType() == null || plan.targetType().getKind() != TypeKind.DECLARED) {
+            return plan.error("@BeanCopy 的 source、target 需要是类或者接口");
+        }
+        return plan;
+    }
+
+    @Override
+    public void apply(LClass lClass, BeanCopyPlan plan) {
+        if (plan.error() != null) {
+            messager.printMessage(Diagnostic.Kind.ERROR, plan.error(), lClass.classSymbol());
+            return;
+        }
+
+        DeclaredType sourceType = (DeclaredType) plan.sourceType();
+        DeclaredType targetType = (DeclaredType) plan.targetType();
+        Map<String, Property> readerMap = collectProperties(lClass, sourceType, true);
+        Map<String, Property> writerMap = collectProperties(lClass, targetType, false);
+        String sourceName = sourceType.asElement().getSimpleName().toString();
+        String targetName = targetType.asElement().getSimpleName().toString();
+
+        Name sourceParam = names.fromString(BeanCopyConst.SOURCE_PARAM);
+        Name targetParam = names.fromString(BeanCopyConst.TARGET_PARAM);
+        boolean unchecked = false;
+        ListBuffer<JCTree.JCStatement> statements = new ListBuffer<JCTree.JCStatement>();
+        for (Property writer : writerMap.values()) {
+            if (plan.ignoreSet().contains(writer.name)) {
+                continue;
+            }
+            Property reader = readerMap.get(writer.name);
+            if (reader == null) {
+                messager.printMessage(Diagnostic.Kind.WARNING, "@BeanCopy 目标属性 " + targetName + "." + writer.name
+                        + " 在 " + sourceName + " 中没有可读取的同名属性", lClass.classSymbol());
+                continue;
+            }
+            if (!isAssignable(reader.type, writer.type)) {
+                messager.printMessage(Diagnostic.Kind.WARNING, "@BeanCopy 目标属性 " + targetName + "." + writer.name
+                        + " 的类型 " + writer.type + " 不能由 " + sourceName + "." + reader.name
+                        + " 的类型 " + reader.type + " 复制", lClass.classSymbol());
+                continue;
+            }
+
+            // source.getA() 或者 source.a
+            JCTree.JCExpression value = treeMaker.Select(treeMaker.Ident(sourceParam), names.fromString(reader.memberName));
+            if (reader.method) {
+                value = treeMaker.Apply(List.<JCTree.JCExpression>nil(), value, List.<JCTree.JCExpression>nil());
+            }
+            // 来源类型是目标类型的父类，或者泛型参数不同时，转换为擦除后的目标类型
+            if (!types.isAssignable(reader.type, writer.type)) {
+                value = treeMaker.TypeCast(treeMaker.Type((Type) types.erasure(writer.type)), value);
+                unchecked = true;
+            }
+            // target.setA(value) 或者 target.a = value
+            JCTree.JCExpression member = treeMaker.Select(treeMaker.Ident(targetParam), names.fromString(writer.memberName));
+            statements.append(treeMaker.Exec(writer.method
+                    ? treeMaker.Apply(List.<JCTree.JCExpression>nil(), member, List.of(value))
+                    : treeMaker.Assign(member, value)));
+        }
+
+        // public static void copy(S source, T target)
+        List<JCTree.JCAnnotation> annotations = List.nil();
+        if (unchecked) {
+            annotations = List.of(treeMaker.Annotation(treeMaker.Ident(names.fromString("SuppressWarnings")),
+                    List.<JCTree.JCExpression>of(treeMaker.Literal("unchecked"))));
+        }
+        JCTree.JCMethodDecl copyMethod = treeMaker.MethodDef(
+                treeMaker.Modifiers(Flags.PUBLIC | Flags.STATIC, annotations),
+                names.fromString(BeanCopyConst.COPY_METHOD),
+                javacCompat.primitiveType("VOID"),
+                List.<JCTree.JCTypeParameter>nil(),
+                List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), sourceParam,
+                                treeMaker.Type((Type) types.erasure(sourceType)), null),
+                        treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), targetParam,
+                                treeMaker.Type((Type) types.erasure(targetType)), null)),
+                List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, statements.toList()),
+                null);
+        for (JCTree.JCMethodDecl methodDecl : processContext.methodSplitter().split(copyMethod)) {
+            lClass.insertMethod(methodDecl);
+        }
+    }
+
+    /**
+     * 与 ClassUtil.isAssignable 的规则一致
+     * <p>
+     * 基本类型只能复制到相同的基本类型或者对应的包装类型；包装类型不能复制到基本类型（避免 null 拆箱）；
+     * 引用类型需要目标类型（擦除后）是来源类型的子类型或者相同。
+     *
+     * @param sourceType 来源类型
+     * @param targetType 目标类型
+     * @return 是否可以复制
+     */
+    private boolean isAssignable(final TypeMirror sourceType, final TypeMirror targetType) {
+        if (sourceType.getKind() == TypeKind.ERROR || targetType.getKind() == TypeKind.ERROR) {
+            return false;
+        }
+        if (sourceType.getKind().isPrimitive()) {
+            if (targetType.getKind().isPrimitive()) {
+                return sourceType.getKind() == targetType.getKind();
+            }
+            return targetType.getKind() == TypeKind.DECLARED && unboxedKind(targetType) == sourceType.getKind();
+        }
+        if (targetType.getKind().isPrimitive()) {
+            return false;
+        }
+        return types.isSubtype(types.erasure(targetType), types.erasure(sourceType));
+    }
+
+    /**
+     * 包装类型对应的基本类型
+     *
+     * @param type 类型
+     * @return 基本类型，不是包装类型时返回 null
+     */
+    private TypeKind unboxedKind(final TypeMirror type) {
+        try {
+            return types.unboxedType(type).getKind();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 收集可以读取或者写入的属性，包括父类、接口（包括父接口）中的属性，按接口、父类在前、声明顺序排列
+     * <p>
+     * 同名时 getter、setter 优先于字段；字段需要在生成方法的类中可以访问。
+     * 同一个接口被多处实现或者继承时只收集一次。
+     *
+     * @param lClass   生成方法的类
+     * @param type     来源或者目标类型
+     * @param readable 是否收集可以读取的属性，否则收集可以写入的属性
+     * @return 属性名称 -> 属性
+     */
+    private Map<String, Property> collectProperties(final LClass lClass, final DeclaredType type, final boolean readable) {
+        java.util.List<TypeElement> hierarchy = new ArrayList<TypeElement>();
+        Set<TypeElement> interfaceSet = new LinkedHashSet<TypeElement>();
+        TypeElement typeElement = (TypeElement) type.asElement();
+        while (typeElement != null && !typeElement.getQualifiedName().contentEquals(Object.class.getName())) {
+            hierarchy.add(typeElement);
+            collectInterfaces(typeElement, interfaceSet);
+            TypeMirror superclass = typeElement.getSuperclass();
+            typeElement = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) types.asElement(superclass) : null;
+        }
+        hierarchy.addAll(interfaceSet);
+        Collections.reverse(hierarchy);
+
+        Map<String, Property> propertyMap = new LinkedHashMap<String, Property>();
+        for (TypeElement element : hierarchy) {
+            for (Element member : element.getEnclosedElements()) {
+                if (member.getModifiers().contains(Modifier.STATIC) || !isAccessible(lClass, member)) {
+                    continue;
+                }
+                Property property = readable ? asReader(type, member) : asWriter(type, member);
+                if (property == null) {
+                    continue;
+                }
+                Property exists = propertyMap.get(property.name);
+                if (exists == null || (property.method && !exists.method)) {
+                    propertyMap.put(property.name, property);
+                }
+            }
+        }
+        return propertyMap;
+    }
+
+    /**
+     * 递归收集实现、继承的接口，子接口在前，已经收集过的接口不再展开
+     */
+    private void collectInterfaces(final TypeElement typeElement, final Set<TypeElement> interfaceSet) {
+        for (TypeMirror interfaceType : typeElement.getInterfaces()) {
+            TypeElement interfaceElement = (TypeElement) types.asElement(interfaceType);
+            if (interfaceElement != null && interfaceSet.add(interfaceElement)) {
+                collectInterfaces(interfaceElement, interfaceSet);
+            }
+        }
+    }
+
+    /**
+     * 可以读取的属性：字段，或者 getXxx()、boolean isXxx()
+     */
+    private Property asReader(final DeclaredType type, final Element member) {
+        if (member.getKind() == ElementKind.FIELD) {
+            return new Property(member.getSimpleName().toString(), member.getSimpleName().toString(),
+                    types.asMemberOf(type, member), false);
+        }
+        if (member.getKind() != ElementKind.METHOD || !((ExecutableElement) member).getParameters().isEmpty()) {
+            return null;
+        }
+        TypeMirror returnType = ((ExecutableType) types.asMemberOf(type, member)).getReturnType();
+        String methodName = member.getSimpleName().toString();
+        String propertyName = null;
+        if (methodName.startsWith(BeanCopyConst.GET_PREFIX) && returnType.getKind() != TypeKind.VOID) {
+            propertyName = propertyName(methodName, BeanCopyConst.GET_PREFIX);
+        } else if (methodName.startsWith(BeanCopyConst.IS_PREFIX) && returnType.getKind() == TypeKind.BOOLEAN) {
+            propertyName = propertyName(methodName, BeanCopyConst.IS_PREFIX);
+        }
+        return propertyName == null ? null : new Property(propertyName, methodName, returnType, true);
+    }
+
+    /**
+     * 可以写入的属性：非 final 字段，或者 setXxx(value)
+     */
+    private Property asWriter(final DeclaredType type, final Element member) {
+        if (member.getKind() == ElementKind.FIELD) {
+            if (member.getModifiers().contains(Modifier.FINAL)) {
+                return null;
+            }
+            return new Property(member.getSimpleName().toString(), member.getSimpleName().toString(),
+                    types.asMemberOf(type, member), false);
+        }
+        if (member.getKind() != ElementKind.METHOD || ((ExecutableElement) member).getParameters().size() != 1) {
+            return null;
+        }
+        String methodName = member.getSimpleName().toString();
+        String propertyName = methodName.startsWith(BeanCopyConst.SET_PREFIX)
+                ? propertyName(methodName, BeanCopyConst.SET_PREFIX) : null;
+        return propertyName == null ? null : new Property(propertyName, methodName,
+                ((ExecutableType) types.asMemberOf(type, member)).getParameterTypes().get(0), true);
+    }
+
+    /**
+     * getName -> name，getURL -> URL；前缀后没有内容时返回 null
+     */
+    private static String propertyName(final String methodName, final String prefix) {
+        if (methodName.length() == prefix.length()) {
+            return null;
+        }
+        return Introspector.decapitalize(methodName.substring(prefix.length()));
+    }
+
+    /**
+     * 成员在生成方法的类中是否可以访问：public，或者同一个包中的非 private 成员
+     */
+    private boolean isAccessible(final LClass lClass, final Element member) {
+        if (member.getModifiers().contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        return !member.getModifiers().contains(Modifier.PRIVATE)
+                && elements.getPackageOf(member).equals(elements.getPackageOf(lClass.classSymbol()));
+    }
+
+    /**
+     * 属性
+     */
+    private static final class Property {
+
+        /**
+         * 属性名称
+         */
+        private final String name;
+
+        /**
+         * 字段名称或者 getter、setter 的名称
+         */
+        private final String memberName;
+
+        /**
+         * 读取时为字段、getter 的类型，写入时为字段、setter 参数的类型
+         */
+        private final TypeMirror type;
+
+        /**
+         * 是否为 getter、setter
+         */
+        private final boolean method;
+
+        private Property(String name, String memberName, TypeMirror type, boolean method) {
+            this.name = name;
+            this.memberName = memberName;
+            this.type = type;
+            this.method = method;
+        }
+    }
+
+}
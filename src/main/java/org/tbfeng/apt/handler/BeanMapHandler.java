@@ -0,0 +1,324 @@
+package org.tbfeng.apt.handler;
+
+import com.sun.tools.javac.code.BoundKind;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.util.List;
+import com.sun.tools.javac.util.ListBuffer;
+import com.sun.tools.javac.util.Name;
+import org.tbfeng.apt.annotation.BeanMap;
+import org.tbfeng.apt.annotation.FieldAccess;
+import org.tbfeng.apt.constant.BeanMapConst;
+import org.tbfeng.apt.constant.FieldAccessConst;
+import org.tbfeng.apt.constant.MethodConst;
+import org.tbfeng.apt.domian.BeanMapPlan;
+import org.tbfeng.apt.domian.FieldAccessPlan;
+import org.tbfeng.apt.domian.LClass;
+import org.tbfeng.apt.domian.MethodSplitter;
+import org.tbfeng.apt.domian.ProcessContext;
+import org.tbfeng.apt.utils.FieldAccessorMap;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.tools.Diagnostic;
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 根据 @BeanMap 生成 toMap()、fromMap(Map)、asMap()
+ *
+ * <pre>
+ * public Map&lt;String, Object&gt; toMap() {
+ *     Map&lt;String, Object&gt; map = new LinkedHashMap&lt;String, Object&gt;(3);
+ *     map.put("id", this.id);
+ *     map.put("name", this.name);
+ *     return map;
+ * }
+ *
+ * &#64;SuppressWarnings("unchecked")
+ * public X fromMap(Map&lt;String, ?&gt; map) {
+ *     if (map.containsKey("name")) this.name = (String) map.get("name");
+ *     return this;
+ * }
+ *
+ * public Map&lt;String, Object&gt; asMap() {
+ *     return new FieldAccessorMap&lt;X&gt;(this, Access.INSTANCE);
+ * }
+ * </pre>
+ * 访问器 Access 由 {@link FieldAccessHandler} 生成。
+ */
+public class BeanMapHandler extends AbstractClassHandler<BeanMapPlan> {
+
+    /**
+     * 生成 asMap() 使用的访问器
+     */
+    private final FieldAccessHandler fieldAccessHandler = new FieldAccessHandler();
+
+    @Override
+    public void init(ProcessContext processContext) {
+        super.init(processContext);
+        fieldAccessHandler.init(processContext);
+    }
+
+    @Override
+    public Class<? extends Annotation> annotationClass() {
+        return BeanMap.class;
+    }
+
+    @Override
+    public BeanMapPlan plan(LClass lClass) {
+        BeanMapPlan plan = BeanMapPlan.newInstance();
+        if (lClass.classSymbol().getKind() != ElementKind.CLASS) {
+            return plan.error("@BeanMap 只能用于类");
+        }
+        if (lClass.classSymbol().getNestingKind() != NestingKind.TOP_LEVEL
+                && !lClass.classSymbol().getModifiers().contains(Modifier.STATIC)) {
+            return plan.error("@BeanMap 只能用于顶层类或者静态嵌套类");
+        }
+
+        plan.existsToMap(lClass.containsMethod(MethodConst.TO_MAP))
+                .existsAsMap(lClass.containsMethod(MethodConst.AS_MAP))
+                .existsFromMap(containsFromMap(lClass))
+                .generateAccess(lClass.classSymbol().getAnnotation(FieldAccess.class) == null);
+        FieldAccessPlan fieldAccessPlan = fieldAccessHandler.plan(lClass);
+        if (plan.generateAccess() && !plan.existsAsMap() && fieldAccessPlan.error() != null) {
+            return plan.error("@BeanMap 的 asMap() 需要生成 " + FieldAccessConst.ACCESS_CLASS + " 类：" + fieldAccessPlan.error());
+        }
+        return plan.fieldAccessPlan(fieldAccessPlan);
+    }
+
+    @Override
+    public void apply(LClass lClass, BeanMapPlan plan) {
+        if (plan.error() != null) {
+            messager.printMessage(Diagnostic.Kind.ERROR, plan.error(), lClass.classSymbol());
+            return;
+        }
+
+        lClass.importPackage(Map.class);
+        if (!plan.existsToMap()) {
+            lClass.importPackage(LinkedHashMap.class);
+            for (JCTree.JCMethodDecl methodDecl : createToMapMethods(plan)) {
+                lClass.insertMethod(methodDecl);
+            }
+        }
+        if (!plan.existsFromMap()) {
+            for (JCTree.JCMethodDecl methodDecl : processContext.methodSplitter().split(createFromMapMethod(lClass, plan))) {
+                lClass.insertMethod(methodDecl);
+            }
+        }
+        if (!plan.existsAsMap()) {
+            if (plan.generateAccess()) {
+                fieldAccessHandler.apply(lClass, plan.fieldAccessPlan());
+            }
+            lClass.importPackage(FieldAccessorMap.class);
+            lClass.insertMethod(createAsMapMethod(lClass));
+        }
+    }
+
+    /**
+     * 是否已经存在只有一个参数的 fromMap 方法，参数类型的写法可能不同，只比较名称
+     */
+    private boolean containsFromMap(final LClass lClass) {
+        for (JCTree jcTree : lClass.classDecl().defs) {
+            if (jcTree instanceof JCTree.JCMethodDecl
+                    && ((JCTree.JCMethodDecl) jcTree).name.contentEquals(MethodConst.FROM_MAP)
+                    && ((JCTree.JCMethodDecl) jcTree).params.size() == 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * toMap()，字段很多时 put 拆分到 toMap$N(Map) 中，toMap$N 很多时再分层调用
+     * <p>
+     * 容量按 HashMap 默认的负载因子计算，放入所有字段后不需要扩容。
+     */
+    private java.util.List<JCTree.JCMethodDecl> createToMapMethods(final BeanMapPlan plan) {
+        Name mapName = names.fromString("map");
+        ListBuffer<JCTree.JCStatement> putStatements = new ListBuffer<JCTree.JCStatement>();
+        for (FieldAccessPlan.FieldEntry fieldEntry : plan.fieldAccessPlan().fieldList()) {
+            // map.put("a", this.a);
+            putStatements.append(treeMaker.Exec(treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                    treeMaker.Select(treeMaker.Ident(mapName), names.fromString("put")),
+                    List.<JCTree.JCExpression>of(treeMaker.Literal(fieldEntry.name()),
+                            treeMaker.Select(treeMaker.Ident(names.fromString("this")), names.fromString(fieldEntry.name()))))));
+        }
+
+        java.util.List<JCTree.JCMethodDecl> methodList = new java.util.ArrayList<JCTree.JCMethodDecl>();
+        ListBuffer<JCTree.JCStatement> statements = new ListBuffer<JCTree.JCStatement>();
+        int capacity = (int) (plan.fieldAccessPlan().fieldList().size() / BeanMapConst.LOAD_FACTOR) + 1;
+        statements.append(treeMaker.VarDef(treeMaker.Modifiers(0), mapName, buildStringObjectMapType(),
+                treeMaker.NewClass(null, List.<JCTree.JCExpression>nil(),
+                        treeMaker.TypeApply(treeMaker.Ident(names.fromString(LinkedHashMap.class.getSimpleName())),
+                                List.<JCTree.JCExpression>of(treeMaker.Ident(names.fromString("String")),
+                                        treeMaker.Ident(names.fromString("Object")))),
+                        List.<JCTree.JCExpression>of(treeMaker.Literal(capacity)), null)));
+        JCTree.JCStatement returnStatement = treeMaker.Return(treeMaker.Ident(mapName));
+        int maxMethodSize = processContext.methodSplitter().maxMethodSize();
+        int putsPerMethod = maxMethodSize <= 0 ? Integer.MAX_VALUE : Math.max(1, maxMethodSize / BeanMapConst.PUT_SIZE);
+        if (putStatements.size() > putsPerMethod) {
+            java.util.List<List<JCTree.JCStatement>> groupList = new java.util.ArrayList<List<JCTree.JCStatement>>();
+            List<JCTree.JCStatement> rest = putStatements.toList();
+            while (!rest.isEmpty()) {
+                ListBuffer<JCTree.JCStatement> group = new ListBuffer<JCTree.JCStatement>();
+                for (int i = 0; i < putsPerMethod && !rest.isEmpty(); i++) {
+                    group.append(rest.head);
+                    rest = rest.tail;
+                }
+                groupList.add(group.toList());
+            }
+            ListBuffer<JCTree.JCStatement> callStatements = new ListBuffer<JCTree.JCStatement>();
+            for (int i = 0; i < groupList.size(); i++) {
+                callStatements.append(createToMapHelper(methodList, i, groupList.get(i)));
+            }
+            // toMap$N 很多时调用语句再分层，编号接在 put 分组之后
+            int helperCount = groupList.size();
+            statements.appendList(processContext.methodSplitter().splitStatements(callStatements.toList(),
+                    MethodSplitter.estimate(statements.toList()) + MethodSplitter.estimate(returnStatement),
+                    (index, group) -> createToMapHelper(methodList, helperCount + index, group)));
+        } else {
+            statements.appendList(putStatements);
+        }
+        statements.append(returnStatement);
+
+        methodList.add(0, treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC), names.fromString(MethodConst.TO_MAP),
+                buildStringObjectMapType(), List.<JCTree.JCTypeParameter>nil(), List.<JCTree.JCVariableDecl>nil(),
+                List.<JCTree.JCExpression>nil(), treeMaker.Block(0, statements.toList()), null));
+        return methodList;
+    }
+
+    /**
+     * private void toMap$N(Map&lt;String, Object&gt; map)，返回调用语句 toMap$N(map);
+     */
+    private JCTree.JCStatement createToMapHelper(final java.util.List<JCTree.JCMethodDecl> methodList, final int index,
+                                                 final List<JCTree.JCStatement> statements) {
+        Name mapName = names.fromString("map");
+        Name helperName = names.fromString(MethodConst.TO_MAP + "$" + index);
+        methodList.add(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PRIVATE), helperName,
+                javacCompat.primitiveType("VOID"), List.<JCTree.JCTypeParameter>nil(),
+                List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), mapName, buildStringObjectMapType(), null)),
+                List.<JCTree.JCExpression>nil(), treeMaker.Block(0, statements), null));
+        return treeMaker.Exec(treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                treeMaker.Ident(helperName), List.<JCTree.JCExpression>of(treeMaker.Ident(mapName))));
+    }
+
+    /**
+     * fromMap(Map&lt;String, ?&gt;)，只设置 map 中存在的键，跳过 final 字段
+     * <p>
+     * 转换为字段擦除后的类型，基本类型的值为 null 时抛出 NullPointerException。
+     */
+    private JCTree.JCMethodDecl createFromMapMethod(final LClass lClass, final BeanMapPlan plan) {
+        Map<String, Type> fieldTypeMap = resolveFieldTypes(lClass);
+        Name mapName = names.fromString("map");
+        boolean unchecked = false;
+        ListBuffer<JCTree.JCStatement> statements = new ListBuffer<JCTree.JCStatement>();
+        for (FieldAccessPlan.FieldEntry fieldEntry : plan.fieldAccessPlan().fieldList()) {
+            if (fieldEntry.finalField()) {
+                continue;
+            }
+            // if (map.containsKey("a")) this.a = (A) map.get("a");
+            Type fieldType = fieldTypeMap.get(fieldEntry.name());
+            JCTree.JCExpression value = treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                    treeMaker.Select(treeMaker.Ident(mapName), names.fromString("get")),
+                    List.<JCTree.JCExpression>of(treeMaker.Literal(fieldEntry.name())));
+            // 值的类型是通配符的捕获类型：基本类型转换为包装类型后自动拆箱，类型变量转换为类型变量本身
+            Type castType;
+            if (fieldType.isPrimitive()) {
+                castType = (Type) types.boxedClass((PrimitiveType) fieldType).asType();
+            } else if (fieldType.getKind() == TypeKind.TYPEVAR) {
+                castType = fieldType;
+            } else {
+                castType = (Type) types.erasure(fieldType);
+            }
+            if (castType.getKind() == TypeKind.TYPEVAR
+                    || !castType.tsym.getQualifiedName().contentEquals(Object.class.getName())) {
+                value = treeMaker.TypeCast(treeMaker.Type(castType), value);
+            }
+            unchecked |= fieldType.getKind() == TypeKind.TYPEVAR
+                    || (fieldType.getKind() == TypeKind.DECLARED && !((DeclaredType) fieldType).getTypeArguments().isEmpty());
+            statements.append(treeMaker.If(treeMaker.Parens(treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                            treeMaker.Select(treeMaker.Ident(mapName), names.fromString("containsKey")),
+                            List.<JCTree.JCExpression>of(treeMaker.Literal(fieldEntry.name())))),
+                    treeMaker.Exec(treeMaker.Assign(
+                            treeMaker.Select(treeMaker.Ident(names.fromString("this")), names.fromString(fieldEntry.name())), value)),
+                    null));
+        }
+        statements.append(treeMaker.Return(treeMaker.Ident(names.fromString("this"))));
+
+        // Map<String, ?>
+        JCTree.JCExpression mapType = treeMaker.TypeApply(treeMaker.Ident(names.fromString(Map.class.getSimpleName())),
+                List.<JCTree.JCExpression>of(treeMaker.Ident(names.fromString("String")),
+                        treeMaker.Wildcard(treeMaker.TypeBoundKind(BoundKind.UNBOUND), null)));
+        List<JCTree.JCAnnotation> annotations = List.nil();
+        if (unchecked) {
+            annotations = List.of(treeMaker.Annotation(treeMaker.Ident(names.fromString("SuppressWarnings")),
+                    List.<JCTree.JCExpression>of(treeMaker.Literal("unchecked"))));
+        }
+        return treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC, annotations), names.fromString(MethodConst.FROM_MAP),
+                buildClassType(lClass.classDecl()), List.<JCTree.JCTypeParameter>nil(),
+                List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), mapName, mapType, null)),
+                List.<JCTree.JCExpression>nil(), treeMaker.Block(0, statements.toList()), null);
+    }
+
+    /**
+     * asMap()：return new FieldAccessorMap&lt;X&gt;(this, Access.INSTANCE);
+     */
+    private JCTree.JCMethodDecl createAsMapMethod(final LClass lClass) {
+        JCTree.JCExpression accessInstance = treeMaker.Select(treeMaker.Ident(names.fromString(FieldAccessConst.ACCESS_CLASS)),
+                names.fromString(FieldAccessConst.INSTANCE_FIELD));
+        JCTree.JCNewClass newMap = treeMaker.NewClass(null, List.<JCTree.JCExpression>nil(),
+                treeMaker.TypeApply(treeMaker.Ident(names.fromString(FieldAccessorMap.class.getSimpleName())),
+                        List.of(buildClassType(lClass.classDecl()))),
+                List.<JCTree.JCExpression>of(treeMaker.Ident(names.fromString("this")), accessInstance), null);
+        return treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC), names.fromString(MethodConst.AS_MAP),
+                buildStringObjectMapType(), List.<JCTree.JCTypeParameter>nil(), List.<JCTree.JCVariableDecl>nil(),
+                List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, List.<JCTree.JCStatement>of(treeMaker.Return(newMap))), null);
+    }
+
+    /**
+     * Map&lt;String, Object&gt;
+     */
+    private JCTree.JCExpression buildStringObjectMapType() {
+        return treeMaker.TypeApply(treeMaker.Ident(names.fromString(Map.class.getSimpleName())),
+                List.<JCTree.JCExpression>of(treeMaker.Ident(names.fromString("String")),
+                        treeMaker.Ident(names.fromString("Object"))));
+    }
+
+    /**
+     * 当前类的类型，泛型类为 X&lt;T&gt;
+     */
+    private JCTree.JCExpression buildClassType(final JCTree.JCClassDecl classDecl) {
+        if (classDecl.typarams.isEmpty()) {
+            return treeMaker.Ident(classDecl.name);
+        }
+        ListBuffer<JCTree.JCExpression> typeArgs = new ListBuffer<JCTree.JCExpression>();
+        for (JCTree.JCTypeParameter typeParameter : classDecl.typarams) {
+            typeArgs.append(treeMaker.Ident(typeParameter.name));
+        }
+        return treeMaker.TypeApply(treeMaker.Ident(classDecl.name), typeArgs.toList());
+    }
+
+    /**
+     * 解析字段的类型，需要补全符号，只能在应用阶段调用
+     */
+    private Map<String, Type> resolveFieldTypes(final LClass lClass) {
+        Map<String, Type> fieldTypeMap = new HashMap<String, Type>();
+        for (Element element : lClass.classSymbol().getEnclosedElements()) {
+            if (element.getKind() == ElementKind.FIELD) {
+                fieldTypeMap.put(element.getSimpleName().toString(), (Type) element.asType());
+            }
+        }
+        return fieldTypeMap;
+    }
+
+}
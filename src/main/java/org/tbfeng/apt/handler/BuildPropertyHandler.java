@@ -0,0 +1,332 @@
+package org.tbfeng.apt.handler;
+
+import org.tbfeng.apt.annotation.BuildProperty;
+import org.tbfeng.apt.constant.BuilderConst;
+import org.tbfeng.apt.domian.BuildPropertyPlan;
+import org.tbfeng.apt.domian.LClass;
+
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.beans.Introspector;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 根据 @BuildProperty 标记的 set 方法生成 XXXBuilder
+ * <p>
+ * 属性值保存在 builder 的字段中，build() 时才创建对象：存在参数与属性一一对应的构造器时直接调用该构造器，
+ * 否则使用无参构造器，并且只调用设置过的 set 方法。reset() 把属性恢复为默认值，便于在循环中复用同一个 builder。
+ * <p>
+ * 生成的源文件只取决于输入：属性按 set 方法的声明顺序输出，换行固定为 \n，不包含时间、路径等环境信息，
+ * 相同的输入在不同的机器、JVM 上得到逐字节相同的结果，便于构建缓存命中。
+ */
+public class BuildPropertyHandler extends AbstractClassHandler<BuildPropertyPlan> {
+
+    @Override
+    public Class<? extends Annotation> annotationClass() {
+        return BuildProperty.class;
+    }
+
+    @Override
+    public BuildPropertyPlan plan(LClass lClass) {
+        // 全限定类名，一个类创建一个Build
+        TypeElement typeElement = lClass.classSymbol();
+        BuildPropertyPlan plan = BuildPropertyPlan.newInstance()
+                .className(typeElement.getQualifiedName().toString())
+                .originatingElement(typeElement);
+
+        // 按照需求 检查注解使用的是否正确 以set开头，并且参数只有一个
+        Map<Boolean, List<Element>> annotatedMethods = lClass.annotatedElementList(BuildProperty.class)
+                .stream().collect(Collectors.partitioningBy(element ->
+                        ((ExecutableType) element.asType()).getParameterTypes().size() == 1
+                                && element.getSimpleName().toString().startsWith("set")));
+
+        List<Element> setters = annotatedMethods.get(true);
+        plan.otherMethodList().addAll(annotatedMethods.get(false));
+
+        // 按 set 方法的声明顺序记录属性，同名的 set 方法只保留第一个
+        Map<String, BuildPropertyPlan.PropertyEntry> propertyMap = new LinkedHashMap<String, BuildPropertyPlan.PropertyEntry>();
+        for (Element setter : setters) {
+            String setterName = setter.getSimpleName().toString();
+            TypeMirror paramType = ((ExecutableType) setter.asType()).getParameterTypes().get(0);
+            String propertyName = propertyName(setterName);
+            if (propertyMap.containsKey(propertyName)) {
+                continue;
+            }
+            propertyMap.put(propertyName, BuildPropertyPlan.PropertyEntry.newInstance()
+                    .setterName(setterName)
+                    .name(propertyName)
+                    .typeName(paramType.toString())
+                    .defaultValue(defaultValue(paramType)));
+        }
+        plan.propertyList().addAll(propertyMap.values());
+        plan.constructorParamList(findAllArgsConstructor(typeElement, propertyMap));
+        return plan;
+    }
+
+    @Override
+    public void apply(LClass lClass, BuildPropertyPlan plan) {
+        // 打印注解使用错误的case
+        plan.otherMethodList().forEach(element ->
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        "@BuilderProperty 注解必须放到方法上并且是set开头的单参数方法", element));
+
+        if (plan.propertyList().isEmpty()) {
+            return;
+        }
+
+        try {
+            // 组装XXXBuild类。并创建对应的类文件
+            writeBuilderFile(plan);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 根据 set 方法名获取属性名
+     * <p>
+     * setName -> name，setURL -> URL；与关键字冲突时追加 _，例如 setClass -> class_
+     *
+     * @param setterName set方法名
+     * @return 属性名
+     */
+    private static String propertyName(final String setterName) {
+        String propertyName = Introspector.decapitalize(setterName.substring(3));
+        if (propertyName.isEmpty() || SourceVersion.isKeyword(propertyName)) {
+            return propertyName + "_";
+        }
+        return propertyName;
+    }
+
+    /**
+     * 类型的默认值
+     *
+     * @param typeMirror 类型
+     * @return 默认值的源码
+     */
+    private static String defaultValue(final TypeMirror typeMirror) {
+        switch (typeMirror.getKind()) {
+            case BOOLEAN:
+                return "false";
+            case CHAR:
+                return "(char) 0";
+            case BYTE:
+                return "(byte) 0";
+            case SHORT:
+                return "(short) 0";
+            case INT:
+                return "0";
+            case LONG:
+                return "0L";
+            case FLOAT:
+                return "0F";
+            case DOUBLE:
+                return "0D";
+            default:
+                return "null";
+        }
+    }
+
+    /**
+     * 查找全参构造器
+     * <p>
+     * 参数名称、类型与所有属性一一对应，并且不是 private 的构造器。
+     *
+     * @param typeElement 类
+     * @param propertyMap 属性名 -> 属性
+     * @return 构造器的参数对应的属性名，按参数顺序；不存在时返回 null
+     */
+    private static List<String> findAllArgsConstructor(final TypeElement typeElement,
+                                                       final Map<String, BuildPropertyPlan.PropertyEntry> propertyMap) {
+        for (Element element : typeElement.getEnclosedElements()) {
+            if (element.getKind() != ElementKind.CONSTRUCTOR || element.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+
+            List<? extends VariableElement> parameters = ((ExecutableElement) element).getParameters();
+            if (parameters.size() != propertyMap.size()) {
+                continue;
+            }
+
+            List<String> paramList = new ArrayList<String>(parameters.size());
+            for (VariableElement parameter : parameters) {
+                BuildPropertyPlan.PropertyEntry propertyEntry = propertyMap.get(parameter.getSimpleName().toString());
+                if (propertyEntry == null || !propertyEntry.typeName().equals(parameter.asType().toString())) {
+                    break;
+                }
+                paramList.add(propertyEntry.name());
+            }
+            if (paramList.size() == parameters.size()) {
+                return paramList;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 生成 XXXBuilder 源文件
+     *
+     * <pre>
+     * public class UserBuilder {
+     *
+     *     private String name;
+     *     private boolean name$set;
+     *
+     *     public User build() {
+     *         User object = new User();
+     *         if (name$set) {
+     *             object.setName(name);
+     *         }
+     *         return object;
+     *     }
+     *
+     *     public UserBuilder reset() {
+     *         name = null;
+     *         name$set = false;
+     *         return this;
+     *     }
+     *
+     *     public UserBuilder setName(String value) {
+     *         this.name = value;
+     *         this.name$set = true;
+     *         return this;
+     *     }
+     * }
+     * </pre>
+     * 存在全参构造器时不需要 $set 字段，build() 直接返回 new User(this.name)。
+     *
+     * @param plan 分析结果
+     * @throws IOException 写文件异常
+     */
+    private void writeBuilderFile(final BuildPropertyPlan plan) throws IOException {
+        String className = plan.className();
+        String packageName = null;
+        int lastDot = className.lastIndexOf('.');
+        if (lastDot > 0) {
+            packageName = className.substring(0, lastDot);
+        }
+
+        String simpleClassName = className.substring(lastDot + 1);
+        String builderClassName = className + "Builder";
+        String builderSimpleClassName = builderClassName
+                .substring(lastDot + 1);
+        List<BuildPropertyPlan.PropertyEntry> propertyList = plan.propertyList();
+        List<String> constructorParamList = plan.constructorParamList();
+        boolean useConstructor = constructorParamList != null;
+
+        JavaFileObject builderFile = filer
+                .createSourceFile(builderClassName, plan.originatingElement());
+
+        try (PrintWriter out = new SourceWriter(builderFile.openWriter())) {
+
+            if (packageName != null) {
+                out.print("package ");
+                out.print(packageName);
+                out.println(";");
+                out.println();
+            }
+
+            out.print("public class ");
+            out.print(builderSimpleClassName);
+            out.println(" {");
+            out.println();
+
+            // 字段
+            for (BuildPropertyPlan.PropertyEntry property : propertyList) {
+                out.println("    private " + property.typeName() + " " + property.name() + ";");
+                if (!useConstructor) {
+                    out.println("    private boolean " + property.name() + BuilderConst.SET_FLAG_SUFFIX + ";");
+                }
+            }
+            out.println();
+
+            // build()
+            out.print("    public ");
+            out.print(simpleClassName);
+            out.println(" build() {");
+            if (useConstructor) {
+                out.println("        return new " + simpleClassName + "(" + constructorParamList.stream()
+                        .map(name -> "this." + name).collect(Collectors.joining(", ")) + ");");
+            } else {
+                out.println("        " + simpleClassName + " object = new " + simpleClassName + "();");
+                for (BuildPropertyPlan.PropertyEntry property : propertyList) {
+                    // 使用 this 访问字段，避免与局部变量 object 同名的属性被遮蔽
+                    out.println("        if (this." + property.name() + BuilderConst.SET_FLAG_SUFFIX + ") {");
+                    out.println("            object." + property.setterName() + "(this." + property.name() + ");");
+                    out.println("        }");
+                }
+                out.println("        return object;");
+            }
+            out.println("    }");
+            out.println();
+
+            // reset()
+            out.print("    public ");
+            out.print(builderSimpleClassName);
+            out.println(" reset() {");
+            for (BuildPropertyPlan.PropertyEntry property : propertyList) {
+                out.println("        this." + property.name() + " = " + property.defaultValue() + ";");
+                if (!useConstructor) {
+                    out.println("        this." + property.name() + BuilderConst.SET_FLAG_SUFFIX + " = false;");
+                }
+            }
+            out.println("        return this;");
+            out.println("    }");
+            out.println();
+
+            for (BuildPropertyPlan.PropertyEntry property : propertyList) {
+                out.print("    public ");
+                out.print(builderSimpleClassName);
+                out.print(" ");
+                out.print(property.setterName());
+
+                out.print("(");
+
+                out.print(property.typeName());
+                out.println(" value) {");
+                out.println("        this." + property.name() + " = value;");
+                if (!useConstructor) {
+                    out.println("        this." + property.name() + BuilderConst.SET_FLAG_SUFFIX + " = true;");
+                }
+                out.println("        return this;");
+                out.println("    }");
+                out.println();
+            }
+
+            out.println("}");
+        }
+    }
+
+    /**
+     * 换行固定为 \n 的 PrintWriter，不使用系统的 line.separator
+     */
+    private static class SourceWriter extends PrintWriter {
+
+        SourceWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void println() {
+            write('\n');
+        }
+    }
+
+}
@@ -0,0 +1,290 @@
+package org.tbfeng.apt.handler;
+
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeCopier;
+import com.sun.tools.javac.util.List;
+import com.sun.tools.javac.util.ListBuffer;
+import com.sun.tools.javac.util.Name;
+import org.tbfeng.apt.annotation.Builder;
+import org.tbfeng.apt.constant.BuilderConst;
+import org.tbfeng.apt.constant.ClassConst;
+import org.tbfeng.apt.domian.BuilderPlan;
+import org.tbfeng.apt.domian.LClass;
+
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.type.TypeKind;
+import javax.tools.Diagnostic;
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 根据 @Builder 在类中生成嵌套的 Builder
+ * <p>
+ * 直接修改语法树，生成的 Builder 在同一轮中可用，泛型参数与原类一致。
+ *
+ * <pre>
+ * public static &lt;T&gt; Builder&lt;T&gt; builder() {
+ *     return new Builder&lt;T&gt;();
+ * }
+ *
+ * private X(Builder&lt;T&gt; builder) {
+ *     this.a = builder.a;
+ *     if (builder.b$set) {
+ *         this.b = builder.b;
+ *     }
+ * }
+ *
+ * public static final class Builder&lt;T&gt; {
+ *     private T a;
+ *     private int b;
+ *     private boolean b$set;
+ *
+ *     public Builder&lt;T&gt; a(T a) { this.a = a; return this; }
+ *     public Builder&lt;T&gt; b(int b) { this.b = b; this.b$set = true; return this; }
+ *     public X&lt;T&gt; build() { return new X&lt;T&gt;(this); }
+ *     public Builder&lt;T&gt; reset() { this.a = null; this.b = 0; this.b$set = false; return this; }
+ * }
+ * </pre>
+ * 字段很多时构造器中的赋值拆分到 private 的 init$N(Builder&lt;T&gt; builder) 中；
+ * 存在未赋值的 final 字段时只能在构造器中赋值，不拆分。
+ */
+public class BuilderHandler extends AbstractClassHandler<BuilderPlan> {
+
+    @Override
+    public Class<? extends Annotation> annotationClass() {
+        return Builder.class;
+    }
+
+    @Override
+    public BuilderPlan plan(LClass lClass) {
+        BuilderPlan plan = BuilderPlan.newInstance();
+        if (lClass.classSymbol().getKind() != ElementKind.CLASS) {
+            return plan.error("@Builder 只能用于类");
+        }
+        // 非静态的内部类中不能声明静态方法和静态嵌套类
+        if (lClass.classSymbol().getNestingKind() != NestingKind.TOP_LEVEL
+                && !lClass.classSymbol().getModifiers().contains(Modifier.STATIC)) {
+            return plan.error("@Builder 只能用于顶层类或者静态嵌套类");
+        }
+        if (lClass.containsClass(BuilderConst.BUILDER_CLASS) || lClass.containsMethod(BuilderConst.BUILDER_METHOD)) {
+            return plan.error("@Builder 需要生成 " + BuilderConst.BUILDER_METHOD + "() 方法和 "
+                    + BuilderConst.BUILDER_CLASS + " 类，当前类中已经存在");
+        }
+
+        for (JCTree jcTree : lClass.classDecl().defs) {
+            if (jcTree.getKind() != Tree.Kind.VARIABLE) {
+                continue;
+            }
+            JCTree.JCVariableDecl variableDecl = (JCTree.JCVariableDecl) jcTree;
+            long flags = variableDecl.mods.flags;
+            // 静态字段、已经赋值的 final 字段不需要构建
+            if ((flags & Flags.STATIC) != 0 || ((flags & Flags.FINAL) != 0 && variableDecl.init != null)) {
+                continue;
+            }
+            if ((flags & Flags.FINAL) != 0) {
+                plan.uninitializedFinal(true);
+            }
+            plan.addField(BuilderPlan.FieldEntry.newInstance()
+                    .name(variableDecl.name.toString())
+                    .initialized(variableDecl.init != null)
+                    .typeKind(variableDecl.vartype instanceof JCTree.JCPrimitiveTypeTree
+                            ? ((JCTree.JCPrimitiveTypeTree) variableDecl.vartype).getPrimitiveTypeKind()
+                            : TypeKind.DECLARED));
+        }
+        return plan;
+    }
+
+    @Override
+    public void apply(LClass lClass, BuilderPlan plan) {
+        if (plan.error() != null) {
+            messager.printMessage(Diagnostic.Kind.ERROR, plan.error(), lClass.classSymbol());
+            return;
+        }
+
+        JCTree.JCClassDecl classDecl = lClass.classDecl();
+        if (plan.uninitializedFinal()) {
+            lClass.removeGeneratedConstructor();
+        }
+        Map<String, JCTree.JCVariableDecl> variableDeclMap = new HashMap<String, JCTree.JCVariableDecl>();
+        for (JCTree jcTree : classDecl.defs) {
+            if (jcTree.getKind() == Tree.Kind.VARIABLE) {
+                JCTree.JCVariableDecl variableDecl = (JCTree.JCVariableDecl) jcTree;
+                variableDeclMap.put(variableDecl.name.toString(), variableDecl);
+            }
+        }
+
+        TreeCopier<Void> treeCopier = new TreeCopier<Void>(treeMaker);
+        Name thisName = names.fromString("this");
+        Name builderName = names.fromString(BuilderConst.BUILDER_METHOD);
+        ListBuffer<JCTree> builderDefs = new ListBuffer<JCTree>();
+        ListBuffer<JCTree> setterDefs = new ListBuffer<JCTree>();
+        ListBuffer<JCTree.JCStatement> constructorStatements = new ListBuffer<JCTree.JCStatement>();
+        ListBuffer<JCTree.JCStatement> resetStatements = new ListBuffer<JCTree.JCStatement>();
+        for (BuilderPlan.FieldEntry fieldEntry : plan.fieldList()) {
+            Name fieldName = names.fromString(fieldEntry.name());
+            JCTree.JCExpression vartype = variableDeclMap.get(fieldEntry.name()).vartype;
+            Name setFlagName = names.fromString(fieldEntry.name() + BuilderConst.SET_FLAG_SUFFIX);
+
+            // private T a;
+            builderDefs.append(treeMaker.VarDef(treeMaker.Modifiers(Flags.PRIVATE), fieldName,
+                    treeCopier.copy(vartype), null));
+            if (fieldEntry.initialized()) {
+                builderDefs.append(treeMaker.VarDef(treeMaker.Modifiers(Flags.PRIVATE), setFlagName,
+                        javacCompat.primitiveType("BOOLEAN"), null));
+            }
+
+            // public Builder<T> a(T a)
+            ListBuffer<JCTree.JCStatement> setterStatements = new ListBuffer<JCTree.JCStatement>();
+            setterStatements.append(buildAssign(thisName, fieldName, treeMaker.Ident(fieldName)));
+            if (fieldEntry.initialized()) {
+                setterStatements.append(buildAssign(thisName, setFlagName, treeMaker.Literal(Boolean.TRUE)));
+            }
+            setterStatements.append(treeMaker.Return(treeMaker.Ident(thisName)));
+            setterDefs.append(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC),
+                    fieldName,
+                    buildType(BuilderConst.BUILDER_CLASS, classDecl),
+                    List.<JCTree.JCTypeParameter>nil(),
+                    List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), fieldName, treeCopier.copy(vartype), null)),
+                    List.<JCTree.JCExpression>nil(),
+                    treeMaker.Block(0, setterStatements.toList()),
+                    null));
+
+            // this.a = builder.a;
+            JCTree.JCStatement assign = buildAssign(thisName, fieldName,
+                    treeMaker.Select(treeMaker.Ident(builderName), fieldName));
+            constructorStatements.append(fieldEntry.initialized()
+                    ? treeMaker.If(treeMaker.Parens(treeMaker.Select(treeMaker.Ident(builderName), setFlagName)),
+                    treeMaker.Block(0, List.of(assign)), null)
+                    : assign);
+
+            // this.a = null;
+            resetStatements.append(buildAssign(thisName, fieldName, defaultValue(fieldEntry.typeKind())));
+            if (fieldEntry.initialized()) {
+                resetStatements.append(buildAssign(thisName, setFlagName, treeMaker.Literal(Boolean.FALSE)));
+            }
+        }
+        builderDefs.appendList(setterDefs.toList());
+
+        // public X<T> build()
+        JCTree.JCNewClass newObject = treeMaker.NewClass(null, List.<JCTree.JCExpression>nil(),
+                buildType(classDecl.name.toString(), classDecl), List.<JCTree.JCExpression>of(treeMaker.Ident(thisName)), null);
+        builderDefs.append(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC),
+                names.fromString(BuilderConst.BUILD_METHOD),
+                buildType(classDecl.name.toString(), classDecl),
+                List.<JCTree.JCTypeParameter>nil(),
+                List.<JCTree.JCVariableDecl>nil(),
+                List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, List.<JCTree.JCStatement>of(treeMaker.Return(newObject))),
+                null));
+
+        // public Builder<T> reset()
+        resetStatements.append(treeMaker.Return(treeMaker.Ident(thisName)));
+        JCTree.JCMethodDecl resetMethod = treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC),
+                names.fromString(BuilderConst.RESET_METHOD),
+                buildType(BuilderConst.BUILDER_CLASS, classDecl),
+                List.<JCTree.JCTypeParameter>nil(),
+                List.<JCTree.JCVariableDecl>nil(),
+                List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, resetStatements.toList()),
+                null);
+        for (JCTree.JCMethodDecl methodDecl : processContext.methodSplitter().split(resetMethod)) {
+            builderDefs.append(methodDecl);
+        }
+
+        lClass.insertClass(treeMaker.ClassDef(treeMaker.Modifiers(Flags.PUBLIC | Flags.STATIC | Flags.FINAL),
+                names.fromString(BuilderConst.BUILDER_CLASS),
+                treeCopier.copy(classDecl.typarams),
+                null,
+                List.<JCTree.JCExpression>nil(),
+                builderDefs.toList()));
+
+        // private X(Builder<T> builder)，final 字段只能在构造器中赋值，此时不拆分
+        List<JCTree.JCStatement> initStatements = constructorStatements.toList();
+        if (!plan.uninitializedFinal()) {
+            // 隐式的 super() 与 return 约 5 字节
+            initStatements = processContext.methodSplitter().splitStatements(initStatements, 5, (index, group) -> {
+                Name helperName = names.fromString(BuilderConst.INIT_METHOD + "$" + index);
+                lClass.insertMethod(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PRIVATE),
+                        helperName,
+                        javacCompat.primitiveType("VOID"),
+                        List.<JCTree.JCTypeParameter>nil(),
+                        List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), builderName,
+                                buildType(BuilderConst.BUILDER_CLASS, classDecl), null)),
+                        List.<JCTree.JCExpression>nil(),
+                        treeMaker.Block(0, group),
+                        null));
+                return treeMaker.Exec(treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                        treeMaker.Ident(helperName), List.<JCTree.JCExpression>of(treeMaker.Ident(builderName))));
+            });
+        }
+        lClass.insertMethod(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PRIVATE),
+                names.fromString(ClassConst.CONSTRUCTOR_NAME),
+                null,
+                List.<JCTree.JCTypeParameter>nil(),
+                List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), builderName,
+                        buildType(BuilderConst.BUILDER_CLASS, classDecl), null)),
+                List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, initStatements),
+                null));
+
+        // public static <T> Builder<T> builder()
+        JCTree.JCNewClass newBuilder = treeMaker.NewClass(null, List.<JCTree.JCExpression>nil(),
+                buildType(BuilderConst.BUILDER_CLASS, classDecl), List.<JCTree.JCExpression>nil(), null);
+        lClass.insertMethod(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC | Flags.STATIC),
+                builderName,
+                buildType(BuilderConst.BUILDER_CLASS, classDecl),
+                treeCopier.copy(classDecl.typarams),
+                List.<JCTree.JCVariableDecl>nil(),
+                List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, List.<JCTree.JCStatement>of(treeMaker.Return(newBuilder))),
+                null));
+    }
+
+    /**
+     * 类型，泛型参数与原类一致：Name&lt;T, ...&gt;
+     *
+     * @param simpleName 类的简单名称
+     * @param classDecl  原类
+     * @return 类型
+     */
+    private JCTree.JCExpression buildType(final String simpleName, final JCTree.JCClassDecl classDecl) {
+        JCTree.JCIdent ident = treeMaker.Ident(names.fromString(simpleName));
+        if (classDecl.typarams.isEmpty()) {
+            return ident;
+        }
+        ListBuffer<JCTree.JCExpression> typeArguments = new ListBuffer<JCTree.JCExpression>();
+        for (JCTree.JCTypeParameter typeParameter : classDecl.typarams) {
+            typeArguments.append(treeMaker.Ident(typeParameter.name));
+        }
+        return treeMaker.TypeApply(ident, typeArguments.toList());
+    }
+
+    /**
+     * target.field = value;
+     */
+    private JCTree.JCExpressionStatement buildAssign(final Name target, final Name field, final JCTree.JCExpression value) {
+        return treeMaker.Exec(treeMaker.Assign(treeMaker.Select(treeMaker.Ident(target), field), value));
+    }
+
+    /**
+     * 默认值：boolean 为 false，其他基本类型为 0（赋值时按常量转换），引用类型为 null
+     *
+     * @param typeKind 类型
+     * @return 默认值
+     */
+    private JCTree.JCExpression defaultValue(final TypeKind typeKind) {
+        if (typeKind == TypeKind.BOOLEAN) {
+            return treeMaker.Literal(Boolean.FALSE);
+        }
+        if (typeKind.isPrimitive()) {
+            return treeMaker.Literal(0);
+        }
+        return javacCompat.nullLiteral();
+    }
+
+}
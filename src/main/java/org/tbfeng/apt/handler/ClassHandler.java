@@ -0,0 +1,78 @@
+package org.tbfeng.apt.handler;
+
+import org.tbfeng.apt.domian.LClass;
+import org.tbfeng.apt.domian.ProcessContext;
+
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 类处理器 SPI
+ * <p>
+ * 新的注解只需要实现该接口，并在 META-INF/services/org.tbfeng.apt.handler.ClassHandler 中注册，
+ * 由 {@link org.tbfeng.apt.processor.DispatchProcessor} 统一调度，不需要再新增 AbstractProcessor。
+ * <p>
+ * 每一轮中每个被标记的类只会构建一次 {@link LClass}，并依次交给所有匹配的处理器。
+ *
+ * @param <P> 分析结果类型
+ */
+public interface ClassHandler<P> {
+
+    /**
+     * 处理的注解类型
+     * <p>
+     * 注解可以标记在类上，也可以标记在类的方法、字段上，此时按所在的类进行处理。
+     *
+     * @return 注解类型
+     */
+    Class<? extends Annotation> annotationClass();
+
+    /**
+     * 只在分析时读取的配套注解，例如字段上的约束注解
+     * <p>
+     * 不会单独触发处理，只用于声明为处理器支持的注解，避免 javac 提示没有处理器认领。
+     *
+     * @return 注解类型
+     */
+    default Set<Class<? extends Annotation>> companionAnnotationClasses() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * 支持的处理器参数
+     *
+     * @return 参数名称
+     */
+    default Set<String> supportedOptions() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * 初始化
+     *
+     * @param processContext 执行上下文
+     */
+    void init(ProcessContext processContext);
+
+    /**
+     * 分析单个类信息
+     * <p>
+     * 可能在多个线程中同时调用，只允许读取语法树，不能使用 TreeMaker、Names、Messager、Filer。
+     *
+     * @param lClass 类信息
+     * @return 分析结果
+     */
+    P plan(LClass lClass);
+
+    /**
+     * 根据分析结果处理单个类信息
+     * <p>
+     * 始终在编译线程中串行调用。
+     *
+     * @param lClass 类信息
+     * @param plan   分析结果
+     */
+    void apply(LClass lClass, P plan);
+
+}
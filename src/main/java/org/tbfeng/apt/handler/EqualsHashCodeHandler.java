@@ -0,0 +1,395 @@
+package org.tbfeng.apt.handler;
+
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.code.BoundKind;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.util.List;
+import com.sun.tools.javac.util.ListBuffer;
+import com.sun.tools.javac.util.Name;
+import org.tbfeng.apt.annotation.EqualsHashCode;
+import org.tbfeng.apt.constant.EqualsHashCodeConst;
+import org.tbfeng.apt.constant.MethodConst;
+import org.tbfeng.apt.domian.EqualsHashCodePlan;
+import org.tbfeng.apt.domian.LClass;
+import org.tbfeng.apt.domian.LField;
+import org.tbfeng.apt.domian.LObject;
+import org.tbfeng.apt.domian.MethodSplitter;
+
+import javax.lang.model.type.TypeKind;
+import javax.tools.Diagnostic;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * equals(Object)、hashCode() 实现
+ *
+ * <pre>
+ * public boolean equals(Object o) {
+ *     if (o == this) return true;
+ *     if (o == null || o.getClass() != this.getClass()) return false;
+ *     X&lt;?&gt; other = (X&lt;?&gt;) o;
+ *     if (this.id != other.id) return false;
+ *     if (Double.compare(this.price, other.price) != 0) return false;
+ *     if (this.name != other.name &amp;&amp; (this.name == null || !this.name.equals(other.name))) return false;
+ *     if (!Arrays.equals(this.data, other.data)) return false;
+ *     return true;
+ * }
+ *
+ * public int hashCode() {
+ *     int result = 1;
+ *     result = 31 * result + Long.hashCode(this.id);
+ *     result = 31 * result + (this.name == null ? 0 : this.name.hashCode());
+ *     result = 31 * result + Arrays.hashCode(this.data);
+ *     return result;
+ * }
+ * </pre>
+ * 超过方法大小上限时，比较和计算分别拆分到 private 的 equals$N(X&lt;?&gt; other)、hashCode$N(int result) 中，
+ * 拆分出的方法很多时再分层调用。
+ */
+public class EqualsHashCodeHandler extends AbstractClassHandler<EqualsHashCodePlan> {
+
+    /**
+     * hashCode() 中除了逐个字段计算以外的语句的估算大小：局部变量、return 以及缓存的读写
+     */
+    private static final int HASH_CODE_RESERVED_SIZE = 20;
+
+    @Override
+    public Class<? extends Annotation> annotationClass() {
+        return EqualsHashCode.class;
+    }
+
+    @Override
+    public EqualsHashCodePlan plan(LClass lClass) {
+        EqualsHashCode equalsHashCode = lClass.classSymbol().getAnnotation(EqualsHashCode.class);
+        EqualsHashCodePlan plan = EqualsHashCodePlan.newInstance()
+                .existsEquals(lClass.containsMethod(MethodConst.EQUALS, "Object")
+                        || lClass.containsMethod(MethodConst.EQUALS, "java.lang.Object"))
+                .existsHashCode(lClass.containsMethod(MethodConst.HASH_CODE))
+                .cache(equalsHashCode.cache());
+        if (plan.existsEquals() || plan.existsHashCode()) {
+            return plan;
+        }
+
+        for (JCTree jcTree : lClass.classDecl().defs) {
+            if (jcTree.getKind() != Tree.Kind.VARIABLE) {
+                continue;
+            }
+            JCTree.JCVariableDecl variableDecl = (JCTree.JCVariableDecl) jcTree;
+            long flags = variableDecl.mods.flags;
+            if ((flags & (Flags.STATIC | Flags.TRANSIENT)) != 0) {
+                continue;
+            }
+            JCTree.JCExpression vartype = variableDecl.vartype;
+            TypeKind typeKind = TypeKind.DECLARED;
+            if (vartype instanceof JCTree.JCPrimitiveTypeTree) {
+                typeKind = ((JCTree.JCPrimitiveTypeTree) vartype).getPrimitiveTypeKind();
+            } else if (vartype instanceof JCTree.JCArrayTypeTree) {
+                typeKind = TypeKind.ARRAY;
+            }
+            plan.addField(EqualsHashCodePlan.FieldEntry.newInstance()
+                    .name(variableDecl.name.toString())
+                    .typeKind(typeKind)
+                    .primitiveArray(typeKind == TypeKind.ARRAY
+                            && ((JCTree.JCArrayTypeTree) vartype).elemtype instanceof JCTree.JCPrimitiveTypeTree));
+            if ((flags & Flags.FINAL) == 0) {
+                plan.addNonFinalField(variableDecl.name.toString());
+            }
+        }
+        return plan;
+    }
+
+    @Override
+    public void apply(LClass lClass, EqualsHashCodePlan plan) {
+        if (plan.existsEquals() != plan.existsHashCode()) {
+            messager.printMessage(Diagnostic.Kind.WARNING,
+                    "@EqualsHashCode 类中只声明了 equals、hashCode 中的一个，不会生成另一个，请保持两者一致", lClass.classSymbol());
+            return;
+        }
+        if (plan.existsEquals()) {
+            return;
+        }
+        if (plan.cache() && !plan.nonFinalFieldList().isEmpty()) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    "@EqualsHashCode(cache = true) 要求所有字段为 final，以下字段不是: " + plan.nonFinalFieldList(), lClass.classSymbol());
+            return;
+        }
+
+        generateEqualsMethod(lClass, plan);
+        generateHashCodeMethod(lClass, plan);
+    }
+
+    /**
+     * 生成 equals(Object)
+     */
+    private void generateEqualsMethod(final LClass lClass, final EqualsHashCodePlan plan) {
+        Name paramName = names.fromString("o");
+        Name otherName = names.fromString("other");
+        JCTree.JCClassDecl classDecl = lClass.classDecl();
+
+        ListBuffer<JCTree.JCStatement> statements = new ListBuffer<JCTree.JCStatement>();
+        // if (o == this) return true;
+        statements.append(treeMaker.If(treeMaker.Parens(javacCompat.binary("EQ",
+                treeMaker.Ident(paramName), treeMaker.Ident(names.fromString("this")))),
+                treeMaker.Return(treeMaker.Literal(Boolean.TRUE)), null));
+        // if (o == null || o.getClass() != this.getClass()) return false;
+        statements.append(treeMaker.If(treeMaker.Parens(javacCompat.binary("OR",
+                javacCompat.binary("EQ", treeMaker.Ident(paramName), javacCompat.nullLiteral()),
+                javacCompat.binary("NE", buildCall(treeMaker.Ident(paramName), "getClass"),
+                        buildCall(treeMaker.Ident(names.fromString("this")), "getClass")))),
+                returnFalse(), null));
+        // X<?> other = (X<?>) o;
+        statements.append(treeMaker.VarDef(treeMaker.Modifiers(0), otherName, buildWildcardType(classDecl),
+                treeMaker.TypeCast(buildWildcardType(classDecl), treeMaker.Ident(paramName))));
+        // 缓存时先比较 hashCode，不相等的对象大多在这里返回
+        if (plan.cache()) {
+            statements.append(treeMaker.If(treeMaker.Parens(javacCompat.binary("NE",
+                    buildCall(treeMaker.Ident(names.fromString("this")), MethodConst.HASH_CODE),
+                    buildCall(treeMaker.Ident(otherName), MethodConst.HASH_CODE))),
+                    returnFalse(), null));
+        }
+
+        // 按开销从小到大比较，开销相同时保持声明顺序
+        java.util.List<EqualsHashCodePlan.FieldEntry> fieldList = new ArrayList<EqualsHashCodePlan.FieldEntry>(plan.fieldList());
+        fieldList.sort(Comparator.comparingInt(EqualsHashCodePlan.FieldEntry::cost));
+        ListBuffer<JCTree.JCStatement> compareStatements = new ListBuffer<JCTree.JCStatement>();
+        for (EqualsHashCodePlan.FieldEntry fieldEntry : fieldList) {
+            compareStatements.append(treeMaker.If(treeMaker.Parens(buildNotEquals(lClass, fieldEntry, otherName)),
+                    returnFalse(), null));
+        }
+
+        // 超过上限时拆分：if (!equals$0(other)) return false; ...
+        JCTree.JCStatement returnTrue = treeMaker.Return(treeMaker.Literal(Boolean.TRUE));
+        statements.appendList(processContext.methodSplitter().splitStatements(compareStatements.toList(),
+                MethodSplitter.estimate(statements.toList()) + MethodSplitter.estimate(returnTrue), (index, group) -> {
+                    String helperName = MethodConst.EQUALS + "$" + index;
+                    lClass.insertMethod(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PRIVATE),
+                            names.fromString(helperName),
+                            javacCompat.primitiveType("BOOLEAN"),
+                            List.<JCTree.JCTypeParameter>nil(),
+                            List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), otherName, buildWildcardType(classDecl), null)),
+                            List.<JCTree.JCExpression>nil(),
+                            treeMaker.Block(0, group.append(treeMaker.Return(treeMaker.Literal(Boolean.TRUE)))),
+                            null));
+                    return treeMaker.If(treeMaker.Parens(javacCompat.unary("NOT", buildCall(null, helperName, treeMaker.Ident(otherName)))),
+                            returnFalse(), null);
+                }));
+        statements.append(returnTrue);
+
+        lClass.insertMethod(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC),
+                names.fromString(MethodConst.EQUALS),
+                javacCompat.primitiveType("BOOLEAN"),
+                List.<JCTree.JCTypeParameter>nil(),
+                List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), paramName,
+                        treeMaker.Ident(names.fromString("Object")), null)),
+                List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, statements.toList()),
+                null));
+    }
+
+    /**
+     * 字段不相等的条件
+     * <p>
+     * 整数、boolean、char：this.a != other.a<br>
+     * float、double：Float.compare(this.a, other.a) != 0，与包装类的 equals 一致（NaN 相等，0.0 与 -0.0 不等）<br>
+     * 数组：!Arrays.equals(this.a, other.a)，多维、对象数组使用 Arrays.deepEquals<br>
+     * 引用：this.a != other.a &amp;&amp; (this.a == null || !this.a.equals(other.a))
+     */
+    private JCTree.JCExpression buildNotEquals(final LClass lClass,
+                                               final EqualsHashCodePlan.FieldEntry fieldEntry,
+                                               final Name otherName) {
+        TypeKind typeKind = fieldEntry.typeKind();
+        if (typeKind == TypeKind.FLOAT || typeKind == TypeKind.DOUBLE) {
+            String boxName = typeKind == TypeKind.FLOAT ? "Float" : "Double";
+            return javacCompat.binary("NE", buildCall(treeMaker.Ident(names.fromString(boxName)), "compare",
+                    buildFieldRef(fieldEntry), buildOtherFieldRef(fieldEntry, otherName)), treeMaker.Literal(0));
+        }
+        if (typeKind.isPrimitive()) {
+            return javacCompat.binary("NE", buildFieldRef(fieldEntry), buildOtherFieldRef(fieldEntry, otherName));
+        }
+        if (typeKind == TypeKind.ARRAY) {
+            lClass.importPackage(Arrays.class);
+            return javacCompat.unary("NOT", buildCall(treeMaker.Ident(names.fromString("Arrays")),
+                    fieldEntry.primitiveArray() ? "equals" : "deepEquals",
+                    buildFieldRef(fieldEntry), buildOtherFieldRef(fieldEntry, otherName)));
+        }
+        JCTree.JCExpression notSame = javacCompat.binary("NE", buildFieldRef(fieldEntry), buildOtherFieldRef(fieldEntry, otherName));
+        JCTree.JCExpression notEquals = javacCompat.binary("OR",
+                javacCompat.binary("EQ", buildFieldRef(fieldEntry), javacCompat.nullLiteral()),
+                javacCompat.unary("NOT", buildCall(buildFieldRef(fieldEntry), MethodConst.EQUALS,
+                        buildOtherFieldRef(fieldEntry, otherName))));
+        return javacCompat.binary("AND", notSame, treeMaker.Parens(notEquals));
+    }
+
+    /**
+     * 生成 hashCode()
+     */
+    private void generateHashCodeMethod(final LClass lClass, final EqualsHashCodePlan plan) {
+        Name resultName = names.fromString("result");
+        ListBuffer<JCTree.JCStatement> hashStatements = new ListBuffer<JCTree.JCStatement>();
+        for (EqualsHashCodePlan.FieldEntry fieldEntry : plan.fieldList()) {
+            // result = 31 * result + hash;
+            hashStatements.append(treeMaker.Exec(treeMaker.Assign(treeMaker.Ident(resultName),
+                    javacCompat.binary("PLUS",
+                            javacCompat.binary("MUL", treeMaker.Literal(EqualsHashCodeConst.HASH_MULTIPLIER), treeMaker.Ident(resultName)),
+                            buildFieldHash(lClass, fieldEntry)))));
+        }
+
+        // 超过上限时拆分：result = hashCode$0(result); ...
+        List<JCTree.JCStatement> splitStatements = processContext.methodSplitter().splitStatements(hashStatements.toList(),
+                HASH_CODE_RESERVED_SIZE, (index, group) -> {
+                    String helperName = MethodConst.HASH_CODE + "$" + index;
+                    lClass.insertMethod(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PRIVATE),
+                            names.fromString(helperName),
+                            javacCompat.primitiveType("INT"),
+                            List.<JCTree.JCTypeParameter>nil(),
+                            List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), resultName, javacCompat.primitiveType("INT"), null)),
+                            List.<JCTree.JCExpression>nil(),
+                            treeMaker.Block(0, group.append(treeMaker.Return(treeMaker.Ident(resultName)))),
+                            null));
+                    return treeMaker.Exec(treeMaker.Assign(treeMaker.Ident(resultName),
+                            buildCall(null, helperName, treeMaker.Ident(resultName))));
+                });
+        hashStatements = new ListBuffer<JCTree.JCStatement>();
+        hashStatements.appendList(splitStatements);
+
+        ListBuffer<JCTree.JCStatement> statements = new ListBuffer<JCTree.JCStatement>();
+        statements.append(treeMaker.VarDef(treeMaker.Modifiers(0), resultName, javacCompat.primitiveType("INT"),
+                plan.cache() ? buildCacheFieldRef() : treeMaker.Literal(EqualsHashCodeConst.HASH_SEED)));
+        if (plan.cache()) {
+            statements.append(createCachedStatement(lClass, resultName, hashStatements.toList()));
+        } else {
+            statements.appendList(hashStatements.toList());
+        }
+        statements.append(treeMaker.Return(treeMaker.Ident(resultName)));
+
+        lClass.insertMethod(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC),
+                names.fromString(MethodConst.HASH_CODE),
+                javacCompat.primitiveType("INT"),
+                List.<JCTree.JCTypeParameter>nil(),
+                List.<JCTree.JCVariableDecl>nil(),
+                List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, statements.toList()),
+                null));
+    }
+
+    /**
+     * 缓存结果
+     * <p>
+     * 单次检查的延迟初始化，与 String.hashCode 相同：所有字段都是 final，多个线程同时计算得到的结果相同，
+     * int 的读写是原子的，因此不需要加锁或者 volatile。结果为 0 时每次都会重新计算。
+     *
+     * <pre>
+     * int result = this.$hashCodeCache;
+     * if (result == 0) {
+     *     result = 1;
+     *     result = 31 * result + ...;
+     *     this.$hashCodeCache = result;
+     * }
+     * return result;
+     * </pre>
+     */
+    private JCTree.JCIf createCachedStatement(final LClass lClass, final Name resultName,
+                                              final List<JCTree.JCStatement> hashStatements) {
+        lClass.insertField(LField.newInstance()
+                .modifiers(Flags.PRIVATE | Flags.TRANSIENT)
+                .type(int.class)
+                .name(EqualsHashCodeConst.CACHE_FIELD)
+                .value(new LObject(processContext)));
+
+        ListBuffer<JCTree.JCStatement> computeStatements = new ListBuffer<JCTree.JCStatement>();
+        computeStatements.append(treeMaker.Exec(treeMaker.Assign(treeMaker.Ident(resultName),
+                treeMaker.Literal(EqualsHashCodeConst.HASH_SEED))));
+        computeStatements.appendList(hashStatements);
+        computeStatements.append(treeMaker.Exec(treeMaker.Assign(buildCacheFieldRef(), treeMaker.Ident(resultName))));
+        return treeMaker.If(treeMaker.Parens(javacCompat.binary("EQ", treeMaker.Ident(resultName), treeMaker.Literal(0))),
+                treeMaker.Block(0, computeStatements.toList()), null);
+    }
+
+    /**
+     * 字段的 hash，基本类型使用包装类的静态方法，不装箱
+     */
+    private JCTree.JCExpression buildFieldHash(final LClass lClass, final EqualsHashCodePlan.FieldEntry fieldEntry) {
+        switch (fieldEntry.typeKind()) {
+            case INT:
+            case SHORT:
+            case BYTE:
+            case CHAR:
+                return buildFieldRef(fieldEntry);
+            case BOOLEAN:
+                return buildCall(treeMaker.Ident(names.fromString("Boolean")), MethodConst.HASH_CODE, buildFieldRef(fieldEntry));
+            case LONG:
+                return buildCall(treeMaker.Ident(names.fromString("Long")), MethodConst.HASH_CODE, buildFieldRef(fieldEntry));
+            case FLOAT:
+                return buildCall(treeMaker.Ident(names.fromString("Float")), MethodConst.HASH_CODE, buildFieldRef(fieldEntry));
+            case DOUBLE:
+                return buildCall(treeMaker.Ident(names.fromString("Double")), MethodConst.HASH_CODE, buildFieldRef(fieldEntry));
+            case ARRAY:
+                lClass.importPackage(Arrays.class);
+                return buildCall(treeMaker.Ident(names.fromString("Arrays")),
+                        fieldEntry.primitiveArray() ? MethodConst.HASH_CODE : "deepHashCode", buildFieldRef(fieldEntry));
+            default:
+                // (this.a == null ? 0 : this.a.hashCode())
+                return treeMaker.Parens(treeMaker.Conditional(
+                        javacCompat.binary("EQ", buildFieldRef(fieldEntry), javacCompat.nullLiteral()),
+                        treeMaker.Literal(0),
+                        buildCall(buildFieldRef(fieldEntry), MethodConst.HASH_CODE)));
+        }
+    }
+
+    /**
+     * 类型，泛型参数为通配符：X&lt;?, ...&gt;
+     */
+    private JCTree.JCExpression buildWildcardType(final JCTree.JCClassDecl classDecl) {
+        JCTree.JCIdent ident = treeMaker.Ident(classDecl.name);
+        if (classDecl.typarams.isEmpty()) {
+            return ident;
+        }
+        ListBuffer<JCTree.JCExpression> typeArguments = new ListBuffer<JCTree.JCExpression>();
+        for (int i = 0; i < classDecl.typarams.size(); i++) {
+            typeArguments.append(treeMaker.Wildcard(treeMaker.TypeBoundKind(BoundKind.UNBOUND), null));
+        }
+        return treeMaker.TypeApply(ident, typeArguments.toList());
+    }
+
+    /**
+     * return false;
+     */
+    private JCTree.JCReturn returnFalse() {
+        return treeMaker.Return(treeMaker.Literal(Boolean.FALSE));
+    }
+
+    /**
+     * this.$hashCodeCache
+     */
+    private JCTree.JCFieldAccess buildCacheFieldRef() {
+        return treeMaker.Select(treeMaker.Ident(names.fromString("this")), names.fromString(EqualsHashCodeConst.CACHE_FIELD));
+    }
+
+    /**
+     * this.a
+     */
+    private JCTree.JCFieldAccess buildFieldRef(final EqualsHashCodePlan.FieldEntry fieldEntry) {
+        return treeMaker.Select(treeMaker.Ident(names.fromString("this")), names.fromString(fieldEntry.name()));
+    }
+
+    /**
+     * other.a
+     */
+    private JCTree.JCFieldAccess buildOtherFieldRef(final EqualsHashCodePlan.FieldEntry fieldEntry, final Name otherName) {
+        return treeMaker.Select(treeMaker.Ident(otherName), names.fromString(fieldEntry.name()));
+    }
+
+    /**
+     * target.method(args)，target 为空时调用当前类的方法
+     */
+    private JCTree.JCMethodInvocation buildCall(final JCTree.JCExpression target, final String methodName,
+                                                final JCTree.JCExpression... args) {
+        JCTree.JCExpression method = target == null ? treeMaker.Ident(names.fromString(methodName))
+                : treeMaker.Select(target, names.fromString(methodName));
+        return treeMaker.Apply(List.<JCTree.JCExpression>nil(), method, List.from(args));
+    }
+
+}
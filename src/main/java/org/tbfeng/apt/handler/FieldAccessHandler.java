@@ -0,0 +1,527 @@
+package org.tbfeng.apt.handler;
+
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.util.List;
+import com.sun.tools.javac.util.ListBuffer;
+import com.sun.tools.javac.util.Name;
+import org.tbfeng.apt.annotation.FieldAccess;
+import org.tbfeng.apt.constant.FieldAccessConst;
+import org.tbfeng.apt.domian.FieldAccessPlan;
+import org.tbfeng.apt.domian.LClass;
+import org.tbfeng.apt.domian.MethodSplitter;
+import org.tbfeng.apt.utils.FieldAccessor;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.tools.Diagnostic;
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 根据 @FieldAccess 在类中生成嵌套的字段访问器
+ *
+ * <pre>
+ * &#64;SuppressWarnings({"rawtypes", "unchecked"})
+ * public static final class Access implements FieldAccessor&lt;X&gt; {
+ *     public static final Access INSTANCE = new Access();
+ *     private static final String[] FIELD_NAMES = new String[]{"id", "name"};
+ *     private static final boolean[] WRITABLE = new boolean[]{false, true};
+ *
+ *     public String[] fieldNames() { return FIELD_NAMES.clone(); }
+ *     public int fieldCount() { return 2; }
+ *     public String fieldName(int index) { return FIELD_NAMES[index]; }
+ *     public boolean writable(int index) { return WRITABLE[index]; }
+ *
+ *     public int indexOf(String fieldName) {
+ *         if (fieldName == null) return -1;
+ *         switch (fieldName) { case "id": return 0; case "name": return 1; }
+ *         return -1;
+ *     }
+ *
+ *     public Object get(X object, int index) {
+ *         switch (index) { case 0: return object.id; case 1: return object.name; }
+ *         throw new IndexOutOfBoundsException("X: " + index);
+ *     }
+ *
+ *     public void set(X object, int index, Object value) {
+ *         switch (index) { case 1: object.name = (String) value; return; case 0: throw new UnsupportedOperationException(...); }
+ *         throw new IndexOutOfBoundsException("X: " + index);
+ *     }
+ * }
+ * </pre>
+ * 嵌套类可以直接访问 private 字段；字段很多时按估算的 case 大小把 switch 拆分到多个 private 方法中，
+ * indexOf 按 fieldName.hashCode() 分桶，查找时只 switch 一次再调用一个方法。
+ */
+public class FieldAccessHandler extends AbstractClassHandler<FieldAccessPlan> {
+
+    @Override
+    public Class<? extends Annotation> annotationClass() {
+        return FieldAccess.class;
+    }
+
+    @Override
+    public FieldAccessPlan plan(LClass lClass) {
+        FieldAccessPlan plan = FieldAccessPlan.newInstance();
+        if (lClass.classSymbol().getKind() != ElementKind.CLASS) {
+            return plan.error("@FieldAccess 只能用于类");
+        }
+        if (lClass.classSymbol().getNestingKind() != NestingKind.TOP_LEVEL
+                && !lClass.classSymbol().getModifiers().contains(Modifier.STATIC)) {
+            return plan.error("@FieldAccess 只能用于顶层类或者静态嵌套类");
+        }
+        if (lClass.containsClass(FieldAccessConst.ACCESS_CLASS)) {
+            return plan.error("@FieldAccess 需要生成 " + FieldAccessConst.ACCESS_CLASS + " 类，当前类中已经存在");
+        }
+
+        for (JCTree jcTree : lClass.classDecl().defs) {
+            if (jcTree.getKind() != Tree.Kind.VARIABLE) {
+                continue;
+            }
+            JCTree.JCVariableDecl variableDecl = (JCTree.JCVariableDecl) jcTree;
+            if ((variableDecl.mods.flags & Flags.STATIC) != 0) {
+                continue;
+            }
+            plan.addField(FieldAccessPlan.FieldEntry.newInstance()
+                    .name(variableDecl.name.toString())
+                    .finalField((variableDecl.mods.flags & Flags.FINAL) != 0));
+        }
+        return plan;
+    }
+
+    @Override
+    public void apply(LClass lClass, FieldAccessPlan plan) {
+        if (plan.error() != null) {
+            messager.printMessage(Diagnostic.Kind.ERROR, plan.error(), lClass.classSymbol());
+            return;
+        }
+
+        lClass.importPackage(FieldAccessor.class);
+        JCTree.JCClassDecl classDecl = lClass.classDecl();
+        Map<String, Type> fieldTypeMap = resolveFieldTypes(lClass);
+
+        ListBuffer<JCTree> accessDefs = new ListBuffer<JCTree>();
+        // public static final Access INSTANCE = new Access();
+        accessDefs.append(treeMaker.VarDef(treeMaker.Modifiers(Flags.PUBLIC | Flags.STATIC | Flags.FINAL),
+                names.fromString(FieldAccessConst.INSTANCE_FIELD),
+                treeMaker.Ident(names.fromString(FieldAccessConst.ACCESS_CLASS)),
+                treeMaker.NewClass(null, List.<JCTree.JCExpression>nil(),
+                        treeMaker.Ident(names.fromString(FieldAccessConst.ACCESS_CLASS)), List.<JCTree.JCExpression>nil(), null)));
+        // private static final String[] FIELD_NAMES、boolean[] WRITABLE
+        ListBuffer<JCTree.JCExpression> fieldNames = new ListBuffer<JCTree.JCExpression>();
+        ListBuffer<JCTree.JCExpression> writable = new ListBuffer<JCTree.JCExpression>();
+        for (FieldAccessPlan.FieldEntry fieldEntry : plan.fieldList()) {
+            fieldNames.append(treeMaker.Literal(fieldEntry.name()));
+            writable.append(treeMaker.Literal(!fieldEntry.finalField()));
+        }
+        accessDefs.append(treeMaker.VarDef(treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC | Flags.FINAL),
+                names.fromString(FieldAccessConst.FIELD_NAMES_FIELD),
+                treeMaker.TypeArray(treeMaker.Ident(names.fromString("String"))),
+                treeMaker.NewArray(treeMaker.Ident(names.fromString("String")), List.<JCTree.JCExpression>nil(), fieldNames.toList())));
+        accessDefs.append(treeMaker.VarDef(treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC | Flags.FINAL),
+                names.fromString(FieldAccessConst.WRITABLE_FIELD),
+                treeMaker.TypeArray(javacCompat.primitiveType("BOOLEAN")),
+                treeMaker.NewArray(javacCompat.primitiveType("BOOLEAN"), List.<JCTree.JCExpression>nil(), writable.toList())));
+
+        // public String[] fieldNames()
+        accessDefs.append(buildMethod("fieldNames", treeMaker.TypeArray(treeMaker.Ident(names.fromString("String"))),
+                List.<JCTree.JCVariableDecl>nil(),
+                List.<JCTree.JCStatement>of(treeMaker.Return(buildCall(
+                        treeMaker.Ident(names.fromString(FieldAccessConst.FIELD_NAMES_FIELD)), "clone")))));
+
+        // public int fieldCount()
+        accessDefs.append(buildMethod("fieldCount", javacCompat.primitiveType("INT"),
+                List.<JCTree.JCVariableDecl>nil(),
+                List.<JCTree.JCStatement>of(treeMaker.Return(treeMaker.Literal(plan.fieldList().size())))));
+
+        // public String fieldName(int index)
+        Name indexName = names.fromString("index");
+        accessDefs.append(buildMethod("fieldName", treeMaker.Ident(names.fromString("String")),
+                List.of(buildParam(indexName, javacCompat.primitiveType("INT"))),
+                List.<JCTree.JCStatement>of(treeMaker.Return(treeMaker.Indexed(
+                        treeMaker.Ident(names.fromString(FieldAccessConst.FIELD_NAMES_FIELD)), treeMaker.Ident(indexName))))));
+
+        // public boolean writable(int index)
+        accessDefs.append(buildMethod("writable", javacCompat.primitiveType("BOOLEAN"),
+                List.of(buildParam(indexName, javacCompat.primitiveType("INT"))),
+                List.<JCTree.JCStatement>of(treeMaker.Return(treeMaker.Indexed(
+                        treeMaker.Ident(names.fromString(FieldAccessConst.WRITABLE_FIELD)), treeMaker.Ident(indexName))))));
+
+        accessDefs.appendList(createIndexOfMethods(plan));
+        accessDefs.appendList(createGetMethods(classDecl, plan));
+        accessDefs.appendList(createSetMethods(classDecl, plan, fieldTypeMap));
+
+        // @SuppressWarnings({"rawtypes", "unchecked"})：泛型类使用原始类型，赋值时转换为擦除后的类型
+        JCTree.JCAnnotation suppressWarnings = treeMaker.Annotation(treeMaker.Ident(names.fromString("SuppressWarnings")),
+                List.<JCTree.JCExpression>of(treeMaker.NewArray(null, List.<JCTree.JCExpression>nil(),
+                        List.<JCTree.JCExpression>of(treeMaker.Literal("rawtypes"), treeMaker.Literal("unchecked")))));
+        lClass.insertClass(treeMaker.ClassDef(
+                treeMaker.Modifiers(Flags.PUBLIC | Flags.STATIC | Flags.FINAL, List.of(suppressWarnings)),
+                names.fromString(FieldAccessConst.ACCESS_CLASS),
+                List.<JCTree.JCTypeParameter>nil(),
+                null,
+                List.<JCTree.JCExpression>of(treeMaker.TypeApply(treeMaker.Ident(names.fromString(FieldAccessor.class.getSimpleName())),
+                        List.<JCTree.JCExpression>of(treeMaker.Ident(classDecl.name)))),
+                accessDefs.toList()));
+    }
+
+    /**
+     * 解析字段擦除后的类型，用于 set 时的类型转换
+     * <p>
+     * 需要补全字段类型的符号，javac 的符号补全不是线程安全的，因此放在应用阶段。
+     *
+     * @param lClass 类
+     * @return 字段名称 -> 类型
+     */
+    private Map<String, Type> resolveFieldTypes(final LClass lClass) {
+        Map<String, Type> fieldTypeMap = new HashMap<String, Type>();
+        for (Element element : lClass.classSymbol().getEnclosedElements()) {
+            if (element.getKind() == ElementKind.FIELD) {
+                fieldTypeMap.put(element.getSimpleName().toString(), (Type) types.erasure(element.asType()));
+            }
+        }
+        return fieldTypeMap;
+    }
+
+    /**
+     * indexOf(String)，字段很多时按 fieldName.hashCode() 分桶，每个桶拆分为 indexOf$N(String)
+     * <p>
+     * 查找时只 switch 一次桶号，再调用一个方法：
+     * <pre>
+     * switch ((fieldName.hashCode() &amp; 0x7fffffff) % 31) { case 0: return indexOf$0(fieldName); ... }
+     *
+     * private static int indexOf$0(String fieldName) {
+     *     switch (fieldName.hashCode()) { case 3148879: if (fieldName.equals("f0")) return 0; break; ... }
+     *     return -1;
+     * }
+     * </pre>
+     */
+    private List<JCTree> createIndexOfMethods(final FieldAccessPlan plan) {
+        Name fieldName = names.fromString("fieldName");
+        JCTree.JCStatement notFound = treeMaker.Return(treeMaker.Literal(-1));
+
+        ListBuffer<JCTree> methods = new ListBuffer<JCTree>();
+        ListBuffer<JCTree.JCStatement> statements = new ListBuffer<JCTree.JCStatement>();
+        // switch 不接受 null
+        statements.append(treeMaker.If(treeMaker.Parens(javacCompat.binary("EQ", treeMaker.Ident(fieldName), javacCompat.nullLiteral())),
+                notFound, null));
+        int bucketCount = indexOfBucketCount(plan.fieldList());
+        if (bucketCount == 1) {
+            ListBuffer<JCTree.JCCase> cases = new ListBuffer<JCTree.JCCase>();
+            for (int i = 0; i < plan.fieldList().size(); i++) {
+                cases.append(treeMaker.Case(treeMaker.Literal(plan.fieldList().get(i).name()),
+                        List.<JCTree.JCStatement>of(treeMaker.Return(treeMaker.Literal(i)))));
+            }
+            statements.append(treeMaker.Switch(treeMaker.Ident(fieldName), cases.toList()));
+        } else {
+            // 桶号 -> hashCode -> 下标，按字段顺序
+            java.util.List<Map<Integer, java.util.List<Integer>>> bucketList = new java.util.ArrayList<Map<Integer, java.util.List<Integer>>>();
+            for (int i = 0; i < bucketCount; i++) {
+                bucketList.add(new LinkedHashMap<Integer, java.util.List<Integer>>());
+            }
+            for (int i = 0; i < plan.fieldList().size(); i++) {
+                String name = plan.fieldList().get(i).name();
+                bucketList.get(bucketOf(name.hashCode(), bucketCount))
+                        .computeIfAbsent(name.hashCode(), hash -> new java.util.ArrayList<Integer>()).add(i);
+            }
+
+            ListBuffer<JCTree.JCCase> bucketCases = new ListBuffer<JCTree.JCCase>();
+            for (int bucket = 0; bucket < bucketCount; bucket++) {
+                if (bucketList.get(bucket).isEmpty()) {
+                    continue;
+                }
+                String helperName = "indexOf$" + bucket;
+                methods.append(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC), names.fromString(helperName),
+                        javacCompat.primitiveType("INT"), List.<JCTree.JCTypeParameter>nil(),
+                        List.of(buildParam(fieldName, treeMaker.Ident(names.fromString("String")))), List.<JCTree.JCExpression>nil(),
+                        treeMaker.Block(0, List.<JCTree.JCStatement>of(
+                                treeMaker.Switch(buildCall(treeMaker.Ident(fieldName), "hashCode"), buildHashCases(plan, bucketList.get(bucket))),
+                                treeMaker.Return(treeMaker.Literal(-1)))), null));
+                bucketCases.append(treeMaker.Case(treeMaker.Literal(bucket),
+                        List.<JCTree.JCStatement>of(treeMaker.Return(buildCall(null, helperName, treeMaker.Ident(fieldName))))));
+            }
+            // (fieldName.hashCode() & 0x7fffffff) % bucketCount
+            JCTree.JCExpression bucketIndex = javacCompat.binary("MOD", treeMaker.Parens(javacCompat.binary("BITAND",
+                    buildCall(treeMaker.Ident(fieldName), "hashCode"), treeMaker.Literal(Integer.MAX_VALUE))), treeMaker.Literal(bucketCount));
+            statements.append(treeMaker.Switch(bucketIndex, bucketCases.toList()));
+        }
+        statements.append(treeMaker.Return(treeMaker.Literal(-1)));
+        methods.prepend(buildMethod("indexOf", javacCompat.primitiveType("INT"),
+                List.of(buildParam(fieldName, treeMaker.Ident(names.fromString("String")))), statements.toList()));
+        return methods.toList();
+    }
+
+    /**
+     * 一个桶中按 hashCode 的 case：case 3148879: if (fieldName.equals("f0")) return 0; break;
+     * <p>
+     * hashCode 相同的字段在同一个 case 中依次比较。
+     */
+    private List<JCTree.JCCase> buildHashCases(final FieldAccessPlan plan, final Map<Integer, java.util.List<Integer>> hashMap) {
+        Name fieldName = names.fromString("fieldName");
+        ListBuffer<JCTree.JCCase> cases = new ListBuffer<JCTree.JCCase>();
+        for (Map.Entry<Integer, java.util.List<Integer>> entry : hashMap.entrySet()) {
+            ListBuffer<JCTree.JCStatement> statements = new ListBuffer<JCTree.JCStatement>();
+            for (Integer index : entry.getValue()) {
+                statements.append(treeMaker.If(treeMaker.Parens(buildCall(treeMaker.Ident(fieldName), "equals",
+                                treeMaker.Literal(plan.fieldList().get(index).name()))),
+                        treeMaker.Return(treeMaker.Literal(index)), null));
+            }
+            statements.append(treeMaker.Break(null));
+            cases.append(treeMaker.Case(treeMaker.Literal(entry.getKey()), statements.toList()));
+        }
+        return cases.toList();
+    }
+
+    /**
+     * indexOf 的桶数，只有一个桶时不拆分
+     * <p>
+     * 按平均每个桶不超过方法大小上限计算最少的桶数；hashCode 分布不均匀时在最少桶数的两倍以内增加桶数，
+     * 取最大的桶最小的桶数。indexOf 本身每个桶只有跳转表的一项和一次调用，字段极多时可能超过上限。
+     */
+    private int indexOfBucketCount(final java.util.List<FieldAccessPlan.FieldEntry> fieldList) {
+        int maxMethodSize = processContext.methodSplitter().maxMethodSize();
+        if (maxMethodSize <= 0 || fieldList.size() <= Math.max(1, maxMethodSize / FieldAccessConst.INDEX_OF_CASE_SIZE)) {
+            return 1;
+        }
+        int namesPerMethod = Math.max(1, maxMethodSize / FieldAccessConst.INDEX_OF_HASH_CASE_SIZE);
+        int minCount = (fieldList.size() + namesPerMethod - 1) / namesPerMethod;
+        int bucketCount = minCount;
+        int minLargest = Integer.MAX_VALUE;
+        for (int count = minCount; count <= minCount * 2; count++) {
+            int[] sizes = new int[count];
+            int largest = 0;
+            for (FieldAccessPlan.FieldEntry fieldEntry : fieldList) {
+                largest = Math.max(largest, ++sizes[bucketOf(fieldEntry.name().hashCode(), count)]);
+            }
+            if (largest < minLargest) {
+                bucketCount = count;
+                minLargest = largest;
+            }
+            if (largest <= namesPerMethod) {
+                break;
+            }
+        }
+        return bucketCount;
+    }
+
+    /**
+     * 与生成的 (hashCode &amp; 0x7fffffff) % bucketCount 一致
+     */
+    private static int bucketOf(final int hashCode, final int bucketCount) {
+        return (hashCode & Integer.MAX_VALUE) % bucketCount;
+    }
+
+    /**
+     * get(X, int)，字段很多时拆分为 get$N(X, int)，按下标范围调用
+     */
+    private List<JCTree> createGetMethods(final JCTree.JCClassDecl classDecl, final FieldAccessPlan plan) {
+        Name objectName = names.fromString("object");
+        ListBuffer<JCTree.JCCase> cases = new ListBuffer<JCTree.JCCase>();
+        for (int i = 0; i < plan.fieldList().size(); i++) {
+            cases.append(treeMaker.Case(treeMaker.Literal(i), List.<JCTree.JCStatement>of(treeMaker.Return(
+                    treeMaker.Select(treeMaker.Ident(objectName), names.fromString(plan.fieldList().get(i).name()))))));
+        }
+        return createIndexedMethods("get", treeMaker.Ident(names.fromString("Object")), classDecl,
+                List.<JCTree.JCVariableDecl>nil(), cases.toList(), FieldAccessConst.GET_CASE_SIZE);
+    }
+
+    /**
+     * set(X, int, Object)，字段很多时拆分为 set$N(X, int, Object)，按下标范围调用
+     */
+    private List<JCTree> createSetMethods(final JCTree.JCClassDecl classDecl, final FieldAccessPlan plan,
+                                          final Map<String, Type> fieldTypeMap) {
+        Name objectName = names.fromString("object");
+        Name valueName = names.fromString("value");
+        ListBuffer<JCTree.JCCase> cases = new ListBuffer<JCTree.JCCase>();
+        for (int i = 0; i < plan.fieldList().size(); i++) {
+            FieldAccessPlan.FieldEntry fieldEntry = plan.fieldList().get(i);
+            JCTree.JCStatement statement;
+            if (fieldEntry.finalField()) {
+                // throw new UnsupportedOperationException("X.a is final");
+                statement = treeMaker.Throw(treeMaker.NewClass(null, List.<JCTree.JCExpression>nil(),
+                        treeMaker.Ident(names.fromString("UnsupportedOperationException")),
+                        List.<JCTree.JCExpression>of(treeMaker.Literal(classDecl.name + "." + fieldEntry.name() + " is final")), null));
+                cases.append(treeMaker.Case(treeMaker.Literal(i), List.of(statement)));
+                continue;
+            }
+            // object.a = (A) value; return;  类型擦除为 Object 时不需要转换
+            Type fieldType = fieldTypeMap.get(fieldEntry.name());
+            JCTree.JCExpression value = fieldType.tsym.getQualifiedName().contentEquals(Object.class.getName())
+                    ? treeMaker.Ident(valueName) : treeMaker.TypeCast(treeMaker.Type(fieldType), treeMaker.Ident(valueName));
+            statement = treeMaker.Exec(treeMaker.Assign(
+                    treeMaker.Select(treeMaker.Ident(objectName), names.fromString(fieldEntry.name())), value));
+            cases.append(treeMaker.Case(treeMaker.Literal(i), List.<JCTree.JCStatement>of(statement, treeMaker.Return(null))));
+        }
+        return createIndexedMethods("set", javacCompat.primitiveType("VOID"), classDecl,
+                List.of(buildParam(valueName, treeMaker.Ident(names.fromString("Object")))), cases.toList(),
+                FieldAccessConst.SET_CASE_SIZE);
+    }
+
+    /**
+     * 按下标 switch 的方法：name(X object, int index, extraParams...)
+     * <p>
+     * 拆分时每个 name$N 包含一段连续的下标，原方法按范围调用：if (index &lt; 27) return name$0(...);
+     * 范围很多时，连续的范围调用再拆分到后续编号的 name$N 中，形成多层调用。
+     *
+     * @param methodName  方法名称
+     * @param restype     返回类型
+     * @param classDecl   原类
+     * @param extraParams index 之后的参数
+     * @param cases       每个下标的 case，case 中需要 return 或者 throw
+     * @param caseSize    估算的每个 case 的字节码大小
+     * @return 方法
+     */
+    private List<JCTree> createIndexedMethods(final String methodName, final JCTree.JCExpression restype,
+                                              final JCTree.JCClassDecl classDecl,
+                                              final List<JCTree.JCVariableDecl> extraParams,
+                                              final List<JCTree.JCCase> cases, final int caseSize) {
+        Name indexName = names.fromString("index");
+        boolean isVoid = restype instanceof JCTree.JCPrimitiveTypeTree
+                && ((JCTree.JCPrimitiveTypeTree) restype).getPrimitiveTypeKind() == javax.lang.model.type.TypeKind.VOID;
+
+        ListBuffer<JCTree> methods = new ListBuffer<JCTree>();
+        ListBuffer<JCTree.JCStatement> statements = new ListBuffer<JCTree.JCStatement>();
+        java.util.List<List<JCTree.JCCase>> groupList = groupCases(cases, caseSize);
+        if (groupList.size() == 1) {
+            statements.append(treeMaker.Switch(treeMaker.Ident(indexName), groupList.get(0)));
+        } else {
+            // 每个范围调用语句 -> 范围的结束下标，范围调用很多时再按连续的范围分层
+            Map<JCTree.JCStatement, Integer> endMap = new IdentityHashMap<JCTree.JCStatement, Integer>();
+            ListBuffer<JCTree.JCStatement> rangeStatements = new ListBuffer<JCTree.JCStatement>();
+            int end = 0;
+            for (int i = 0; i < groupList.size(); i++) {
+                end += groupList.get(i).size();
+                String helperName = methodName + "$" + i;
+                methods.append(buildHelper(helperName, copyType(restype),
+                        buildParams(classDecl, extraParams),
+                        List.<JCTree.JCStatement>of(treeMaker.Switch(treeMaker.Ident(indexName), groupList.get(i)),
+                                buildOutOfBounds(classDecl, indexName))));
+                JCTree.JCStatement rangeStatement = buildRangeCall(helperName, end, isVoid, extraParams);
+                endMap.put(rangeStatement, end);
+                rangeStatements.append(rangeStatement);
+            }
+            int helperCount = groupList.size();
+            statements.appendList(processContext.methodSplitter().splitStatements(rangeStatements.toList(),
+                    MethodSplitter.estimate(buildOutOfBounds(classDecl, indexName)), (index, group) -> {
+                        String helperName = methodName + "$" + (helperCount + index);
+                        methods.append(buildHelper(helperName, copyType(restype),
+                                buildParams(classDecl, extraParams),
+                                group.append(buildOutOfBounds(classDecl, indexName))));
+                        int groupEnd = endMap.get(group.last());
+                        JCTree.JCStatement rangeStatement = buildRangeCall(helperName, groupEnd, isVoid, extraParams);
+                        endMap.put(rangeStatement, groupEnd);
+                        return rangeStatement;
+                    }));
+        }
+        statements.append(buildOutOfBounds(classDecl, indexName));
+        methods.prepend(buildMethod(methodName, restype, buildParams(classDecl, extraParams), statements.toList()));
+        return methods.toList();
+    }
+
+    /**
+     * if (index &lt; end) return name(object, index, extraParams...);  void 方法为 { name(...); return; }
+     */
+    private JCTree.JCStatement buildRangeCall(final String methodName, final int end, final boolean isVoid,
+                                              final List<JCTree.JCVariableDecl> extraParams) {
+        Name indexName = names.fromString("index");
+        ListBuffer<JCTree.JCExpression> args = new ListBuffer<JCTree.JCExpression>();
+        args.append(treeMaker.Ident(names.fromString("object"))).append(treeMaker.Ident(indexName));
+        for (JCTree.JCVariableDecl param : extraParams) {
+            args.append(treeMaker.Ident(param.name));
+        }
+        JCTree.JCMethodInvocation call = buildCall(null, methodName, args.toList().toArray(new JCTree.JCExpression[0]));
+        JCTree.JCStatement callStatement = isVoid
+                ? treeMaker.Block(0, List.<JCTree.JCStatement>of(treeMaker.Exec(call), treeMaker.Return(null)))
+                : treeMaker.Return(call);
+        return treeMaker.If(treeMaker.Parens(javacCompat.binary("LT", treeMaker.Ident(indexName), treeMaker.Literal(end))),
+                callStatement, null);
+    }
+
+    /**
+     * 按方法大小上限把 case 分组
+     */
+    private java.util.List<List<JCTree.JCCase>> groupCases(final List<JCTree.JCCase> cases, final int caseSize) {
+        int maxMethodSize = processContext.methodSplitter().maxMethodSize();
+        int casesPerMethod = maxMethodSize <= 0 ? Integer.MAX_VALUE : Math.max(1, maxMethodSize / caseSize);
+        java.util.List<List<JCTree.JCCase>> groupList = new java.util.ArrayList<List<JCTree.JCCase>>();
+        ListBuffer<JCTree.JCCase> group = new ListBuffer<JCTree.JCCase>();
+        for (JCTree.JCCase jcCase : cases) {
+            if (group.size() >= casesPerMethod) {
+                groupList.add(group.toList());
+                group = new ListBuffer<JCTree.JCCase>();
+            }
+            group.append(jcCase);
+        }
+        groupList.add(group.toList());
+        return groupList;
+    }
+
+    /**
+     * (X object, int index, extraParams...)
+     */
+    private List<JCTree.JCVariableDecl> buildParams(final JCTree.JCClassDecl classDecl,
+                                                    final List<JCTree.JCVariableDecl> extraParams) {
+        ListBuffer<JCTree.JCVariableDecl> params = new ListBuffer<JCTree.JCVariableDecl>();
+        params.append(buildParam(names.fromString("object"), treeMaker.Ident(classDecl.name)));
+        params.append(buildParam(names.fromString("index"), javacCompat.primitiveType("INT")));
+        for (JCTree.JCVariableDecl param : extraParams) {
+            params.append(buildParam(param.name, copyType(param.vartype)));
+        }
+        return params.toList();
+    }
+
+    /**
+     * throw new IndexOutOfBoundsException("X: " + index);
+     */
+    private JCTree.JCThrow buildOutOfBounds(final JCTree.JCClassDecl classDecl, final Name indexName) {
+        return treeMaker.Throw(treeMaker.NewClass(null, List.<JCTree.JCExpression>nil(),
+                treeMaker.Ident(names.fromString("IndexOutOfBoundsException")),
+                List.<JCTree.JCExpression>of(javacCompat.plus(treeMaker.Literal(classDecl.name + ": "), treeMaker.Ident(indexName))),
+                null));
+    }
+
+    /**
+     * 复制类型节点，同一个节点不能出现在语法树的多个位置
+     */
+    private JCTree.JCExpression copyType(final JCTree.JCExpression type) {
+        return new com.sun.tools.javac.tree.TreeCopier<Void>(treeMaker).copy(type);
+    }
+
+    private JCTree.JCVariableDecl buildParam(final Name name, final JCTree.JCExpression type) {
+        return treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), name, type, null);
+    }
+
+    private JCTree.JCMethodDecl buildMethod(final String methodName, final JCTree.JCExpression restype,
+                                            final List<JCTree.JCVariableDecl> params,
+                                            final List<JCTree.JCStatement> statements) {
+        return treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC), names.fromString(methodName), restype,
+                List.<JCTree.JCTypeParameter>nil(), params, List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, statements), null);
+    }
+
+    private JCTree.JCMethodDecl buildHelper(final String methodName, final JCTree.JCExpression restype,
+                                            final List<JCTree.JCVariableDecl> params,
+                                            final List<JCTree.JCStatement> statements) {
+        return treeMaker.MethodDef(treeMaker.Modifiers(Flags.PRIVATE), names.fromString(methodName), restype,
+                List.<JCTree.JCTypeParameter>nil(), params, List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, statements), null);
+    }
+
+    /**
+     * target.method(args)，target 为空时调用当前类的方法
+     */
+    private JCTree.JCMethodInvocation buildCall(final JCTree.JCExpression target, final String methodName,
+                                                final JCTree.JCExpression... args) {
+        JCTree.JCExpression method = target == null ? treeMaker.Ident(names.fromString(methodName))
+                : treeMaker.Select(target, names.fromString(methodName));
+        return treeMaker.Apply(List.<JCTree.JCExpression>nil(), method, List.from(args));
+    }
+
+}
@@ -0,0 +1,364 @@
+package org.tbfeng.apt.handler;
+
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.util.List;
+import com.sun.tools.javac.util.ListBuffer;
+import com.sun.tools.javac.util.Name;
+import org.tbfeng.apt.annotation.RowMapping;
+import org.tbfeng.apt.constant.RowMappingConst;
+import org.tbfeng.apt.domian.LClass;
+import org.tbfeng.apt.domian.MethodSplitter;
+import org.tbfeng.apt.domian.RowMappingPlan;
+import org.tbfeng.apt.utils.AbstractRowMapper;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.lang.annotation.Annotation;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 根据 @RowMapping 在类中生成嵌套的行映射器
+ *
+ * <pre>
+ * public static final class RowMapper extends AbstractRowMapper&lt;X&gt; {
+ *     private static final String[] FIELD_NAMES = new String[]{"id", "age", "name"};
+ *     public static final RowMapper INSTANCE = new RowMapper();
+ *
+ *     public RowMapper() { super(FIELD_NAMES); }
+ *
+ *     protected X mapRow(ResultSet resultSet, int[] columns) throws SQLException {
+ *         X object = new X();
+ *         if (columns[0] &gt; 0) object.id = resultSet.getLong(columns[0]);
+ *         if (columns[1] &gt; 0) { object.age = resultSet.getInt(columns[1]); if (resultSet.wasNull()) object.age = null; }
+ *         if (columns[2] &gt; 0) object.name = resultSet.getString(columns[2]);
+ *         return object;
+ *     }
+ * }
+ * </pre>
+ * 嵌套类可以直接访问 private 字段；字段很多时按估算的大小把赋值拆分到多个 private 方法 mapRow$N 中。
+ */
+public class RowMappingHandler extends AbstractClassHandler<RowMappingPlan> {
+
+    /**
+     * 基本类型 -> ResultSet 的读取方法
+     */
+    private static final Map<TypeKind, String> PRIMITIVE_GETTER_MAP = new HashMap<TypeKind, String>();
+
+    /**
+     * 其他类型（全限定名称） -> ResultSet 的读取方法
+     */
+    private static final Map<String, String> DECLARED_GETTER_MAP = new HashMap<String, String>();
+
+    static {
+        PRIMITIVE_GETTER_MAP.put(TypeKind.BOOLEAN, "getBoolean");
+        PRIMITIVE_GETTER_MAP.put(TypeKind.BYTE, "getByte");
+        PRIMITIVE_GETTER_MAP.put(TypeKind.SHORT, "getShort");
+        PRIMITIVE_GETTER_MAP.put(TypeKind.INT, "getInt");
+        PRIMITIVE_GETTER_MAP.put(TypeKind.LONG, "getLong");
+        PRIMITIVE_GETTER_MAP.put(TypeKind.FLOAT, "getFloat");
+        PRIMITIVE_GETTER_MAP.put(TypeKind.DOUBLE, "getDouble");
+
+        DECLARED_GETTER_MAP.put("java.lang.String", "getString");
+        DECLARED_GETTER_MAP.put("java.math.BigDecimal", "getBigDecimal");
+        DECLARED_GETTER_MAP.put("java.sql.Date", "getDate");
+        DECLARED_GETTER_MAP.put("java.sql.Time", "getTime");
+        DECLARED_GETTER_MAP.put("java.sql.Timestamp", "getTimestamp");
+        // java.sql.Timestamp 是 java.util.Date 的子类
+        DECLARED_GETTER_MAP.put("java.util.Date", "getTimestamp");
+    }
+
+    @Override
+    public Class<? extends Annotation> annotationClass() {
+        return RowMapping.class;
+    }
+
+    @Override
+    public RowMappingPlan plan(LClass lClass) {
+        RowMappingPlan plan = RowMappingPlan.newInstance();
+        if (lClass.classSymbol().getKind() != ElementKind.CLASS) {
+            return plan.error("@RowMapping 只能用于类");
+        }
+        if (lClass.classSymbol().getNestingKind() != NestingKind.TOP_LEVEL
+                && !lClass.classSymbol().getModifiers().contains(Modifier.STATIC)) {
+            return plan.error("@RowMapping 只能用于顶层类或者静态嵌套类");
+        }
+        if (lClass.classSymbol().getModifiers().contains(Modifier.ABSTRACT)) {
+            return plan.error("@RowMapping 不能用于抽象类");
+        }
+        if (!lClass.classDecl().typarams.isEmpty()) {
+            return plan.error("@RowMapping 不支持泛型类");
+        }
+        if (lClass.containsClass(RowMappingConst.ROW_MAPPER_CLASS)) {
+            return plan.error("@RowMapping 需要生成 " + RowMappingConst.ROW_MAPPER_CLASS + " 类，当前类中已经存在");
+        }
+
+        boolean hasConstructor = false;
+        boolean hasNoArgsConstructor = false;
+        for (JCTree jcTree : lClass.classDecl().defs) {
+            if (jcTree.getKind() == Tree.Kind.METHOD) {
+                JCTree.JCMethodDecl methodDecl = (JCTree.JCMethodDecl) jcTree;
+                if (methodDecl.name.contentEquals("<init>")) {
+                    hasConstructor = true;
+                    hasNoArgsConstructor |= methodDecl.params.isEmpty();
+                }
+                continue;
+            }
+            if (jcTree.getKind() != Tree.Kind.VARIABLE) {
+                continue;
+            }
+            JCTree.JCVariableDecl variableDecl = (JCTree.JCVariableDecl) jcTree;
+            if ((variableDecl.mods.flags & (Flags.STATIC | Flags.FINAL)) != 0) {
+                continue;
+            }
+            plan.addFieldName(variableDecl.name.toString());
+        }
+        if (hasConstructor && !hasNoArgsConstructor) {
+            return plan.error("@RowMapping 需要无参构造器");
+        }
+        return plan;
+    }
+
+    @Override
+    public void apply(LClass lClass, RowMappingPlan plan) {
+        if (plan.error() != null) {
+            messager.printMessage(Diagnostic.Kind.ERROR, plan.error(), lClass.classSymbol());
+            return;
+        }
+
+        lClass.importPackage(AbstractRowMapper.class);
+        lClass.importPackage(ResultSet.class);
+        lClass.importPackage(SQLException.class);
+        JCTree.JCClassDecl classDecl = lClass.classDecl();
+        Map<String, TypeMirror> fieldTypeMap = resolveFieldTypes(lClass);
+        Name rowMapperName = names.fromString(RowMappingConst.ROW_MAPPER_CLASS);
+        Name fieldNamesName = names.fromString(RowMappingConst.FIELD_NAMES_FIELD);
+
+        // private static final String[] FIELD_NAMES，只包含可以映射的字段，下标即 columns 的下标
+        ListBuffer<JCTree.JCExpression> fieldNames = new ListBuffer<JCTree.JCExpression>();
+        ListBuffer<JCTree.JCStatement> statements = new ListBuffer<JCTree.JCStatement>();
+        for (String fieldName : plan.fieldNameList()) {
+            JCTree.JCStatement statement = buildMapStatement(fieldName, fieldTypeMap.get(fieldName), fieldNames.size());
+            if (statement == null) {
+                messager.printMessage(Diagnostic.Kind.WARNING, "@RowMapping 不支持字段 " + classDecl.name + "." + fieldName
+                        + " 的类型 " + fieldTypeMap.get(fieldName) + "，忽略", lClass.classSymbol());
+                continue;
+            }
+            fieldNames.append(treeMaker.Literal(fieldName));
+            statements.append(statement);
+        }
+        ListBuffer<JCTree> mapperDefs = new ListBuffer<JCTree>();
+        mapperDefs.append(treeMaker.VarDef(treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC | Flags.FINAL),
+                fieldNamesName,
+                treeMaker.TypeArray(treeMaker.Ident(names.fromString("String"))),
+                treeMaker.NewArray(treeMaker.Ident(names.fromString("String")), List.<JCTree.JCExpression>nil(), fieldNames.toList())));
+        // public static final RowMapper INSTANCE = new RowMapper();  构造器使用 FIELD_NAMES，需要在它之后初始化
+        mapperDefs.append(treeMaker.VarDef(treeMaker.Modifiers(Flags.PUBLIC | Flags.STATIC | Flags.FINAL),
+                names.fromString(RowMappingConst.INSTANCE_FIELD),
+                treeMaker.Ident(rowMapperName),
+                treeMaker.NewClass(null, List.<JCTree.JCExpression>nil(),
+                        treeMaker.Ident(rowMapperName), List.<JCTree.JCExpression>nil(), null)));
+
+        // public RowMapper() { super(FIELD_NAMES); }
+        mapperDefs.append(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC), names.fromString("<init>"), null,
+                List.<JCTree.JCTypeParameter>nil(), List.<JCTree.JCVariableDecl>nil(), List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, List.<JCTree.JCStatement>of(treeMaker.Exec(treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                        treeMaker.Ident(names._super), List.<JCTree.JCExpression>of(treeMaker.Ident(fieldNamesName)))))),
+                null));
+
+        mapperDefs.appendList(createMapRowMethods(classDecl, statements.toList()));
+
+        lClass.insertClass(treeMaker.ClassDef(
+                treeMaker.Modifiers(Flags.PUBLIC | Flags.STATIC | Flags.FINAL),
+                rowMapperName,
+                List.<JCTree.JCTypeParameter>nil(),
+                treeMaker.TypeApply(treeMaker.Ident(names.fromString(AbstractRowMapper.class.getSimpleName())),
+                        List.<JCTree.JCExpression>of(treeMaker.Ident(classDecl.name))),
+                List.<JCTree.JCExpression>nil(),
+                mapperDefs.toList()));
+    }
+
+    /**
+     * 解析字段类型，需要补全字段类型的符号，javac 的符号补全不是线程安全的，因此放在应用阶段
+     *
+     * @param lClass 类
+     * @return 字段名称 -> 类型
+     */
+    private Map<String, TypeMirror> resolveFieldTypes(final LClass lClass) {
+        Map<String, TypeMirror> fieldTypeMap = new HashMap<String, TypeMirror>();
+        for (Element element : lClass.classSymbol().getEnclosedElements()) {
+            if (element.getKind() == ElementKind.FIELD) {
+                fieldTypeMap.put(element.getSimpleName().toString(), element.asType());
+            }
+        }
+        return fieldTypeMap;
+    }
+
+    /**
+     * 单个字段的映射语句，不支持的类型返回 null
+     * <pre>
+     * if (columns[i] &gt; 0) object.a = resultSet.getInt(columns[i]);
+     * if (columns[i] &gt; 0) { object.a = resultSet.getInt(columns[i]); if (resultSet.wasNull()) object.a = null; }
+     * if (columns[i] &gt; 0) object.a = toEnum(A.class, resultSet.getString(columns[i]));
+     * if (columns[i] &gt; 0) object.a = resultSet.getObject(columns[i], A.class);
+     * </pre>
+     *
+     * @param fieldName 字段名称
+     * @param fieldType 字段类型
+     * @param index     columns 的下标
+     * @return 语句
+     */
+    private JCTree.JCStatement buildMapStatement(final String fieldName, final TypeMirror fieldType, final int index) {
+        Name resultSetName = names.fromString("resultSet");
+        JCTree.JCExpression field = treeMaker.Select(treeMaker.Ident(names.fromString("object")), names.fromString(fieldName));
+        JCTree.JCStatement statement;
+        if (fieldType.getKind().isPrimitive()) {
+            String getter = PRIMITIVE_GETTER_MAP.get(fieldType.getKind());
+            if (getter == null) {
+                // char 没有对应的读取方法
+                return null;
+            }
+            statement = treeMaker.Exec(treeMaker.Assign(field, buildGet(getter, index)));
+        } else if (fieldType.getKind() == TypeKind.ARRAY) {
+            if (((ArrayType) fieldType).getComponentType().getKind() != TypeKind.BYTE) {
+                return null;
+            }
+            statement = treeMaker.Exec(treeMaker.Assign(field, buildGet("getBytes", index)));
+        } else if (fieldType.getKind() == TypeKind.DECLARED) {
+            DeclaredType declaredType = (DeclaredType) fieldType;
+            if (!declaredType.getTypeArguments().isEmpty()) {
+                return null;
+            }
+            String qualifiedName = ((Type) fieldType).tsym.getQualifiedName().toString();
+            PrimitiveType primitiveType = unboxedType(fieldType);
+            if (primitiveType != null) {
+                String getter = PRIMITIVE_GETTER_MAP.get(primitiveType.getKind());
+                if (getter == null) {
+                    return null;
+                }
+                // 基本类型的读取方法在 NULL 时返回 0，需要用 wasNull 还原
+                statement = treeMaker.Block(0, List.<JCTree.JCStatement>of(
+                        treeMaker.Exec(treeMaker.Assign(field, buildGet(getter, index))),
+                        treeMaker.If(treeMaker.Parens(treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                                        treeMaker.Select(treeMaker.Ident(resultSetName), names.fromString("wasNull")),
+                                        List.<JCTree.JCExpression>nil())),
+                                treeMaker.Exec(treeMaker.Assign(copy(field), javacCompat.nullLiteral())), null)));
+            } else if (DECLARED_GETTER_MAP.containsKey(qualifiedName)) {
+                statement = treeMaker.Exec(treeMaker.Assign(field, buildGet(DECLARED_GETTER_MAP.get(qualifiedName), index)));
+            } else if (declaredType.asElement().getKind() == ElementKind.ENUM) {
+                statement = treeMaker.Exec(treeMaker.Assign(field, treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                        treeMaker.Ident(names.fromString("toEnum")),
+                        List.<JCTree.JCExpression>of(classLiteral(fieldType), buildGet("getString", index)))));
+            } else {
+                statement = treeMaker.Exec(treeMaker.Assign(field, treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                        treeMaker.Select(treeMaker.Ident(resultSetName), names.fromString("getObject")),
+                        List.<JCTree.JCExpression>of(buildColumn(index), classLiteral(fieldType)))));
+            }
+        } else {
+            return null;
+        }
+        return treeMaker.If(treeMaker.Parens(javacCompat.binary("GT", buildColumn(index), treeMaker.Literal(0))),
+                statement, null);
+    }
+
+    /**
+     * mapRow(ResultSet, int[])，语句很多时拆分为 mapRow$N(X, ResultSet, int[])，方法很多时再分层调用
+     */
+    private List<JCTree> createMapRowMethods(final JCTree.JCClassDecl classDecl, final List<JCTree.JCStatement> statements) {
+        Name objectName = names.fromString("object");
+        MethodSplitter methodSplitter = processContext.methodSplitter();
+        ListBuffer<JCTree> methods = new ListBuffer<JCTree>();
+        ListBuffer<JCTree.JCStatement> mainStatements = new ListBuffer<JCTree.JCStatement>();
+        // X object = new X();
+        mainStatements.append(treeMaker.VarDef(treeMaker.Modifiers(0), objectName, treeMaker.Ident(classDecl.name),
+                treeMaker.NewClass(null, List.<JCTree.JCExpression>nil(), treeMaker.Ident(classDecl.name),
+                        List.<JCTree.JCExpression>nil(), null)));
+        JCTree.JCStatement returnStatement = treeMaker.Return(treeMaker.Ident(objectName));
+        mainStatements.appendList(methodSplitter.splitStatements(statements,
+                MethodSplitter.estimate(mainStatements.toList()) + MethodSplitter.estimate(returnStatement), (index, group) -> {
+                    String helperName = RowMappingConst.MAP_ROW_METHOD + "$" + index;
+                    ListBuffer<JCTree.JCVariableDecl> params = new ListBuffer<JCTree.JCVariableDecl>();
+                    params.append(buildParam(objectName, treeMaker.Ident(classDecl.name)));
+                    params.appendList(buildMapRowParams());
+                    methods.append(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PRIVATE), names.fromString(helperName),
+                            javacCompat.primitiveType("VOID"), List.<JCTree.JCTypeParameter>nil(), params.toList(),
+                            List.<JCTree.JCExpression>of(treeMaker.Ident(names.fromString(SQLException.class.getSimpleName()))),
+                            treeMaker.Block(0, group), null));
+                    return treeMaker.Exec(treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                            treeMaker.Ident(names.fromString(helperName)), List.<JCTree.JCExpression>of(treeMaker.Ident(objectName),
+                                    treeMaker.Ident(names.fromString("resultSet")), treeMaker.Ident(names.fromString("columns")))));
+                }));
+        mainStatements.append(returnStatement);
+
+        methods.prepend(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PROTECTED),
+                names.fromString(RowMappingConst.MAP_ROW_METHOD), treeMaker.Ident(classDecl.name),
+                List.<JCTree.JCTypeParameter>nil(), buildMapRowParams(),
+                List.<JCTree.JCExpression>of(treeMaker.Ident(names.fromString(SQLException.class.getSimpleName()))),
+                treeMaker.Block(0, mainStatements.toList()), null));
+        return methods.toList();
+    }
+
+    /**
+     * (ResultSet resultSet, int[] columns)
+     */
+    private List<JCTree.JCVariableDecl> buildMapRowParams() {
+        return List.of(buildParam(names.fromString("resultSet"), treeMaker.Ident(names.fromString(ResultSet.class.getSimpleName()))),
+                buildParam(names.fromString("columns"), treeMaker.TypeArray(javacCompat.primitiveType("INT"))));
+    }
+
+    /**
+     * resultSet.getter(columns[index])
+     */
+    private JCTree.JCMethodInvocation buildGet(final String getter, final int index) {
+        return treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                treeMaker.Select(treeMaker.Ident(names.fromString("resultSet")), names.fromString(getter)),
+                List.<JCTree.JCExpression>of(buildColumn(index)));
+    }
+
+    /**
+     * columns[index]
+     */
+    private JCTree.JCExpression buildColumn(final int index) {
+        return treeMaker.Indexed(treeMaker.Ident(names.fromString("columns")), treeMaker.Literal(index));
+    }
+
+    /**
+     * A.class
+     */
+    private JCTree.JCExpression classLiteral(final TypeMirror type) {
+        return treeMaker.Select(treeMaker.Type((Type) types.erasure(type)), names._class);
+    }
+
+    /**
+     * 包装类型对应的基本类型，不是包装类型时返回 null
+     */
+    private PrimitiveType unboxedType(final TypeMirror type) {
+        try {
+            return types.unboxedType(type);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private JCTree.JCExpression copy(final JCTree.JCExpression expression) {
+        return new com.sun.tools.javac.tree.TreeCopier<Void>(treeMaker).copy(expression);
+    }
+
+    private JCTree.JCVariableDecl buildParam(final Name name, final JCTree.JCExpression type) {
+        return treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), name, type, null);
+    }
+
+}
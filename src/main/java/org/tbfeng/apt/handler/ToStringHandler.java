@@ -0,0 +1,1007 @@
+package org.tbfeng.apt.handler;
+
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeCopier;
+import com.sun.tools.javac.util.List;
+import com.sun.tools.javac.util.ListBuffer;
+import com.sun.tools.javac.util.Name;
+import org.tbfeng.apt.annotation.ToString;
+import org.tbfeng.apt.constant.MethodConst;
+import org.tbfeng.apt.constant.OptionConst;
+import org.tbfeng.apt.constant.ToStringConst;
+import org.tbfeng.apt.domian.LClass;
+import org.tbfeng.apt.domian.LField;
+import org.tbfeng.apt.domian.LObject;
+import org.tbfeng.apt.domian.MethodSplitter;
+import org.tbfeng.apt.domian.ToStringPlan;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * toString() 实现策略
+ *
+ * @see ToStringConst
+ */
+public class ToStringHandler extends AbstractClassHandler<ToStringPlan> {
+
+    /**
+     * 支持的实现方式
+     */
+    private static final Set<String> STRATEGY_SET = new LinkedHashSet<String>(
+            Arrays.asList(ToStringConst.CONCAT, ToStringConst.BUILDER, ToStringConst.CHUNKED));
+
+    /**
+     * 类型 -> 预估的输出长度
+     */
+    private static final Map<String, Integer> LENGTH_ESTIMATE_MAP = new HashMap<String, Integer>();
+
+    /**
+     * 未知类型的预估长度
+     */
+    private static final int DEFAULT_LENGTH_ESTIMATE = 16;
+
+    /**
+     * 数组的预估长度
+     */
+    private static final int ARRAY_LENGTH_ESTIMATE = 32;
+
+    private static final String STRING_BUILDER = "StringBuilder";
+
+    /**
+     * 每个字段 append 的字节码大小估算值，用于拆分时确定每条语句的字段数
+     */
+    private static final int FIELD_SIZE_ESTIMATE = 16;
+
+    static {
+        putLengthEstimate(5, "boolean", "Boolean");
+        putLengthEstimate(4, "byte", "Byte");
+        putLengthEstimate(6, "short", "Short");
+        putLengthEstimate(1, "char", "Character");
+        putLengthEstimate(11, "int", "Integer");
+        putLengthEstimate(20, "long", "Long");
+        putLengthEstimate(15, "float", "Float");
+        putLengthEstimate(24, "double", "Double");
+    }
+
+    private static void putLengthEstimate(int length, String... typeNames) {
+        for (String typeName : typeNames) {
+            LENGTH_ESTIMATE_MAP.put(typeName, length);
+            LENGTH_ESTIMATE_MAP.put("java.lang." + typeName, length);
+        }
+    }
+
+    @Override
+    public Class<? extends Annotation> annotationClass() {
+        return ToString.class;
+    }
+
+    @Override
+    public Set<String> supportedOptions() {
+        return Collections.singleton(OptionConst.TO_STRING_STRATEGY);
+    }
+
+    @Override
+    public ToStringPlan plan(LClass lClass) {
+        String fullClassName = lClass.classSymbol().fullname.toString();
+        ToString toString = lClass.classSymbol().getAnnotation(ToString.class);
+        ToStringPlan plan = ToStringPlan.newInstance()
+                .className(fullClassName.substring(fullClassName.lastIndexOf('.') + 1))
+                .classAnnotated(toString != null)
+                .existsToString(lClass.containsMethod(MethodConst.TO_STRING));
+        if (!plan.classAnnotated() || plan.existsToString()) {
+            return plan;
+        }
+        plan.existsAppendTo(lClass.containsMethod(MethodConst.APPEND_TO, STRING_BUILDER));
+        plan.strategy(getStrategy(toString))
+                .cache(toString.cache())
+                .snapshot(toString.snapshot());
+
+        // 字段上的注解覆盖类上的限制
+        Map<String, ToString> fieldAnnotationMap = new HashMap<String, ToString>();
+        for (Element element : lClass.annotatedElementList(ToString.class)) {
+            if (element.getKind() == ElementKind.FIELD) {
+                fieldAnnotationMap.put(element.getSimpleName().toString(), element.getAnnotation(ToString.class));
+            }
+        }
+
+        int capacity = plan.className().length() + 2;
+        for (JCTree jcTree : lClass.classDecl().defs) {
+            if (jcTree.getKind() == Tree.Kind.VARIABLE) {
+                JCTree.JCVariableDecl variableDecl = (JCTree.JCVariableDecl) jcTree;
+                // 类型为 String 可以考虑加单引号，但是没必要。，判断逻辑比较麻烦
+                String typeName = variableDecl.vartype.toString();
+                String fieldName = variableDecl.name.toString();
+                ToString fieldToString = fieldAnnotationMap.get(fieldName);
+                ToStringPlan.FieldEntry fieldEntry = ToStringPlan.FieldEntry.newInstance()
+                        .name(fieldName)
+                        .typeName(typeName)
+                        .array(typeName.endsWith("[]"))
+                        .maxElements(fieldToString != null && fieldToString.maxElements() >= 0
+                                ? fieldToString.maxElements() : toString.maxElements())
+                        .maxLength(fieldToString != null && fieldToString.maxLength() >= 0
+                                ? fieldToString.maxLength() : toString.maxLength());
+                plan.addField(fieldEntry);
+                if ((variableDecl.mods.flags & Flags.FINAL) == 0) {
+                    plan.addNonFinalField(fieldEntry.name());
+                }
+                capacity += fieldLiteral(plan, plan.fieldList().size() - 1).length() + estimateLength(fieldEntry);
+            }
+        }
+        return plan.capacity(capacity);
+    }
+
+    @Override
+    public void apply(LClass lClass, ToStringPlan plan) {
+        if (!plan.classAnnotated()) {
+            messager.printMessage(Diagnostic.Kind.WARNING,
+                    "字段上的 @ToString 只有在类上同时标记 @ToString 时生效", lClass.classSymbol());
+            return;
+        }
+        if (plan.existsToString()) {
+            return;
+        }
+        if (!STRATEGY_SET.contains(plan.strategy())) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    "@ToString 不支持的实现方式: " + plan.strategy() + "，可选值: " + STRATEGY_SET, lClass.classSymbol());
+            return;
+        }
+        if (plan.cache() && !plan.nonFinalFieldList().isEmpty()) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    "@ToString(cache = true) 要求所有字段为 final，以下字段不是: " + plan.nonFinalFieldList(), lClass.classSymbol());
+            return;
+        }
+        if (plan.snapshot() && (lClass.containsMethod(MethodConst.SNAPSHOT) || lClass.containsClass(ToStringConst.SNAPSHOT_CLASS))) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    "@ToString(snapshot = true) 需要生成 snapshot() 方法和 " + ToStringConst.SNAPSHOT_CLASS + " 类，当前类中已经存在", lClass.classSymbol());
+            return;
+        }
+
+        resolveFieldTypes(lClass, plan);
+        if (!plan.existsAppendTo()) {
+            for (JCTree.JCMethodDecl methodDecl : processContext.methodSplitter().split(createAppendToMethod(lClass, plan))) {
+                lClass.insertMethod(methodDecl);
+            }
+        }
+        generateToStringMethod(lClass, plan);
+        if (plan.snapshot()) {
+            generateSnapshot(lClass, plan);
+        }
+    }
+
+    /**
+     * 生成快照类型和 snapshot() 方法
+     * <p>
+     * snapshot() 只复制基本类型的值和引用，不做任何格式化；格式化在快照的 toString()、appendTo() 中完成，
+     * 可以交给异步日志的线程执行。引用指向的对象不会复制，快照之后被修改时输出的是修改后的内容。
+     *
+     * <pre>
+     * public static final class Snapshot&lt;T&gt; {
+     *     int a;
+     *     List&lt;T&gt; b;
+     *     public StringBuilder appendTo(StringBuilder sb) { ... }
+     *     public String toString() { return appendTo(new StringBuilder(64)).toString(); }
+     * }
+     *
+     * public Snapshot&lt;T&gt; snapshot() {
+     *     return snapshot(new Snapshot&lt;T&gt;());
+     * }
+     *
+     * // 复用已有的快照对象
+     * public Snapshot&lt;T&gt; snapshot(Snapshot&lt;T&gt; target) {
+     *     target.a = this.a;
+     *     target.b = this.b;
+     *     return target;
+     * }
+     * </pre>
+     */
+    private void generateSnapshot(final LClass lClass, final ToStringPlan plan) {
+        JCTree.JCClassDecl classDecl = lClass.classDecl();
+        Map<String, JCTree.JCVariableDecl> variableDeclMap = new HashMap<String, JCTree.JCVariableDecl>();
+        for (JCTree jcTree : classDecl.defs) {
+            if (jcTree.getKind() == Tree.Kind.VARIABLE) {
+                JCTree.JCVariableDecl variableDecl = (JCTree.JCVariableDecl) jcTree;
+                variableDeclMap.put(variableDecl.name.toString(), variableDecl);
+            }
+        }
+
+        // 快照的字段与原类同名，输出的代码可以直接复用
+        TreeCopier<Void> treeCopier = new TreeCopier<Void>(treeMaker);
+        ListBuffer<JCTree> snapshotDefs = new ListBuffer<JCTree>();
+        Name targetName = names.fromString("target");
+        ListBuffer<JCTree.JCStatement> copyStatements = new ListBuffer<JCTree.JCStatement>();
+        for (ToStringPlan.FieldEntry fieldEntry : plan.fieldList()) {
+            Name fieldName = names.fromString(fieldEntry.name());
+            snapshotDefs.append(treeMaker.VarDef(treeMaker.Modifiers(0), fieldName,
+                    treeCopier.copy(variableDeclMap.get(fieldEntry.name()).vartype), null));
+            copyStatements.append(treeMaker.Exec(treeMaker.Assign(
+                    treeMaker.Select(treeMaker.Ident(targetName), fieldName), buildFieldRef(fieldEntry, true))));
+        }
+        snapshotDefs.appendList(List.from(processContext.methodSplitter().split(createAppendToMethod(lClass, plan))));
+        snapshotDefs.append(createToStringMethod(List.<JCTree.JCStatement>of(createToStringWrapper(plan))));
+
+        lClass.insertClass(treeMaker.ClassDef(treeMaker.Modifiers(Flags.PUBLIC | Flags.STATIC | Flags.FINAL),
+                names.fromString(ToStringConst.SNAPSHOT_CLASS),
+                treeCopier.copy(classDecl.typarams),
+                null,
+                List.<JCTree.JCExpression>nil(),
+                snapshotDefs.toList()));
+
+        // snapshot(Snapshot<T> target)
+        copyStatements.append(treeMaker.Return(treeMaker.Ident(targetName)));
+        JCTree.JCVariableDecl targetParam = treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), targetName,
+                buildSnapshotType(classDecl), null);
+        JCTree.JCMethodDecl copyMethod = treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC),
+                names.fromString(MethodConst.SNAPSHOT),
+                buildSnapshotType(classDecl),
+                List.<JCTree.JCTypeParameter>nil(),
+                List.of(targetParam),
+                List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, copyStatements.toList()),
+                null);
+        for (JCTree.JCMethodDecl methodDecl : processContext.methodSplitter().split(copyMethod)) {
+            lClass.insertMethod(methodDecl);
+        }
+
+        // snapshot()
+        JCTree.JCNewClass newSnapshot = treeMaker.NewClass(null, List.<JCTree.JCExpression>nil(),
+                buildSnapshotType(classDecl), List.<JCTree.JCExpression>nil(), null);
+        JCTree.JCStatement returnSnapshot = treeMaker.Return(buildCall(null, MethodConst.SNAPSHOT, newSnapshot));
+        lClass.insertMethod(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC),
+                names.fromString(MethodConst.SNAPSHOT),
+                buildSnapshotType(classDecl),
+                List.<JCTree.JCTypeParameter>nil(),
+                List.<JCTree.JCVariableDecl>nil(),
+                List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, List.of(returnSnapshot)),
+                null));
+    }
+
+    /**
+     * 快照类型，泛型参数与原类一致：Snapshot&lt;T, ...&gt;
+     */
+    private JCTree.JCExpression buildSnapshotType(final JCTree.JCClassDecl classDecl) {
+        JCTree.JCIdent snapshotIdent = treeMaker.Ident(names.fromString(ToStringConst.SNAPSHOT_CLASS));
+        if (classDecl.typarams.isEmpty()) {
+            return snapshotIdent;
+        }
+        ListBuffer<JCTree.JCExpression> typeArguments = new ListBuffer<JCTree.JCExpression>();
+        for (JCTree.JCTypeParameter typeParameter : classDecl.typarams) {
+            typeArguments.append(treeMaker.Ident(typeParameter.name));
+        }
+        return treeMaker.TypeApply(snapshotIdent, typeArguments.toList());
+    }
+
+    /**
+     * 创建一个 appendTo(StringBuilder) 方法
+     * <p>
+     * 字段类型同样提供 appendTo 时直接写入同一个 StringBuilder，不再为子对象创建中间字符串。
+     *
+     * <pre>
+     * public StringBuilder appendTo(StringBuilder sb) {
+     *     sb.append("X{a=").append(this.a).append(", child=");
+     *     if (this.child == null) sb.append("null"); else this.child.appendTo(sb);
+     *     return sb.append("}");
+     * }
+     * </pre>
+     */
+    private JCTree.JCMethodDecl createAppendToMethod(LClass lClass, ToStringPlan plan) {
+        Name sbName = names.fromString("sb");
+        JCTree.JCVariableDecl param = treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), sbName,
+                treeMaker.Ident(names.fromString(STRING_BUILDER)), null);
+        int chunkSize = ToStringConst.CHUNKED.equals(plan.strategy()) ? ToStringConst.CHUNK_SIZE : Integer.MAX_VALUE;
+        List<JCTree.JCStatement> statements = createAppendStatements(lClass, plan, sbName, chunkSize, false);
+        // 超过方法大小上限时缩短每条语句，再按语句拆分方法
+        MethodSplitter methodSplitter = processContext.methodSplitter();
+        if (methodSplitter.exceeds(statements)) {
+            int splitChunkSize = Math.max(1, methodSplitter.maxMethodSize() / 2 / FIELD_SIZE_ESTIMATE);
+            if (splitChunkSize < chunkSize) {
+                statements = createAppendStatements(lClass, plan, sbName, splitChunkSize, false);
+            }
+        }
+
+        return treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC),
+                names.fromString(MethodConst.APPEND_TO),
+                treeMaker.Ident(names.fromString(STRING_BUILDER)),
+                List.<JCTree.JCTypeParameter>nil(),
+                List.of(param),
+                List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, statements),
+                null);
+    }
+
+    /**
+     * 解析字段类型
+     * <p>
+     * 1. 是否提供 appendTo(StringBuilder)，只在生成 appendTo、快照时使用；
+     * 2. 是否为 Collection、Map、CharSequence，用于限制输出的长度。
+     * <p>
+     * 需要补全字段类型的符号，javac 的符号补全不是线程安全的，因此放在应用阶段。
+     *
+     * @param lClass 类
+     * @param plan   分析结果
+     */
+    private void resolveFieldTypes(final LClass lClass, final ToStringPlan plan) {
+        Map<String, ToStringPlan.FieldEntry> fieldMap = new HashMap<String, ToStringPlan.FieldEntry>();
+        for (ToStringPlan.FieldEntry fieldEntry : plan.fieldList()) {
+            fieldMap.put(fieldEntry.name(), fieldEntry);
+        }
+
+        for (Element element : lClass.classSymbol().getEnclosedElements()) {
+            if (element.getKind() != ElementKind.FIELD) {
+                continue;
+            }
+            ToStringPlan.FieldEntry fieldEntry = fieldMap.get(element.getSimpleName().toString());
+            if (fieldEntry == null || fieldEntry.array()) {
+                continue;
+            }
+
+            TypeMirror fieldType = element.asType();
+            fieldEntry.collection(isAssignable(fieldType, Collection.class))
+                    .map(isAssignable(fieldType, Map.class))
+                    .charSequence(isAssignable(fieldType, CharSequence.class));
+            if (!plan.existsAppendTo() || plan.snapshot()) {
+                fieldEntry.nested(hasAppendTo(fieldType));
+            }
+        }
+    }
+
+    /**
+     * 字段类型是否为指定类型的子类型，忽略泛型
+     *
+     * @param fieldType 字段类型
+     * @param clazz     类型
+     * @return 是否
+     */
+    private boolean isAssignable(final TypeMirror fieldType, final Class<?> clazz) {
+        if (fieldType.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        TypeElement typeElement = elements.getTypeElement(clazz.getName());
+        return typeElement != null
+                && types.isAssignable(types.erasure(fieldType), types.erasure(typeElement.asType()));
+    }
+
+    /**
+     * 类型是否提供 appendTo(StringBuilder)
+     * <p>
+     * 1. 已经声明了 appendTo(StringBuilder)，包括依赖中已经编译过的类；
+     * 2. 标记了 @ToString 且没有手写 toString()，本轮或者后续轮次会生成。
+     *
+     * @param fieldType 字段类型
+     * @return 是否
+     */
+    private static boolean hasAppendTo(final TypeMirror fieldType) {
+        // 基本类型、类型变量等不会提供
+        if (fieldType.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        Symbol.ClassSymbol classSymbol = (Symbol.ClassSymbol) ((DeclaredType) fieldType).asElement();
+        // JDK 中的类不会提供，避免补全大量无关的符号
+        if (classSymbol.getQualifiedName().toString().startsWith("java.")) {
+            return false;
+        }
+
+        boolean existsToString = false;
+        for (Element element : classSymbol.getEnclosedElements()) {
+            if (element.getKind() != ElementKind.METHOD) {
+                continue;
+            }
+            Symbol.MethodSymbol methodSymbol = (Symbol.MethodSymbol) element;
+            String methodName = methodSymbol.getSimpleName().toString();
+            if (MethodConst.APPEND_TO.equals(methodName)
+                    && methodSymbol.getParameters().size() == 1
+                    && methodSymbol.getParameters().get(0).type.tsym.getQualifiedName().contentEquals(StringBuilder.class.getName())) {
+                return true;
+            }
+            if (MethodConst.TO_STRING.equals(methodName) && methodSymbol.getParameters().isEmpty()) {
+                existsToString = true;
+            }
+        }
+        return !existsToString && classSymbol.getAnnotation(ToString.class) != null;
+    }
+
+    /**
+     * 创建一个 toString() 方法
+     */
+    private void generateToStringMethod(LClass lClass, ToStringPlan plan) {
+        List<JCTree.JCStatement> statements = createToStringStatements(lClass, plan);
+        if (plan.cache()) {
+            statements = createCachedStatements(lClass, statements);
+        }
+        lClass.insertMethod(createToStringMethod(statements));
+    }
+
+    /**
+     * 创建 toString() 方法声明
+     *
+     * @param statements 方法体
+     * @return 方法声明
+     */
+    private JCTree.JCMethodDecl createToStringMethod(final List<JCTree.JCStatement> statements) {
+        // 新增一个方法
+        final JCTree.JCModifiers modifiers = treeMaker.Modifiers(Flags.PUBLIC);
+        Name name = names.fromString(MethodConst.TO_STRING);
+
+        // 表达式
+        // 这里缺少了 @Override 注解
+        JCTree.JCBlock jcBlock = treeMaker.Block(0, statements);
+        JCTree.JCExpression restype = treeMaker.Ident(names.fromString("String"));
+        return treeMaker.MethodDef(modifiers,
+                name,
+                restype,
+                List.<JCTree.JCTypeParameter>nil(),
+                List.<JCTree.JCVariableDecl>nil(),
+                List.<JCTree.JCExpression>nil(),
+                jcBlock,
+                null);
+    }
+
+    /**
+     * return appendTo(new StringBuilder(capacity)).toString();
+     */
+    private JCTree.JCReturn createToStringWrapper(final ToStringPlan plan) {
+        JCTree.JCMethodInvocation appendTo = treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                treeMaker.Ident(names.fromString(MethodConst.APPEND_TO)),
+                List.<JCTree.JCExpression>of(newStringBuilder(plan.capacity())));
+        return treeMaker.Return(buildToString(appendTo));
+    }
+
+    /**
+     * 缓存结果
+     * <p>
+     * 单次检查的延迟初始化：所有字段都是 final，多个线程同时计算得到的结果相同；
+     * String 本身是不可变的，即使通过数据竞争读取到也是完整的对象，因此不需要加锁或者 volatile。
+     *
+     * <pre>
+     * String $result = this.$toStringCache;
+     * if ($result == null) {
+     *     $result = ...;
+     *     this.$toStringCache = $result;
+     * }
+     * return $result;
+     * </pre>
+     *
+     * @param lClass     类
+     * @param statements 原有的语句，最后一条为 return
+     * @return 结果
+     */
+    private List<JCTree.JCStatement> createCachedStatements(final LClass lClass,
+                                                            final List<JCTree.JCStatement> statements) {
+        lClass.insertField(LField.newInstance()
+                .modifiers(Flags.PRIVATE | Flags.TRANSIENT)
+                .type(String.class)
+                .name(ToStringConst.CACHE_FIELD)
+                .value(new LObject(processContext)));
+
+        Name resultName = names.fromString("$result");
+        ListBuffer<JCTree.JCStatement> computeStatements = new ListBuffer<JCTree.JCStatement>();
+        for (JCTree.JCStatement statement : statements) {
+            if (statement instanceof JCTree.JCReturn) {
+                computeStatements.append(treeMaker.Exec(treeMaker.Assign(treeMaker.Ident(resultName),
+                        ((JCTree.JCReturn) statement).expr)));
+            } else {
+                computeStatements.append(statement);
+            }
+        }
+        computeStatements.append(treeMaker.Exec(treeMaker.Assign(buildCacheFieldRef(), treeMaker.Ident(resultName))));
+
+        JCTree.JCVariableDecl resultDecl = treeMaker.VarDef(treeMaker.Modifiers(0), resultName,
+                treeMaker.Ident(names.fromString("String")), buildCacheFieldRef());
+        JCTree.JCIf ifNull = treeMaker.If(treeMaker.Parens(javacCompat.binary("EQ",
+                treeMaker.Ident(resultName), javacCompat.nullLiteral())),
+                treeMaker.Block(0, computeStatements.toList()), null);
+        return List.<JCTree.JCStatement>of(resultDecl, ifNull, treeMaker.Return(treeMaker.Ident(resultName)));
+    }
+
+    /**
+     * this.$toStringCache
+     */
+    private JCTree.JCFieldAccess buildCacheFieldRef() {
+        return treeMaker.Select(treeMaker.Ident(names.fromString("this")), names.fromString(ToStringConst.CACHE_FIELD));
+    }
+
+    /**
+     * 构建 toString() 语句
+     *
+     * @param lClass 类
+     * @param plan   分析结果
+     * @return 结果
+     */
+    private List<JCTree.JCStatement> createToStringStatements(final LClass lClass,
+                                                              final ToStringPlan plan) {
+        // 已生成 appendTo 时只做一层包装；concat 方式在没有嵌套字段时保持字符串拼接
+        boolean limited = containsLimitedField(plan);
+        if (!plan.existsAppendTo()
+                && (!ToStringConst.CONCAT.equals(plan.strategy()) || containsNestedField(plan) || limited)) {
+            return List.<JCTree.JCStatement>of(createToStringWrapper(plan));
+        }
+        List<JCTree.JCStatement> statements;
+        if (ToStringConst.BUILDER.equals(plan.strategy()) && !limited) {
+            statements = createStringBuilderStatements(lClass, plan);
+        } else if (ToStringConst.CHUNKED.equals(plan.strategy()) || limited) {
+            // 限制输出时需要循环，只能使用语句
+            statements = createChunkedStatements(lClass, plan);
+        } else {
+            // 基于字符串拼接的实现
+            statements = createStringConcatStatements(lClass, plan);
+        }
+
+        // 超过方法大小上限时改为调用 appendTo，由 appendTo 拆分
+        if (!plan.existsAppendTo() && processContext.methodSplitter().exceeds(statements)) {
+            return List.<JCTree.JCStatement>of(createToStringWrapper(plan));
+        }
+        return statements;
+    }
+
+    /**
+     * 创建
+     * <p>
+     * 遍历字段，拼接。
+     *
+     * <pre>
+     * return "X{a=" + a + ", b=" + b + "}";
+     * </pre>
+     * <p>
+     * 说明: 这里因为 jdk tools 版本不同，导致包冲突。
+     * 通过 {@link org.tbfeng.apt.compat.JavacCompat} 兼容。
+     */
+    private List<JCTree.JCStatement> createStringConcatStatements(final LClass lClass,
+                                                                  final ToStringPlan plan) {
+        java.util.List<ToStringPlan.FieldEntry> fieldList = plan.fieldList();
+        if (fieldList.isEmpty()) {
+            return List.<JCTree.JCStatement>of(treeMaker.Return(treeMaker.Literal(plan.className() + "{}")));
+        }
+
+        // 所有的字符串都是一个 Literal
+        JCTree.JCExpression lhs = null;
+        for (int i = 0; i < fieldList.size(); i++) {
+            JCTree.JCLiteral fieldName = treeMaker.Literal(fieldLiteral(plan, i));
+            lhs = lhs == null ? fieldName : javacCompat.plus(lhs, fieldName);
+            lhs = javacCompat.plus(lhs, buildFieldValue(lClass, fieldList.get(i), false));
+        }
+
+        JCTree.JCBinary binary = javacCompat.plus(lhs, treeMaker.Literal("}"));
+        return List.<JCTree.JCStatement>of(treeMaker.Return(binary));
+    }
+
+    /**
+     * 基于 StringBuilder 的实现
+     * <p>
+     * 初始容量按字面量长度与字段类型预估，基本类型使用对应的 append 重载，不会装箱。
+     *
+     * <pre>
+     * return new StringBuilder(64).append("X{a=").append(this.a).append(", b=").append(this.b).append("}").toString();
+     * </pre>
+     */
+    private List<JCTree.JCStatement> createStringBuilderStatements(final LClass lClass,
+                                                                   final ToStringPlan plan) {
+        java.util.List<ToStringPlan.FieldEntry> fieldList = plan.fieldList();
+        JCTree.JCExpression builder = newStringBuilder(plan.capacity());
+        for (int i = 0; i < fieldList.size(); i++) {
+            builder = buildAppend(builder, treeMaker.Literal(fieldLiteral(plan, i)));
+            builder = buildAppend(builder, buildFieldValue(lClass, fieldList.get(i), true));
+        }
+        builder = buildAppend(builder, treeMaker.Literal(fieldList.isEmpty() ? plan.className() + "{}" : "}"));
+        return List.<JCTree.JCStatement>of(treeMaker.Return(buildToString(builder)));
+    }
+
+    /**
+     * 分段的 StringBuilder 实现
+     * <p>
+     * 每 {@link ToStringConst#CHUNK_SIZE} 个字段一条语句，避免字段很多时生成过深的表达式。
+     *
+     * <pre>
+     * StringBuilder sb = new StringBuilder(4096);
+     * sb.append("X{f0=").append(this.f0)...;
+     * sb.append(", f32=").append(this.f32)...;
+     * return sb.append("}").toString();
+     * </pre>
+     */
+    private List<JCTree.JCStatement> createChunkedStatements(final LClass lClass,
+                                                             final ToStringPlan plan) {
+        Name sbName = names.fromString("sb");
+        JCTree.JCVariableDecl sbDecl = treeMaker.VarDef(treeMaker.Modifiers(0), sbName,
+                treeMaker.Ident(names.fromString(STRING_BUILDER)), newStringBuilder(plan.capacity()));
+        return createAppendStatements(lClass, plan, sbName, ToStringConst.CHUNK_SIZE, true).prepend(sbDecl);
+    }
+
+    /**
+     * 向 sbName 追加所有字段
+     * <p>
+     * 每 chunkSize 个字段一条语句；嵌套字段调用 appendTo，前后的 append 链在此处断开。
+     *
+     * @param lClass       类
+     * @param plan         分析结果
+     * @param sbName       StringBuilder 变量名
+     * @param chunkSize    每条语句的字段数
+     * @param returnString 返回 String 还是 StringBuilder
+     * @return 语句
+     */
+    private List<JCTree.JCStatement> createAppendStatements(final LClass lClass,
+                                                            final ToStringPlan plan,
+                                                            final Name sbName,
+                                                            final int chunkSize,
+                                                            final boolean returnString) {
+        java.util.List<ToStringPlan.FieldEntry> fieldList = plan.fieldList();
+        ListBuffer<JCTree.JCStatement> statements = new ListBuffer<JCTree.JCStatement>();
+        JCTree.JCExpression builder = null;
+        for (int i = 0; i < fieldList.size(); i++) {
+            ToStringPlan.FieldEntry fieldEntry = fieldList.get(i);
+            builder = buildAppend(builder == null ? treeMaker.Ident(sbName) : builder,
+                    treeMaker.Literal(fieldLiteral(plan, i)));
+            if (fieldEntry.limited()) {
+                statements.append(treeMaker.Exec(builder));
+                statements.append(buildLimitedAppend(fieldEntry, sbName));
+                builder = null;
+                continue;
+            }
+            if (fieldEntry.nested()) {
+                statements.append(treeMaker.Exec(builder));
+                statements.append(buildNestedAppend(fieldEntry, sbName));
+                builder = null;
+                continue;
+            }
+
+            builder = buildAppend(builder, buildFieldValue(lClass, fieldEntry, true));
+            if ((i + 1) % chunkSize == 0) {
+                statements.append(treeMaker.Exec(builder));
+                builder = null;
+            }
+        }
+
+        builder = buildAppend(builder == null ? treeMaker.Ident(sbName) : builder,
+                treeMaker.Literal(fieldList.isEmpty() ? plan.className() + "{}" : "}"));
+        statements.append(treeMaker.Return(returnString ? buildToString(builder) : builder));
+        return statements.toList();
+    }
+
+    /**
+     * 嵌套字段
+     *
+     * <pre>
+     * if (this.child == null) sb.append("null"); else this.child.appendTo(sb);
+     * </pre>
+     */
+    private JCTree.JCIf buildNestedAppend(final ToStringPlan.FieldEntry fieldEntry, final Name sbName) {
+        JCTree.JCExpression condition = treeMaker.Parens(javacCompat.binary("EQ",
+                buildFieldRef(fieldEntry, true), javacCompat.nullLiteral()));
+        JCTree.JCStatement appendNull = treeMaker.Exec(buildAppend(treeMaker.Ident(sbName), treeMaker.Literal("null")));
+        JCTree.JCStatement appendTo = treeMaker.Exec(treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                treeMaker.Select(buildFieldRef(fieldEntry, true), names.fromString(MethodConst.APPEND_TO)),
+                List.<JCTree.JCExpression>of(treeMaker.Ident(sbName))));
+        return treeMaker.If(condition, appendNull, appendTo);
+    }
+
+    /**
+     * 限制输出的字段，只输出前 N 个元素或者字符，不会构建完整的字符串
+     *
+     * @param fieldEntry 字段
+     * @param sbName     StringBuilder 变量名
+     * @return 语句
+     */
+    private JCTree.JCStatement buildLimitedAppend(final ToStringPlan.FieldEntry fieldEntry, final Name sbName) {
+        if (fieldEntry.array() || fieldEntry.collection() || fieldEntry.map()) {
+            return buildLimitedElementsAppend(fieldEntry, sbName);
+        }
+        return buildLimitedLengthAppend(fieldEntry, sbName);
+    }
+
+    /**
+     * 限制元素个数
+     *
+     * <pre>
+     * // 数组
+     * if (this.f == null) sb.append("null"); else {
+     *     sb.append("[");
+     *     int $n = Math.min(this.f.length, 10);
+     *     for (int $i = 0; $i &lt; $n; $i = $i + 1) {
+     *         if ($i &gt; 0) sb.append(", ");
+     *         sb.append(this.f[$i]);
+     *     }
+     *     if (this.f.length &gt; $n) {
+     *         if ($n &gt; 0) sb.append(", ");
+     *         sb.append("... (size=").append(this.f.length).append(")");
+     *     }
+     *     sb.append("]");
+     * }
+     *
+     * // Collection、Map
+     * if (this.f == null) sb.append("null"); else {
+     *     sb.append("[");
+     *     int $n = 0;
+     *     for (Object $e : this.f) {   // Map 使用 this.f.entrySet()
+     *         if ($n == 10) break;
+     *         if ($n &gt; 0) sb.append(", ");
+     *         sb.append($e);
+     *         $n = $n + 1;
+     *     }
+     *     if (this.f.size() &gt; $n) {
+     *         if ($n &gt; 0) sb.append(", ");
+     *         sb.append("... (size=").append(this.f.size()).append(")");
+     *     }
+     *     sb.append("]");
+     * }
+     * </pre>
+     */
+    private JCTree.JCStatement buildLimitedElementsAppend(final ToStringPlan.FieldEntry fieldEntry, final Name sbName) {
+        Name countName = names.fromString("$n");
+        JCTree.JCExpression maxElements = treeMaker.Literal(fieldEntry.maxElements());
+        ListBuffer<JCTree.JCStatement> statements = new ListBuffer<JCTree.JCStatement>();
+        statements.append(buildAppendStatement(sbName, fieldEntry.map() ? "{" : "["));
+
+        JCTree.JCExpression size;
+        if (fieldEntry.array()) {
+            Name indexName = names.fromString("$i");
+            size = treeMaker.Select(buildFieldRef(fieldEntry, true), names.fromString("length"));
+            statements.append(treeMaker.VarDef(treeMaker.Modifiers(0), countName, javacCompat.primitiveType("INT"),
+                    buildCall(treeMaker.Ident(names.fromString("Math")), "min",
+                            treeMaker.Select(buildFieldRef(fieldEntry, true), names.fromString("length")), maxElements)));
+
+            JCTree.JCStatement body = treeMaker.Block(0, List.of(
+                    buildSeparatorStatement(indexName, sbName),
+                    treeMaker.Exec(buildAppend(treeMaker.Ident(sbName),
+                            treeMaker.Indexed(buildFieldRef(fieldEntry, true), treeMaker.Ident(indexName))))));
+            statements.append(treeMaker.ForLoop(
+                    List.<JCTree.JCStatement>of(treeMaker.VarDef(treeMaker.Modifiers(0), indexName,
+                            javacCompat.primitiveType("INT"), treeMaker.Literal(0))),
+                    javacCompat.binary("LT", treeMaker.Ident(indexName), treeMaker.Ident(countName)),
+                    List.of(buildIncrement(indexName)),
+                    body));
+        } else {
+            Name elementName = names.fromString("$e");
+            size = buildCall(buildFieldRef(fieldEntry, true), "size");
+            statements.append(treeMaker.VarDef(treeMaker.Modifiers(0), countName,
+                    javacCompat.primitiveType("INT"), treeMaker.Literal(0)));
+
+            JCTree.JCExpression iterable = fieldEntry.map()
+                    ? buildCall(buildFieldRef(fieldEntry, true), "entrySet")
+                    : buildFieldRef(fieldEntry, true);
+            JCTree.JCStatement body = treeMaker.Block(0, List.of(
+                    treeMaker.If(treeMaker.Parens(javacCompat.binary("EQ", treeMaker.Ident(countName), maxElements)),
+                            treeMaker.Break(null), null),
+                    buildSeparatorStatement(countName, sbName),
+                    treeMaker.Exec(buildAppend(treeMaker.Ident(sbName), treeMaker.Ident(elementName))),
+                    treeMaker.Exec(buildIncrement(countName).expr)));
+            statements.append(treeMaker.ForeachLoop(
+                    treeMaker.VarDef(treeMaker.Modifiers(0), elementName, treeMaker.Ident(names.fromString("Object")), null),
+                    iterable, body));
+        }
+
+        // 超出的部分只输出总数。分隔符用单独的 if 语句，不用条件表达式作为 append 的参数：
+        // 生成的节点位置相同，javac 9+ 的 ArgumentAttr 按位置缓存参数类型，条件表达式会命中方法调用的缓存
+        JCTree.JCExpression sizeSuffix = buildAppend(buildAppend(buildAppend(treeMaker.Ident(sbName),
+                treeMaker.Literal("... (size=")),
+                fieldEntry.array() ? treeMaker.Select(buildFieldRef(fieldEntry, true), names.fromString("length"))
+                        : buildCall(buildFieldRef(fieldEntry, true), "size")), treeMaker.Literal(")"));
+        statements.append(treeMaker.If(treeMaker.Parens(javacCompat.binary("GT", size, treeMaker.Ident(countName))),
+                treeMaker.Block(0, List.<JCTree.JCStatement>of(buildSeparatorStatement(countName, sbName),
+                        treeMaker.Exec(sizeSuffix))), null));
+        statements.append(buildAppendStatement(sbName, fieldEntry.map() ? "}" : "]"));
+
+        return treeMaker.If(treeMaker.Parens(javacCompat.binary("EQ", buildFieldRef(fieldEntry, true), javacCompat.nullLiteral())),
+                buildAppendStatement(sbName, "null"), treeMaker.Block(0, statements.toList()));
+    }
+
+    /**
+     * 限制字符数
+     *
+     * <pre>
+     * if (this.f == null || this.f.length() &lt;= 100) sb.append(this.f);
+     * else sb.append(this.f, 0, 100).append("... (length=").append(this.f.length()).append(")");
+     * </pre>
+     */
+    private JCTree.JCStatement buildLimitedLengthAppend(final ToStringPlan.FieldEntry fieldEntry, final Name sbName) {
+        JCTree.JCExpression maxLength = treeMaker.Literal(fieldEntry.maxLength());
+        JCTree.JCExpression condition = javacCompat.binary("OR",
+                javacCompat.binary("EQ", buildFieldRef(fieldEntry, true), javacCompat.nullLiteral()),
+                javacCompat.binary("LE", buildCall(buildFieldRef(fieldEntry, true), "length"), maxLength));
+        JCTree.JCExpression truncated = treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                treeMaker.Select(treeMaker.Ident(sbName), names.fromString("append")),
+                List.of(buildFieldRef(fieldEntry, true), treeMaker.Literal(0), treeMaker.Literal(fieldEntry.maxLength())));
+        truncated = buildAppend(buildAppend(buildAppend(truncated, treeMaker.Literal("... (length=")),
+                buildCall(buildFieldRef(fieldEntry, true), "length")), treeMaker.Literal(")"));
+        return treeMaker.If(treeMaker.Parens(condition),
+                treeMaker.Exec(buildAppend(treeMaker.Ident(sbName), buildFieldRef(fieldEntry, true))),
+                treeMaker.Exec(truncated));
+    }
+
+    /**
+     * if (index &gt; 0) sb.append(", ");
+     */
+    private JCTree.JCIf buildSeparatorStatement(final Name indexName, final Name sbName) {
+        return treeMaker.If(treeMaker.Parens(javacCompat.binary("GT", treeMaker.Ident(indexName), treeMaker.Literal(0))),
+                buildAppendStatement(sbName, ", "), null);
+    }
+
+    /**
+     * sb.append("literal");
+     */
+    private JCTree.JCExpressionStatement buildAppendStatement(final Name sbName, final String literal) {
+        return treeMaker.Exec(buildAppend(treeMaker.Ident(sbName), treeMaker.Literal(literal)));
+    }
+
+    /**
+     * name = name + 1
+     */
+    private JCTree.JCExpressionStatement buildIncrement(final Name name) {
+        return treeMaker.Exec(treeMaker.Assign(treeMaker.Ident(name),
+                javacCompat.plus(treeMaker.Ident(name), treeMaker.Literal(1))));
+    }
+
+    /**
+     * target.method(args)，target 为空时调用当前类的方法
+     */
+    private JCTree.JCMethodInvocation buildCall(final JCTree.JCExpression target, final String methodName,
+                                                final JCTree.JCExpression... args) {
+        JCTree.JCExpression method = target == null ? treeMaker.Ident(names.fromString(methodName))
+                : treeMaker.Select(target, names.fromString(methodName));
+        return treeMaker.Apply(List.<JCTree.JCExpression>nil(), method, List.from(args));
+    }
+
+    /**
+     * 是否存在限制输出的字段
+     */
+    private static boolean containsLimitedField(final ToStringPlan plan) {
+        for (ToStringPlan.FieldEntry fieldEntry : plan.fieldList()) {
+            if (fieldEntry.limited()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否存在嵌套字段
+     */
+    private static boolean containsNestedField(final ToStringPlan plan) {
+        for (ToStringPlan.FieldEntry fieldEntry : plan.fieldList()) {
+            if (fieldEntry.nested()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * new StringBuilder(capacity)
+     */
+    private JCTree.JCNewClass newStringBuilder(final int capacity) {
+        return treeMaker.NewClass(null, List.<JCTree.JCExpression>nil(),
+                treeMaker.Ident(names.fromString(STRING_BUILDER)),
+                List.<JCTree.JCExpression>of(treeMaker.Literal(capacity)), null);
+    }
+
+    /**
+     * builder.append(arg)
+     */
+    private JCTree.JCMethodInvocation buildAppend(final JCTree.JCExpression builder,
+                                                  final JCTree.JCExpression arg) {
+        return treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                treeMaker.Select(builder, names.fromString("append")), List.of(arg));
+    }
+
+    /**
+     * builder.toString()
+     */
+    private JCTree.JCMethodInvocation buildToString(final JCTree.JCExpression builder) {
+        return treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                treeMaker.Select(builder, names.fromString(MethodConst.TO_STRING)),
+                List.<JCTree.JCExpression>nil());
+    }
+
+    /**
+     * 字段的值，数组使用 Arrays.toString
+     *
+     * @param lClass     类
+     * @param fieldEntry 字段
+     * @param qualified  是否使用 this.xxx 访问，避免与局部变量重名
+     * @return 表达式
+     */
+    private JCTree.JCExpression buildFieldValue(final LClass lClass,
+                                                final ToStringPlan.FieldEntry fieldEntry,
+                                                final boolean qualified) {
+        JCTree.JCExpression fieldValue = buildFieldRef(fieldEntry, qualified);
+        if (fieldEntry.array()) {
+            return buildArraysToString(lClass, fieldValue);
+        }
+        return fieldValue;
+    }
+
+    /**
+     * 字段引用
+     *
+     * @param fieldEntry 字段
+     * @param qualified  是否使用 this.xxx 访问
+     * @return 表达式
+     */
+    private JCTree.JCExpression buildFieldRef(final ToStringPlan.FieldEntry fieldEntry, final boolean qualified) {
+        if (qualified) {
+            return treeMaker.Select(treeMaker.Ident(names.fromString("this")), names.fromString(fieldEntry.name()));
+        }
+        return treeMaker.Ident(names.fromString(fieldEntry.name()));
+    }
+
+    /**
+     * 第 index 个字段前的字面量
+     *
+     * @param plan  分析结果
+     * @param index 字段下标
+     * @return X{a= 或 , b=
+     */
+    private static String fieldLiteral(final ToStringPlan plan, final int index) {
+        String fieldName = plan.fieldList().get(index).name();
+        if (index == 0) {
+            return plan.className() + "{" + fieldName + "=";
+        }
+        return ", " + fieldName + "=";
+    }
+
+    /**
+     * 预估字段值的长度
+     *
+     * @param fieldEntry 字段
+     * @return 长度
+     */
+    private static int estimateLength(final ToStringPlan.FieldEntry fieldEntry) {
+        if (fieldEntry.array()) {
+            return ARRAY_LENGTH_ESTIMATE;
+        }
+        Integer length = LENGTH_ESTIMATE_MAP.get(fieldEntry.typeName());
+        return length == null ? DEFAULT_LENGTH_ESTIMATE : length;
+    }
+
+    /**
+     * 获取实现方式：注解 > 处理器参数 > concat
+     *
+     * @param toString 注解
+     * @return 实现方式
+     */
+    private String getStrategy(final ToString toString) {
+        if (toString != null && !toString.value().isEmpty()) {
+            return toString.value();
+        }
+        String strategy = processContext.options().get(OptionConst.TO_STRING_STRATEGY);
+        if (strategy != null && !strategy.trim().isEmpty()) {
+            return strategy.trim();
+        }
+        return ToStringConst.CONCAT;
+    }
+
+    /**
+     * 构建数组调用
+     *
+     * <pre>
+     *     Arrays.toString(xxx);
+     * </pre>
+     *
+     * @param lClass     类
+     * @param fieldValue 字段
+     */
+    private JCTree.JCMethodInvocation buildArraysToString(final LClass lClass,
+                                                          final JCTree.JCExpression fieldValue) {
+        lClass.importPackage(lClass, Arrays.class);
+
+        //2. 构建 statement
+        JCTree.JCFieldAccess fieldAccess = treeMaker.Select(treeMaker.Ident(names.fromString("Arrays")), names.fromString("toString"));
+        return treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                fieldAccess, List.of(fieldValue));
+    }
+
+}
@@ -0,0 +1,307 @@
+package org.tbfeng.apt.handler;
+
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.util.List;
+import com.sun.tools.javac.util.ListBuffer;
+import com.sun.tools.javac.util.Name;
+import org.tbfeng.apt.annotation.MaxLen;
+import org.tbfeng.apt.annotation.MinLen;
+import org.tbfeng.apt.annotation.NotNull;
+import org.tbfeng.apt.annotation.Numeric;
+import org.tbfeng.apt.annotation.Regex;
+import org.tbfeng.apt.annotation.Validate;
+import org.tbfeng.apt.constant.ValidateConst;
+import org.tbfeng.apt.domian.LClass;
+import org.tbfeng.apt.domian.LField;
+import org.tbfeng.apt.domian.LObject;
+import org.tbfeng.apt.domian.ValidatePlan;
+import org.tbfeng.apt.utils.NumberUtil;
+import org.tbfeng.apt.utils.ValidationResult;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 根据 @Validate 和字段上的约束注解生成校验方法
+ *
+ * <pre>
+ * private static final Pattern $codePattern = Pattern.compile("[A-Z]{3}");
+ *
+ * public ValidationResult validate() {
+ *     return validate(new ValidationResult());
+ * }
+ *
+ * public ValidationResult validate(ValidationResult result) {
+ *     if (this.name == null) result.add("name", "can not be null");
+ *     if ((this.name == null ? 0 : this.name.length()) &gt; 32) result.add("name", "length must be &lt;= 32");
+ *     if (this.amount != null &amp;&amp; !NumberUtil.isNumber(this.amount)) result.add("amount", "must be a number");
+ *     if (this.code != null &amp;&amp; !$codePattern.matcher(this.code).matches()) result.add("code", "must match [A-Z]{3}");
+ *     return result;
+ * }
+ * </pre>
+ * 语句太多时由 {@link org.tbfeng.apt.domian.MethodSplitter} 拆分。
+ */
+public class ValidateHandler extends AbstractClassHandler<ValidatePlan> {
+
+    @Override
+    public Class<? extends Annotation> annotationClass() {
+        return Validate.class;
+    }
+
+    @Override
+    public Set<Class<? extends Annotation>> companionAnnotationClasses() {
+        return new LinkedHashSet<Class<? extends Annotation>>(Arrays.<Class<? extends Annotation>>asList(
+                NotNull.class, MinLen.class, MaxLen.class, Numeric.class, Regex.class));
+    }
+
+    @Override
+    public ValidatePlan plan(LClass lClass) {
+        ValidatePlan plan = ValidatePlan.newInstance();
+        if (lClass.classSymbol().getKind() != ElementKind.CLASS) {
+            return plan.error("@Validate 只能用于类");
+        }
+        if (lClass.classSymbol().getNestingKind() != NestingKind.TOP_LEVEL
+                && !lClass.classSymbol().getModifiers().contains(Modifier.STATIC)) {
+            return plan.error("@Validate 只能用于顶层类或者静态嵌套类");
+        }
+        plan.existsValidate(lClass.containsMethod(ValidateConst.VALIDATE_METHOD)
+                || lClass.containsMethod(ValidateConst.VALIDATE_METHOD, ValidationResult.class.getSimpleName()));
+
+        for (JCTree jcTree : lClass.classDecl().defs) {
+            if (jcTree.getKind() != Tree.Kind.VARIABLE) {
+                continue;
+            }
+            Symbol.VarSymbol varSymbol = ((JCTree.JCVariableDecl) jcTree).sym;
+            if (varSymbol == null || varSymbol.isStatic()) {
+                continue;
+            }
+            String fieldName = varSymbol.getSimpleName().toString();
+
+            NotNull notNull = varSymbol.getAnnotation(NotNull.class);
+            if (notNull != null) {
+                plan.addConstraint(ValidatePlan.ConstraintEntry.newInstance().fieldName(fieldName)
+                        .kind(ValidatePlan.Kind.NOT_NULL)
+                        .message(message(notNull.message(), ValidateConst.NOT_NULL_MESSAGE)));
+            }
+            MinLen minLen = varSymbol.getAnnotation(MinLen.class);
+            if (minLen != null) {
+                plan.addConstraint(ValidatePlan.ConstraintEntry.newInstance().fieldName(fieldName)
+                        .kind(ValidatePlan.Kind.MIN_LEN).length(minLen.value())
+                        .message(message(minLen.message(), ValidateConst.MIN_LEN_MESSAGE + minLen.value())));
+            }
+            MaxLen maxLen = varSymbol.getAnnotation(MaxLen.class);
+            if (maxLen != null) {
+                plan.addConstraint(ValidatePlan.ConstraintEntry.newInstance().fieldName(fieldName)
+                        .kind(ValidatePlan.Kind.MAX_LEN).length(maxLen.value())
+                        .message(message(maxLen.message(), ValidateConst.MAX_LEN_MESSAGE + maxLen.value())));
+            }
+            Numeric numeric = varSymbol.getAnnotation(Numeric.class);
+            if (numeric != null) {
+                plan.addConstraint(ValidatePlan.ConstraintEntry.newInstance().fieldName(fieldName)
+                        .kind(ValidatePlan.Kind.NUMERIC)
+                        .message(message(numeric.message(), ValidateConst.NUMERIC_MESSAGE)));
+            }
+            Regex regex = varSymbol.getAnnotation(Regex.class);
+            if (regex != null) {
+                try {
+                    Pattern.compile(regex.value());
+                } catch (PatternSyntaxException e) {
+                    return plan.error("@Regex 的正则表达式不合法，字段 " + fieldName + "：" + e.getDescription());
+                }
+                plan.addConstraint(ValidatePlan.ConstraintEntry.newInstance().fieldName(fieldName)
+                        .kind(ValidatePlan.Kind.REGEX).regex(regex.value())
+                        .message(message(regex.message(), ValidateConst.REGEX_MESSAGE + regex.value())));
+            }
+        }
+        return plan;
+    }
+
+    @Override
+    public void apply(LClass lClass, ValidatePlan plan) {
+        if (plan.error() != null) {
+            messager.printMessage(Diagnostic.Kind.ERROR, plan.error(), lClass.classSymbol());
+            return;
+        }
+        if (plan.existsValidate()) {
+            return;
+        }
+        String typeError = checkFieldTypes(lClass, plan);
+        if (typeError != null) {
+            messager.printMessage(Diagnostic.Kind.ERROR, typeError, lClass.classSymbol());
+            return;
+        }
+
+        lClass.importPackage(ValidationResult.class);
+        Name resultName = names.fromString(ValidateConst.RESULT_PARAM);
+        ListBuffer<JCTree.JCStatement> statements = new ListBuffer<JCTree.JCStatement>();
+        for (ValidatePlan.ConstraintEntry constraintEntry : plan.constraintList()) {
+            // if (违反约束) result.add("a", "message");
+            JCTree.JCStatement addStatement = treeMaker.Exec(treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                    treeMaker.Select(treeMaker.Ident(resultName), names.fromString("add")),
+                    List.<JCTree.JCExpression>of(treeMaker.Literal(constraintEntry.fieldName()),
+                            treeMaker.Literal(constraintEntry.message()))));
+            statements.append(treeMaker.If(treeMaker.Parens(createViolation(lClass, constraintEntry)), addStatement, null));
+        }
+        statements.append(treeMaker.Return(treeMaker.Ident(resultName)));
+
+        // public ValidationResult validate()
+        JCTree.JCExpression resultType = treeMaker.Ident(names.fromString(ValidationResult.class.getSimpleName()));
+        lClass.insertMethod(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC),
+                names.fromString(ValidateConst.VALIDATE_METHOD),
+                resultType,
+                List.<JCTree.JCTypeParameter>nil(),
+                List.<JCTree.JCVariableDecl>nil(),
+                List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, List.<JCTree.JCStatement>of(treeMaker.Return(treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                        treeMaker.Ident(names.fromString(ValidateConst.VALIDATE_METHOD)),
+                        List.<JCTree.JCExpression>of(treeMaker.NewClass(null, List.<JCTree.JCExpression>nil(),
+                                treeMaker.Ident(names.fromString(ValidationResult.class.getSimpleName())),
+                                List.<JCTree.JCExpression>nil(), null)))))),
+                null));
+
+        // public ValidationResult validate(ValidationResult result)
+        JCTree.JCMethodDecl validateMethod = treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC),
+                names.fromString(ValidateConst.VALIDATE_METHOD),
+                treeMaker.Ident(names.fromString(ValidationResult.class.getSimpleName())),
+                List.<JCTree.JCTypeParameter>nil(),
+                List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), resultName,
+                        treeMaker.Ident(names.fromString(ValidationResult.class.getSimpleName())), null)),
+                List.<JCTree.JCExpression>nil(),
+                treeMaker.Block(0, statements.toList()),
+                null);
+        for (JCTree.JCMethodDecl methodDecl : processContext.methodSplitter().split(validateMethod)) {
+            lClass.insertMethod(methodDecl);
+        }
+    }
+
+    /**
+     * 违反约束的条件
+     */
+    private JCTree.JCExpression createViolation(final LClass lClass, final ValidatePlan.ConstraintEntry constraintEntry) {
+        String fieldName = constraintEntry.fieldName();
+        switch (constraintEntry.kind()) {
+            case NOT_NULL:
+                // this.a == null
+                return javacCompat.binary("EQ", buildFieldRef(fieldName), javacCompat.nullLiteral());
+            case MIN_LEN:
+                // (this.a == null ? 0 : this.a.length()) < n
+                return javacCompat.binary("LT", buildLength(fieldName), treeMaker.Literal(constraintEntry.length()));
+            case MAX_LEN:
+                // (this.a == null ? 0 : this.a.length()) > n
+                return javacCompat.binary("GT", buildLength(fieldName), treeMaker.Literal(constraintEntry.length()));
+            case NUMERIC:
+                // this.a != null && !NumberUtil.isNumber(this.a)
+                lClass.importPackage(NumberUtil.class);
+                return javacCompat.binary("AND", javacCompat.binary("NE", buildFieldRef(fieldName), javacCompat.nullLiteral()),
+                        javacCompat.unary("NOT", treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                                treeMaker.Select(treeMaker.Ident(names.fromString(NumberUtil.class.getSimpleName())),
+                                        names.fromString("isNumber")),
+                                List.of(buildFieldRef(fieldName)))));
+            case REGEX:
+                // this.a != null && !$aPattern.matcher(this.a).matches()
+                String patternField = ValidateConst.PATTERN_FIELD_PREFIX + fieldName + ValidateConst.PATTERN_FIELD_SUFFIX;
+                lClass.insertField(LField.newInstance()
+                        .modifiers(Flags.PRIVATE | Flags.STATIC | Flags.FINAL)
+                        .type(Pattern.class)
+                        .name(patternField)
+                        .value(new LObject(processContext).expression(treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                                treeMaker.Select(treeMaker.Ident(names.fromString(Pattern.class.getSimpleName())),
+                                        names.fromString("compile")),
+                                List.<JCTree.JCExpression>of(treeMaker.Literal(constraintEntry.regex()))))));
+                JCTree.JCExpression matcher = treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                        treeMaker.Select(treeMaker.Ident(names.fromString(patternField)), names.fromString("matcher")),
+                        List.of(buildFieldRef(fieldName)));
+                return javacCompat.binary("AND", javacCompat.binary("NE", buildFieldRef(fieldName), javacCompat.nullLiteral()),
+                        javacCompat.unary("NOT", treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                                treeMaker.Select(matcher, names.fromString("matches")), List.<JCTree.JCExpression>nil())));
+            default:
+                throw new IllegalStateException("Unknown constraint: " + constraintEntry.kind());
+        }
+    }
+
+    /**
+     * (this.a == null ? 0 : this.a.length())，与 ArgUtil 一致，null 的长度为 0
+     */
+    private JCTree.JCExpression buildLength(final String fieldName) {
+        return treeMaker.Parens(treeMaker.Conditional(
+                javacCompat.binary("EQ", buildFieldRef(fieldName), javacCompat.nullLiteral()),
+                treeMaker.Literal(0),
+                treeMaker.Apply(List.<JCTree.JCExpression>nil(),
+                        treeMaker.Select(buildFieldRef(fieldName), names.fromString("length")),
+                        List.<JCTree.JCExpression>nil())));
+    }
+
+    /**
+     * this.a
+     */
+    private JCTree.JCExpression buildFieldRef(final String fieldName) {
+        return treeMaker.Select(treeMaker.Ident(names.fromString("this")), names.fromString(fieldName));
+    }
+
+    /**
+     * 检查约束与字段类型是否匹配：@NotNull 不能用于基本类型，其他约束只能用于 CharSequence
+     * <p>
+     * 需要补全字段类型的符号，只能在应用阶段调用。
+     *
+     * @return 错误信息，匹配时返回 null
+     */
+    private String checkFieldTypes(final LClass lClass, final ValidatePlan plan) {
+        Map<String, TypeMirror> fieldTypeMap = new HashMap<String, TypeMirror>();
+        for (Element element : lClass.classSymbol().getEnclosedElements()) {
+            if (element.getKind() == ElementKind.FIELD) {
+                fieldTypeMap.put(element.getSimpleName().toString(), element.asType());
+            }
+        }
+        TypeMirror charSequenceType = elements.getTypeElement(CharSequence.class.getName()).asType();
+        for (ValidatePlan.ConstraintEntry constraintEntry : plan.constraintList()) {
+            TypeMirror fieldType = fieldTypeMap.get(constraintEntry.fieldName());
+            if (constraintEntry.kind() == ValidatePlan.Kind.NOT_NULL) {
+                if (fieldType.getKind().isPrimitive()) {
+                    return "@NotNull 不能用于基本类型的字段 " + constraintEntry.fieldName();
+                }
+            } else if (!types.isAssignable(types.erasure(fieldType), charSequenceType)) {
+                return "@" + constraintName(constraintEntry.kind()) + " 只能用于 CharSequence 类型的字段 "
+                        + constraintEntry.fieldName();
+            }
+        }
+        return null;
+    }
+
+    private static String constraintName(final ValidatePlan.Kind kind) {
+        switch (kind) {
+            case MIN_LEN:
+                return MinLen.class.getSimpleName();
+            case MAX_LEN:
+                return MaxLen.class.getSimpleName();
+            case NUMERIC:
+                return Numeric.class.getSimpleName();
+            case REGEX:
+                return Regex.class.getSimpleName();
+            default:
+                return NotNull.class.getSimpleName();
+        }
+    }
+
+    /**
+     * 注解中设置了错误信息时使用设置的，否则使用默认的
+     */
+    private static String message(final String message, final String defaultMessage) {
+        return message.isEmpty() ? defaultMessage : message;
+    }
+
+}
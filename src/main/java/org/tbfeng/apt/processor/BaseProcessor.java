@@ -6,23 +6,49 @@ import com.sun.tools.javac.processing.JavacProcessingEnvironment;
 import com.sun.tools.javac.tree.TreeMaker;
 import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.Names;
+import org.tbfeng.apt.compat.JavacCompat;
+import org.tbfeng.apt.constant.OptionConst;
+import org.tbfeng.apt.domian.ImportCollector;
 import org.tbfeng.apt.domian.LClass;
+import org.tbfeng.apt.domian.MethodSplitter;
 import org.tbfeng.apt.domian.ProcessContext;
+import org.tbfeng.apt.handler.ClassHandler;
+import org.tbfeng.apt.profile.ClassProfile;
+import org.tbfeng.apt.profile.ProcessProfiler;
+import org.tbfeng.apt.profile.ProfilingFiler;
+import org.tbfeng.apt.utils.JavacUtil;
 
 import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * 抽象执行器
+ * <p>
+ * 每一轮只遍历一次被标记的类，每个类只构建一次 {@link LClass}，再交给所有匹配的 {@link ClassHandler}。
+ * <p>
+ * 处理分为两个阶段：
+ * 1. 分析阶段 {@link ClassHandler#plan(LClass)}：只读语法树，可以按 {@link OptionConst#PARALLELISM} 并行执行；
+ * 2. 应用阶段 {@link ClassHandler#apply(LClass, Object)}：使用 TreeMaker 修改语法树，始终单线程执行。
+ * <p>
+ * javac 的 TreeMaker、Names、Messager 都不是线程安全的，只能在应用阶段使用。
  */
 public abstract class BaseProcessor extends AbstractProcessor {
 
@@ -51,67 +77,298 @@ public abstract class BaseProcessor extends AbstractProcessor {
      */
     protected ProcessContext processContext;
 
+    /**
+     * 分析阶段的并行度
+     */
+    protected int parallelism;
+
+    /**
+     * 类处理器列表
+     */
+    protected List<ClassHandler<?>> handlerList = Collections.emptyList();
+
+    /**
+     * 性能统计，未开启时为 null
+     */
+    protected ProcessProfiler profiler;
+
+    /**
+     * 当前轮次
+     */
+    private int round;
+
     @Override
     public SourceVersion getSupportedSourceVersion() {
         return SourceVersion.latestSupported();
     }
 
+    @Override
+    public Set<String> getSupportedOptions() {
+        Set<String> options = new LinkedHashSet<String>(Arrays.asList(OptionConst.PARALLELISM, OptionConst.PROFILE, OptionConst.MAX_METHOD_SIZE));
+        for (ClassHandler<?> handler : handlerList.isEmpty() ? createHandlerList() : handlerList) {
+            options.addAll(handler.supportedOptions());
+        }
+        return options;
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        // 未初始化时也可能被调用
+        List<ClassHandler<?>> handlers = handlerList.isEmpty() ? createHandlerList() : handlerList;
+        Set<String> annotationTypes = new LinkedHashSet<String>();
+        for (ClassHandler<?> handler : handlers) {
+            annotationTypes.add(handler.annotationClass().getCanonicalName());
+            for (Class<? extends Annotation> annotationClass : handler.companionAnnotationClasses()) {
+                annotationTypes.add(annotationClass.getCanonicalName());
+            }
+        }
+        return annotationTypes;
+    }
+
     @Override
     public synchronized void init(ProcessingEnvironment processingEnv) {
         super.init(processingEnv);
         this.messager = processingEnv.getMessager();
-        this.trees = JavacTrees.instance(processingEnv);
-        Context context = ((JavacProcessingEnvironment) processingEnv).getContext();
+        // 构建工具可能包装 ProcessingEnvironment，语法树相关的实例从被包装的 javac 环境中获取，Filer、Messager 仍使用包装后的
+        JavacProcessingEnvironment javacProcessingEnv = JavacUtil.getJavacProcessingEnvironment(processingEnv);
+        if (javacProcessingEnv == null) {
+            messager.printMessage(Diagnostic.Kind.WARNING, getClass().getSimpleName() + " 只支持 javac，当前的处理环境为 "
+                    + processingEnv.getClass().getName() + "，不处理");
+            return;
+        }
+        Context context = javacProcessingEnv.getContext();
+        this.trees = JavacTrees.instance(context);
         this.treeMaker = TreeMaker.instance(context);
         this.names = Names.instance(context);
+
+        Filer filer = processingEnv.getFiler();
+        String profileFile = processingEnv.getOptions().get(OptionConst.PROFILE);
+        if (profileFile != null && !profileFile.trim().isEmpty()) {
+            this.profiler = new ProcessProfiler(getClass().getSimpleName(), profileFile.trim());
+            filer = new ProfilingFiler(filer, profiler);
+        }
+
+        JavacCompat javacCompat = JavacCompat.newInstance(treeMaker);
         this.processContext = ProcessContext.newInstance()
                 .messager(messager)
                 .names(names)
                 .treeMaker(treeMaker)
-                .trees(trees);
+                .javacCompat(javacCompat)
+                .trees(trees)
+                .filer(filer)
+                .types(processingEnv.getTypeUtils())
+                .elements(processingEnv.getElementUtils())
+                .importCollector(new ImportCollector(treeMaker, names))
+                .methodSplitter(new MethodSplitter(treeMaker, names, javacCompat,
+                        getIntOption(processingEnv, OptionConst.MAX_METHOD_SIZE, MethodSplitter.DEFAULT_MAX_METHOD_SIZE)))
+                .options(processingEnv.getOptions())
+                .profiler(profiler);
+        this.parallelism = getParallelism(processingEnv);
+
+        this.handlerList = createHandlerList();
+        for (ClassHandler<?> handler : handlerList) {
+            handler.init(processContext);
+        }
     }
 
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
-        List<LClass> classList = getClassList(roundEnv, getAnnotationClass());
+        if (processContext == null) {
+            // 不是 javac 的处理环境
+            return false;
+        }
+        round++;
+        long startNanos = profiler == null ? 0L : System.nanoTime();
 
+        List<LClass> classList = getClassList(roundEnv);
+        List<HandlerTask> taskList = new ArrayList<HandlerTask>();
         for (LClass lClass : classList) {
-            handleClass(lClass);
+            for (ClassHandler<?> handler : handlerList) {
+                if (!lClass.annotatedElementList(handler.annotationClass()).isEmpty()) {
+                    taskList.add(new HandlerTask(lClass, handler, profiler));
+                }
+            }
+        }
+
+        planTaskList(taskList);
+
+        for (HandlerTask task : taskList) {
+            // 新建节点的位置使用类声明的位置，否则 javac 的 Flow 分析会忽略位置在类之前的参数、局部变量
+            treeMaker.at(task.lClass.classDecl().pos);
+            task.apply();
+        }
+
+        // 统一写回本轮新增的 import
+        processContext.importCollector().flush();
+
+        if (profiler != null) {
+            List<ClassProfile> classProfileList = new ArrayList<ClassProfile>(taskList.size());
+            for (HandlerTask task : taskList) {
+                classProfileList.add(task.classProfile);
+            }
+            profiler.endRound(round, System.nanoTime() - startNanos, classList.size(), classProfileList);
+            if (roundEnv.processingOver()) {
+                profiler.report(messager);
+            }
         }
         return true;
     }
 
+    /**
+     * 分析所有的任务
+     * <p>
+     * 并行度大于 1 时在独立的 ForkJoinPool 中执行。
+     *
+     * @param taskList 任务列表
+     */
+    protected void planTaskList(final List<HandlerTask> taskList) {
+        if (parallelism <= 1 || taskList.size() <= 1) {
+            for (HandlerTask task : taskList) {
+                task.plan();
+            }
+            return;
+        }
+
+        ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+        try {
+            forkJoinPool.submit(() -> taskList.parallelStream().forEach(HandlerTask::plan)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    /**
+     * 获取并行度
+     *
+     * @param processingEnv 环境信息
+     * @return 并行度，非法值按 1 处理
+     */
+    private int getParallelism(final ProcessingEnvironment processingEnv) {
+        return Math.max(1, getIntOption(processingEnv, OptionConst.PARALLELISM, 1));
+    }
+
+    /**
+     * 获取整数类型的参数
+     *
+     * @param processingEnv 环境信息
+     * @param name          参数名称
+     * @param defaultValue  默认值，未设置或者非法值时使用
+     * @return 值
+     */
+    private int getIntOption(final ProcessingEnvironment processingEnv, final String name, final int defaultValue) {
+        String value = processingEnv.getOptions().get(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
     /**
      * 获取对应的 class 信息列表
+     * <p>
+     * 注解标记在方法、字段上时，按所在的类归组。每个类只构建一次 LClass。
      *
      * @param roundEnv 环境信息
-     * @param clazz    注解类型
      * @return 列表
      */
-    protected List<LClass> getClassList(final RoundEnvironment roundEnv,
-                                        final Class<? extends Annotation> clazz) {
-        List<LClass> classList = new ArrayList<LClass>();
-        Set<? extends Element> serialSet = roundEnv.getElementsAnnotatedWith(clazz);
-        // 对于每一个类可以分开，使用多线程进行处理。
-        for (Element element : serialSet) {
-            if (element instanceof Symbol.ClassSymbol) {
-                LClass lClass = new LClass(processContext, (Symbol.ClassSymbol) element);
-                classList.add(lClass);
+    protected List<LClass> getClassList(final RoundEnvironment roundEnv) {
+        Map<Symbol.ClassSymbol, LClass> classMap = new LinkedHashMap<Symbol.ClassSymbol, LClass>();
+        for (ClassHandler<?> handler : handlerList) {
+            Class<? extends Annotation> annotationClass = handler.annotationClass();
+            Set<? extends Element> elementSet = roundEnv.getElementsAnnotatedWith(annotationClass);
+            for (Element element : elementSet) {
+                Element classElement = element instanceof Symbol.ClassSymbol
+                        ? element : element.getEnclosingElement();
+                if (!(classElement instanceof Symbol.ClassSymbol)) {
+                    continue;
+                }
+
+                // LClass 的构建需要访问 trees，放在单线程中完成；后续的分析阶段再并行处理。
+                Symbol.ClassSymbol classSymbol = (Symbol.ClassSymbol) classElement;
+                LClass lClass = classMap.get(classSymbol);
+                if (lClass == null) {
+                    lClass = new LClass(processContext, classSymbol);
+                    classMap.put(classSymbol, lClass);
+                }
+                lClass.addAnnotatedElement(annotationClass, element);
             }
         }
-        return classList;
+        return new ArrayList<LClass>(classMap.values());
     }
 
-
     /**
-     * 获取抽象的注解类型
+     * 创建类处理器列表
+     *
+     * @return 类处理器列表
      */
-    protected abstract Class<? extends Annotation> getAnnotationClass();
+    protected abstract List<ClassHandler<?>> createHandlerList();
 
     /**
-     * 处理单个类信息
+     * 单个类在单个处理器上的任务
      */
-    protected abstract void handleClass(final LClass lClass);
+    protected static class HandlerTask {
+
+        private final LClass lClass;
+
+        private final ClassHandler<?> handler;
+
+        private final ProcessProfiler profiler;
+
+        /**
+         * 性能统计，未开启时为 null
+         */
+        private final ClassProfile classProfile;
+
+        private Object plan;
+
+        HandlerTask(LClass lClass, ClassHandler<?> handler, ProcessProfiler profiler) {
+            this.lClass = lClass;
+            this.handler = handler;
+            this.profiler = profiler;
+            this.classProfile = profiler == null ? null
+                    : new ClassProfile(lClass.classSymbol().getQualifiedName().toString(),
+                    handler.getClass().getSimpleName());
+        }
+
+        void plan() {
+            if (classProfile == null) {
+                this.plan = handler.plan(lClass);
+                return;
+            }
+
+            long startNanos = System.nanoTime();
+            this.plan = handler.plan(lClass);
+            classProfile.planNanos(System.nanoTime() - startNanos);
+        }
+
+        @SuppressWarnings("unchecked")
+        void apply() {
+            if (classProfile == null) {
+                ((ClassHandler<Object>) handler).apply(lClass, plan);
+                return;
+            }
+
+            int nodeCount = ProcessProfiler.countNodes(lClass.classDecl());
+            profiler.beginApply(classProfile);
+            long startNanos = System.nanoTime();
+            try {
+                ((ClassHandler<Object>) handler).apply(lClass, plan);
+            } finally {
+                classProfile.applyNanos(System.nanoTime() - startNanos);
+                profiler.endApply();
+            }
+            classProfile.nodeCount(ProcessProfiler.countNodes(lClass.classDecl()) - nodeCount);
+        }
+    }
 
 }
@@ -0,0 +1,27 @@
+package org.tbfeng.apt.processor;
+
+import org.tbfeng.apt.handler.ClassHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * 统一调度的执行器
+ * <p>
+ * 通过 SPI 加载 META-INF/services/org.tbfeng.apt.handler.ClassHandler 中注册的所有处理器，
+ * 每一轮只遍历一次被标记的类，并在同一个 LClass 上依次执行所有匹配的处理器。
+ */
+public class DispatchProcessor extends BaseProcessor {
+
+    @Override
+    protected List<ClassHandler<?>> createHandlerList() {
+        List<ClassHandler<?>> handlers = new ArrayList<ClassHandler<?>>();
+        for (ClassHandler<?> handler : ServiceLoader.load(ClassHandler.class,
+                DispatchProcessor.class.getClassLoader())) {
+            handlers.add(handler);
+        }
+        return handlers;
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.tbfeng.apt.profile;
+
+/**
+ * 单个类在单个处理器上的耗时统计
+ */
+public class ClassProfile {
+
+    /**
+     * 全限定类名
+     */
+    private final String className;
+
+    /**
+     * 类处理器名称
+     */
+    private final String handlerName;
+
+    /**
+     * 分析阶段耗时（纳秒）
+     */
+    private long planNanos;
+
+    /**
+     * 应用阶段耗时（纳秒）
+     */
+    private long applyNanos;
+
+    /**
+     * 新增的语法树节点数
+     */
+    private int nodeCount;
+
+    /**
+     * 生成的文件数
+     */
+    private int fileCount;
+
+    public ClassProfile(String className, String handlerName) {
+        this.className = className;
+        this.handlerName = handlerName;
+    }
+
+    public String className() {
+        return className;
+    }
+
+    public String handlerName() {
+        return handlerName;
+    }
+
+    public long planNanos() {
+        return planNanos;
+    }
+
+    public ClassProfile planNanos(long planNanos) {
+        this.planNanos = planNanos;
+        return this;
+    }
+
+    public long applyNanos() {
+        return applyNanos;
+    }
+
+    public ClassProfile applyNanos(long applyNanos) {
+        this.applyNanos = applyNanos;
+        return this;
+    }
+
+    public long totalNanos() {
+        return planNanos + applyNanos;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public ClassProfile nodeCount(int nodeCount) {
+        this.nodeCount = nodeCount;
+        return this;
+    }
+
+    public int fileCount() {
+        return fileCount;
+    }
+
+    public ClassProfile fileCount(int fileCount) {
+        this.fileCount = fileCount;
+        return this;
+    }
+
+}
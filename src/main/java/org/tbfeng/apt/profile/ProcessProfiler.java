@@ -0,0 +1,308 @@
+package org.tbfeng.apt.profile;
+
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeScanner;
+
+import javax.annotation.processing.Messager;
+import javax.tools.Diagnostic;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 处理器性能统计
+ * <p>
+ * 通过 -Aapt.profile=&lt;file&gt; 开启，记录每一轮的耗时、类数量，以及最慢的类的耗时、新增节点数、生成文件数。
+ * 文件以 .csv 结尾时输出 CSV（每个类一行），否则输出 JSON（每一轮保留最慢的 {@link #SLOWEST_CLASS_COUNT} 个类）。
+ * <p>
+ * 未开启时不会创建该对象，处理流程中不会有任何额外开销。
+ */
+public class ProcessProfiler {
+
+    /**
+     * 每一轮保留的最慢的类的数量
+     */
+    public static final int SLOWEST_CLASS_COUNT = 20;
+
+    /**
+     * 处理器名称
+     */
+    private final String processorName;
+
+    /**
+     * 报告文件
+     */
+    private final String reportFile;
+
+    /**
+     * 每一轮的统计
+     */
+    private final List<RoundProfile> roundList = new ArrayList<RoundProfile>();
+
+    /**
+     * 自定义计数器，例如缓存命中数
+     */
+    private final Map<String, AtomicLong> counterMap = new ConcurrentHashMap<String, AtomicLong>();
+
+    /**
+     * 当前正在应用的类，用于统计生成的文件
+     */
+    private ClassProfile current;
+
+    /**
+     * 不属于任何类的生成文件数
+     */
+    private int otherFileCount;
+
+    public ProcessProfiler(String processorName, String reportFile) {
+        this.processorName = processorName;
+        this.reportFile = reportFile;
+    }
+
+    /**
+     * 开始应用某个类
+     *
+     * @param classProfile 类统计
+     */
+    public void beginApply(ClassProfile classProfile) {
+        this.current = classProfile;
+    }
+
+    /**
+     * 结束应用
+     */
+    public void endApply() {
+        this.current = null;
+    }
+
+    /**
+     * 生成了一个文件
+     */
+    public void fileCreated() {
+        if (current != null) {
+            current.fileCount(current.fileCount() + 1);
+        } else {
+            otherFileCount++;
+        }
+    }
+
+    /**
+     * 计数器加一，可以在分析阶段并发调用
+     *
+     * @param counterName 计数器名称
+     */
+    public void increment(String counterName) {
+        AtomicLong counter = counterMap.get(counterName);
+        if (counter == null) {
+            counterMap.putIfAbsent(counterName, new AtomicLong());
+            counter = counterMap.get(counterName);
+        }
+        counter.incrementAndGet();
+    }
+
+    /**
+     * 结束一轮
+     *
+     * @param round            轮次，从 1 开始
+     * @param wallNanos        本轮耗时
+     * @param classCount       本轮处理的类数量
+     * @param classProfileList 本轮每个类的统计
+     */
+    public void endRound(int round, long wallNanos, int classCount, List<ClassProfile> classProfileList) {
+        roundList.add(new RoundProfile(round, wallNanos, classCount, classProfileList));
+    }
+
+    /**
+     * 输出报告文件，并通过 Messager 打印一行汇总
+     *
+     * @param messager 日志
+     */
+    public void report(Messager messager) {
+        long wallNanos = 0;
+        int classCount = 0;
+        int nodeCount = 0;
+        int fileCount = otherFileCount;
+        for (RoundProfile roundProfile : roundList) {
+            wallNanos += roundProfile.wallNanos;
+            classCount += roundProfile.classCount;
+            for (ClassProfile classProfile : roundProfile.classProfileList) {
+                nodeCount += classProfile.nodeCount();
+                fileCount += classProfile.fileCount();
+            }
+        }
+
+        try {
+            File file = new File(reportFile);
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            String content = reportFile.toLowerCase(Locale.ROOT).endsWith(".csv") ? buildCsv() : buildJson();
+            Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.WARNING,
+                    "apt profile: 写入报告失败 " + reportFile + ", " + e.getMessage());
+        }
+
+        StringBuilder summary = new StringBuilder("apt profile: ")
+                .append(processorName)
+                .append(" rounds=").append(roundList.size())
+                .append(", classes=").append(classCount)
+                .append(", time=").append(toMillis(wallNanos)).append("ms")
+                .append(", nodes=").append(nodeCount)
+                .append(", files=").append(fileCount);
+        for (Map.Entry<String, Long> entry : sortedCounters().entrySet()) {
+            summary.append(", ").append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        summary.append(" -> ").append(reportFile);
+        messager.printMessage(Diagnostic.Kind.NOTE, summary.toString());
+    }
+
+    /**
+     * 统计语法树的节点数
+     *
+     * @param tree 语法树
+     * @return 节点数
+     */
+    public static int countNodes(JCTree tree) {
+        final int[] count = new int[1];
+        new TreeScanner() {
+            @Override
+            public void scan(JCTree tree) {
+                if (tree != null) {
+                    count[0]++;
+                }
+                super.scan(tree);
+            }
+        }.scan(tree);
+        return count[0];
+    }
+
+    private String buildJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"processor\": ").append(quote(processorName)).append(",\n");
+        json.append("  \"counters\": {");
+        Map<String, Long> counters = sortedCounters();
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            json.append(first ? "\n" : ",\n")
+                    .append("    ").append(quote(entry.getKey())).append(": ").append(entry.getValue());
+            first = false;
+        }
+        json.append(counters.isEmpty() ? "},\n" : "\n  },\n");
+
+        json.append("  \"rounds\": [");
+        for (int i = 0; i < roundList.size(); i++) {
+            RoundProfile roundProfile = roundList.get(i);
+            json.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\n")
+                    .append("      \"round\": ").append(roundProfile.round).append(",\n")
+                    .append("      \"wallMillis\": ").append(toMillis(roundProfile.wallNanos)).append(",\n")
+                    .append("      \"classCount\": ").append(roundProfile.classCount).append(",\n")
+                    .append("      \"slowestClasses\": [");
+            List<ClassProfile> slowestList = roundProfile.classProfileList.stream()
+                    .sorted(Comparator.comparingLong(ClassProfile::totalNanos).reversed())
+                    .limit(SLOWEST_CLASS_COUNT)
+                    .collect(Collectors.toList());
+            for (int j = 0; j < slowestList.size(); j++) {
+                ClassProfile classProfile = slowestList.get(j);
+                json.append(j == 0 ? "\n" : ",\n")
+                        .append("        {")
+                        .append("\"class\": ").append(quote(classProfile.className()))
+                        .append(", \"handler\": ").append(quote(classProfile.handlerName()))
+                        .append(", \"planMillis\": ").append(toMillis(classProfile.planNanos()))
+                        .append(", \"applyMillis\": ").append(toMillis(classProfile.applyNanos()))
+                        .append(", \"nodes\": ").append(classProfile.nodeCount())
+                        .append(", \"files\": ").append(classProfile.fileCount())
+                        .append('}');
+            }
+            json.append(slowestList.isEmpty() ? "]\n" : "\n      ]\n").append("    }");
+        }
+        json.append(roundList.isEmpty() ? "]\n" : "\n  ]\n").append("}\n");
+        return json.toString();
+    }
+
+    /**
+     * JSON 字符串，转义引号、反斜杠与控制字符
+     */
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private String buildCsv() {
+        StringBuilder csv = new StringBuilder("processor,round,roundWallMillis,roundClassCount,class,handler,planMillis,applyMillis,nodes,files\n");
+        for (RoundProfile roundProfile : roundList) {
+            for (ClassProfile classProfile : roundProfile.classProfileList) {
+                csv.append(processorName).append(',')
+                        .append(roundProfile.round).append(',')
+                        .append(toMillis(roundProfile.wallNanos)).append(',')
+                        .append(roundProfile.classCount).append(',')
+                        .append(classProfile.className()).append(',')
+                        .append(classProfile.handlerName()).append(',')
+                        .append(toMillis(classProfile.planNanos())).append(',')
+                        .append(toMillis(classProfile.applyNanos())).append(',')
+                        .append(classProfile.nodeCount()).append(',')
+                        .append(classProfile.fileCount()).append('\n');
+            }
+        }
+        return csv.toString();
+    }
+
+    private Map<String, Long> sortedCounters() {
+        Map<String, Long> counters = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : counterMap.entrySet()) {
+            counters.put(entry.getKey(), entry.getValue().get());
+        }
+        return counters;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    /**
+     * 单轮的统计
+     */
+    private static class RoundProfile {
+
+        private final int round;
+
+        private final long wallNanos;
+
+        private final int classCount;
+
+        private final List<ClassProfile> classProfileList;
+
+        RoundProfile(int round, long wallNanos, int classCount, List<ClassProfile> classProfileList) {
+            this.round = round;
+            this.wallNanos = wallNanos;
+            this.classCount = classCount;
+            this.classProfileList = classProfileList;
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package org.tbfeng.apt.profile;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+
+/**
+ * 统计生成文件数的 Filer
+ * <p>
+ * 只在开启性能统计时使用。
+ */
+public class ProfilingFiler implements Filer {
+
+    private final Filer filer;
+
+    private final ProcessProfiler profiler;
+
+    public ProfilingFiler(Filer filer, ProcessProfiler profiler) {
+        this.filer = filer;
+        this.profiler = profiler;
+    }
+
+    @Override
+    public JavaFileObject createSourceFile(CharSequence name, Element... originatingElements) throws IOException {
+        JavaFileObject fileObject = filer.createSourceFile(name, originatingElements);
+        profiler.fileCreated();
+        return fileObject;
+    }
+
+    @Override
+    public JavaFileObject createClassFile(CharSequence name, Element... originatingElements) throws IOException {
+        JavaFileObject fileObject = filer.createClassFile(name, originatingElements);
+        profiler.fileCreated();
+        return fileObject;
+    }
+
+    @Override
+    public FileObject createResource(JavaFileManager.Location location, CharSequence pkg,
+                                     CharSequence relativeName, Element... originatingElements) throws IOException {
+        FileObject fileObject = filer.createResource(location, pkg, relativeName, originatingElements);
+        profiler.fileCreated();
+        return fileObject;
+    }
+
+    @Override
+    public FileObject getResource(JavaFileManager.Location location, CharSequence pkg,
+                                  CharSequence relativeName) throws IOException {
+        return filer.getResource(location, pkg, relativeName);
+    }
+
+}
@@ -0,0 +1,212 @@
+package org.tbfeng.apt.utils;
+
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeReference;
+
+import java.lang.ref.WeakReference;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 行映射器
+ * <p>
+ * 由 {@link org.tbfeng.apt.annotation.RowMapping} 在编译期生成为嵌套类 X.RowMapper，使用 getInt、getLong 等类型化的方法
+ * 直接读取列并设置字段，不使用反射，基本类型的列不装箱。
+ * <p>
+ * 列与字段按名称匹配：忽略大小写和下划线，user_name、USERNAME 都匹配字段 userName。
+ * 列的下标按结果集解析一次：{@link #mapAll(ResultSet)} 在遍历前解析；逐行调用的 {@link #map(ResultSet)}
+ * 在每个线程中缓存最近一个结果集的解析结果，结果集相同并且列没有变化时才使用缓存。
+ * <p>
+ * 同时是 MyBatis 的 {@link TypeHandler}：把生成的 X.RowMapper 注册为 X 的 TypeHandler 后，resultType 为 X 的查询
+ * 由 MyBatis 对每一行调用 {@link #getResult(ResultSet, String)}，不再进行自动映射。
+ * 只能用于读取结果集，用于设置参数或者读取存储过程的输出参数时抛出 SQLException。
+ *
+ * @param <T> 类型
+ */
+public abstract class AbstractRowMapper<T> extends TypeReference<T> implements TypeHandler<T> {
+
+    /**
+     * 字段名称，下标与 {@link #mapRow(ResultSet, int[])} 中的列下标一致
+     */
+    private final String[] fieldNames;
+
+    /**
+     * 规范化的字段名称 -> 下标
+     */
+    private final Map<String, Integer> fieldIndexMap;
+
+    /**
+     * 每个线程最近一个结果集的列下标
+     */
+    private final ThreadLocal<ColumnIndex> columnIndexCache = new ThreadLocal<ColumnIndex>();
+
+    protected AbstractRowMapper(final String[] fieldNames) {
+        this.fieldNames = fieldNames;
+        this.fieldIndexMap = new HashMap<String, Integer>(fieldNames.length * 2);
+        for (int i = 0; i < fieldNames.length; i++) {
+            fieldIndexMap.put(normalize(fieldNames[i]), i);
+        }
+    }
+
+    /**
+     * 映射当前行
+     *
+     * @param resultSet 结果集，已经移动到需要映射的行
+     * @param columns   每个字段对应的列下标（从 1 开始），0 表示结果集中没有该字段
+     * @return 对象
+     * @throws SQLException 读取失败
+     */
+    protected abstract T mapRow(ResultSet resultSet, int[] columns) throws SQLException;
+
+    /**
+     * 映射当前行，同一个线程中连续映射同一个结果集时只解析一次列下标
+     * <p>
+     * 驱动或者连接池的代理可能在不同的查询中复用同一个结果集对象，因此还需要比较元数据：
+     * 元数据是同一个对象，或者列数和每一列的名称都相同时才使用缓存的列下标。
+     *
+     * @param resultSet 结果集，已经移动到需要映射的行
+     * @return 对象
+     * @throws SQLException 读取失败
+     */
+    public T map(final ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        ColumnIndex columnIndex = columnIndexCache.get();
+        if (columnIndex == null || !columnIndex.matches(resultSet, metaData)) {
+            columnIndex = new ColumnIndex(resultSet, metaData, resolve(metaData));
+            columnIndexCache.set(columnIndex);
+        }
+        return mapRow(resultSet, columnIndex.columns);
+    }
+
+    /**
+     * 从当前位置开始映射剩余的所有行
+     *
+     * @param resultSet 结果集
+     * @return 对象列表
+     * @throws SQLException 读取失败
+     */
+    public List<T> mapAll(final ResultSet resultSet) throws SQLException {
+        int[] columns = resolve(resultSet.getMetaData());
+        List<T> list = new ArrayList<T>();
+        while (resultSet.next()) {
+            list.add(mapRow(resultSet, columns));
+        }
+        return list;
+    }
+
+    /**
+     * 解析每个字段对应的列下标，列名相同时使用第一列
+     *
+     * @param metaData 结果集元数据
+     * @return 列下标，下标与字段一致，0 表示没有对应的列
+     * @throws SQLException 读取失败
+     */
+    public int[] resolve(final ResultSetMetaData metaData) throws SQLException {
+        int[] columns = new int[fieldNames.length];
+        int columnCount = metaData.getColumnCount();
+        for (int column = 1; column <= columnCount; column++) {
+            Integer index = fieldIndexMap.get(normalize(metaData.getColumnLabel(column)));
+            if (index != null && columns[index] == 0) {
+                columns[index] = column;
+            }
+        }
+        return columns;
+    }
+
+    @Override
+    public void setParameter(PreparedStatement ps, int i, T parameter, JdbcType jdbcType) throws SQLException {
+        throw new SQLException(getClass().getName() + " can only map rows, it cannot set parameters");
+    }
+
+    @Override
+    public T getResult(ResultSet rs, String columnName) throws SQLException {
+        return map(rs);
+    }
+
+    @Override
+    public T getResult(ResultSet rs, int columnIndex) throws SQLException {
+        return map(rs);
+    }
+
+    @Override
+    public T getResult(CallableStatement cs, int columnIndex) throws SQLException {
+        throw new SQLException(getClass().getName() + " can only map rows, it cannot read output parameters");
+    }
+
+    /**
+     * 按名称转换为枚举
+     *
+     * @param enumClass 枚举类型
+     * @param name      名称
+     * @param <E>       枚举类型
+     * @return 枚举，名称为 null 时返回 null
+     */
+    protected static <E extends Enum<E>> E toEnum(final Class<E> enumClass, final String name) {
+        return name == null ? null : Enum.valueOf(enumClass, name);
+    }
+
+    /**
+     * 去掉下划线并转换为大写
+     */
+    private static String normalize(final String name) {
+        return name.replace("_", "").toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * 结果集的列下标，弱引用结果集和元数据，避免线程缓存持有已经关闭的结果集
+     */
+    private static final class ColumnIndex {
+
+        private final WeakReference<ResultSet> resultSet;
+
+        private final WeakReference<ResultSetMetaData> metaData;
+
+        /**
+         * 解析时每一列的名称
+         */
+        private final String[] labels;
+
+        private final int[] columns;
+
+        private ColumnIndex(ResultSet resultSet, ResultSetMetaData metaData, int[] columns) throws SQLException {
+            this.resultSet = new WeakReference<ResultSet>(resultSet);
+            this.metaData = new WeakReference<ResultSetMetaData>(metaData);
+            this.labels = new String[metaData.getColumnCount()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = metaData.getColumnLabel(i + 1);
+            }
+            this.columns = columns;
+        }
+
+        /**
+         * 是否可以用于当前的结果集：结果集相同，并且元数据相同或者列没有变化
+         */
+        private boolean matches(ResultSet resultSet, ResultSetMetaData metaData) throws SQLException {
+            if (this.resultSet.get() != resultSet) {
+                return false;
+            }
+            if (this.metaData.get() == metaData) {
+                return true;
+            }
+            if (metaData.getColumnCount() != labels.length) {
+                return false;
+            }
+            for (int i = 0; i < labels.length; i++) {
+                if (!labels[i].equals(metaData.getColumnLabel(i + 1))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
@@ -3,7 +3,6 @@ package org.tbfeng.apt.utils;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
-import java.math.BigDecimal;
 import java.util.Collection;
 import java.util.Objects;
 
@@ -150,19 +149,14 @@ public final class ArgUtil {
     /**
      * 校验字符串是否满足全是数字
      * 1. null 值通过
-     * 2.
+     * 2. 格式与 new BigDecimal(String) 一致，逐个字符判断，不使用异常
      *
      * @param number 数字字符串
      * @return {@code true} 是
      */
     public static Boolean isNumber(String number) {
         if (!Objects.isNull(number)) {
-            try {
-                new BigDecimal(number);
-                return true;
-            } catch (Exception e) {
-                return false;
-            }
+            return NumberUtil.isNumber(number);
         }
         return true;
     }
@@ -18,7 +18,9 @@ public final class AstReflectUtil {
      * @param lhs       左边
      * @param rhs       右边
      * @return 结果
+     * @deprecated 每次调用都会重新反射查找方法与枚举，请使用 ProcessContext 中的 {@link org.tbfeng.apt.compat.JavacCompat}
      */
+    @Deprecated
     public static JCTree.JCBinary invokeJcBinary(final TreeMaker treeMaker,
                                                  final String fieldName,
                                                  final JCTree.JCExpression lhs,
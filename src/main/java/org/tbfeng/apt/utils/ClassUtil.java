@@ -110,7 +110,7 @@ public final class ClassUtil {
      *
      * @param bean 原始对象
      * @return 结果
-     * @deprecated 已废弃
+     * @deprecated 已废弃，使用 {@link org.tbfeng.apt.annotation.BeanMap} 生成的 toMap()、asMap()
      */
     @Deprecated
     public static Map<String, Object> beanToMap(Object bean) {
@@ -0,0 +1,114 @@
+package org.tbfeng.apt.utils;
+
+/**
+ * 字段访问器
+ * <p>
+ * 由 {@link org.tbfeng.apt.annotation.FieldAccess} 在编译期生成为嵌套类 X.Access（二进制名称 X$Access），
+ * 通过 switch 直接读写字段，不使用反射。只包含类本身声明的非静态字段，不包含父类的字段。
+ * <p>
+ * 运行时通过 {@link FieldAccessorRegistry#get(Class)} 获取。
+ *
+ * @param <T> 类型
+ */
+public interface FieldAccessor<T> {
+
+    /**
+     * 字段名称，下标与 {@link #get(Object, int)}、{@link #set(Object, int, Object)} 一致
+     *
+     * @return 字段名称，每次返回新的数组
+     */
+    String[] fieldNames();
+
+    /**
+     * 字段数量
+     *
+     * @return 数量
+     */
+    int fieldCount();
+
+    /**
+     * 字段名称
+     *
+     * @param index 下标
+     * @return 名称
+     * @throws IndexOutOfBoundsException 下标不存在
+     */
+    String fieldName(int index);
+
+    /**
+     * 字段的下标
+     *
+     * @param fieldName 字段名称
+     * @return 下标，不存在时返回 -1
+     */
+    int indexOf(String fieldName);
+
+    /**
+     * 字段是否可以通过 {@link #set(Object, int, Object)} 设置，final 字段不可以
+     *
+     * @param index 下标
+     * @return 是否
+     * @throws IndexOutOfBoundsException 下标不存在
+     */
+    boolean writable(int index);
+
+    /**
+     * 获取字段的值，基本类型返回包装类型
+     *
+     * @param instance 实例
+     * @param index    下标
+     * @return 值
+     * @throws IndexOutOfBoundsException 下标不存在
+     */
+    Object get(T instance, int index);
+
+    /**
+     * 设置字段的值，基本类型传入包装类型
+     *
+     * @param instance 实例
+     * @param index    下标
+     * @param value    值
+     * @throws IndexOutOfBoundsException 下标不存在
+     * @throws UnsupportedOperationException 字段为 final
+     */
+    void set(T instance, int index, Object value);
+
+    /**
+     * 获取字段的值
+     *
+     * @param instance  实例
+     * @param fieldName 字段名称
+     * @return 值
+     * @throws IllegalArgumentException 字段不存在
+     */
+    default Object get(T instance, String fieldName) {
+        return get(instance, checkedIndexOf(fieldName));
+    }
+
+    /**
+     * 设置字段的值
+     *
+     * @param instance  实例
+     * @param fieldName 字段名称
+     * @param value     值
+     * @throws IllegalArgumentException 字段不存在
+     */
+    default void set(T instance, String fieldName, Object value) {
+        set(instance, checkedIndexOf(fieldName), value);
+    }
+
+    /**
+     * 字段的下标，不存在时抛出异常
+     *
+     * @param fieldName 字段名称
+     * @return 下标
+     */
+    default int checkedIndexOf(String fieldName) {
+        int index = indexOf(fieldName);
+        if (index < 0) {
+            throw new IllegalArgumentException("Field not found for fieldName: " + fieldName);
+        }
+        return index;
+    }
+
+}
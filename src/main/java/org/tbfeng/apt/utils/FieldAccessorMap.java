@@ -0,0 +1,171 @@
+package org.tbfeng.apt.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 以对象字段为后端的 Map 视图
+ * <p>
+ * 键固定为 {@link FieldAccessor} 中的字段名称，按字段的下标排列；读取时才通过访问器读取字段，不复制任何值。
+ * put 写入对应的字段，final 字段抛出 {@link UnsupportedOperationException}；不支持新增、删除键。
+ * <p>
+ * 由 {@link org.tbfeng.apt.annotation.BeanMap} 生成的 asMap() 返回。
+ *
+ * @param <T> 对象类型
+ */
+public class FieldAccessorMap<T> extends AbstractMap<String, Object> {
+
+    /**
+     * 对象
+     */
+    private final T instance;
+
+    /**
+     * 字段访问器
+     */
+    private final FieldAccessor<? super T> accessor;
+
+    /**
+     * 键值对视图，首次使用时创建
+     */
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    public FieldAccessorMap(T instance, FieldAccessor<? super T> accessor) {
+        ArgUtil.notNull(instance, "instance");
+        ArgUtil.notNull(accessor, "accessor");
+        this.instance = instance;
+        this.accessor = accessor;
+    }
+
+    @Override
+    public int size() {
+        return accessor.fieldCount();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return accessor.fieldCount() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : accessor.get(instance, index);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int index = indexOf(key);
+        if (index < 0) {
+            throw new IllegalArgumentException("Field not found for fieldName: " + key);
+        }
+        if (!accessor.writable(index)) {
+            throw new UnsupportedOperationException("Field is final: " + key);
+        }
+        Object oldValue = accessor.get(instance, index);
+        accessor.set(instance, index, value);
+        return oldValue;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private int indexOf(Object key) {
+        return key instanceof String ? accessor.indexOf((String) key) : -1;
+    }
+
+    /**
+     * 键值对视图
+     */
+    private class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+        @Override
+        public int size() {
+            return accessor.fieldCount();
+        }
+
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            return new Iterator<Map.Entry<String, Object>>() {
+
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < accessor.fieldCount();
+                }
+
+                @Override
+                public Map.Entry<String, Object> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return new FieldEntry(index++);
+                }
+            };
+        }
+    }
+
+    /**
+     * 键值对，读取时才读取字段
+     */
+    private class FieldEntry implements Map.Entry<String, Object> {
+
+        private final int index;
+
+        FieldEntry(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return accessor.fieldName(index);
+        }
+
+        @Override
+        public Object getValue() {
+            return accessor.get(instance, index);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            return put(getKey(), value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return getKey().equals(entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            Object value = getValue();
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.tbfeng.apt.utils;
+
+import java.util.Optional;
+
+/**
+ * 字段访问器注册表
+ * <p>
+ * 按类查找编译期生成的 X$Access，每个类只通过反射查找、实例化一次，结果保存在 ClassValue 中，
+ * 不会阻止类的卸载。
+ */
+public final class FieldAccessorRegistry {
+
+    /**
+     * 生成的访问器类名的后缀
+     */
+    public static final String ACCESSOR_SUFFIX = "$Access";
+
+    private static final ClassValue<Optional<FieldAccessor<?>>> ACCESSOR_CACHE = new ClassValue<Optional<FieldAccessor<?>>>() {
+        @Override
+        protected Optional<FieldAccessor<?>> computeValue(Class<?> type) {
+            return Optional.ofNullable(load(type));
+        }
+    };
+
+    private FieldAccessorRegistry() {
+    }
+
+    /**
+     * 获取类的字段访问器
+     *
+     * @param clazz 类
+     * @param <T>   类型
+     * @return 访问器，没有生成时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> FieldAccessor<T> get(final Class<T> clazz) {
+        return (FieldAccessor<T>) ACCESSOR_CACHE.get(clazz).orElse(null);
+    }
+
+    /**
+     * 查找并实例化 X$Access
+     * <p>
+     * 加载时不初始化，确认实现了 {@link FieldAccessor} 后才实例化，
+     * 同名但无关的嵌套类不会执行静态初始化。
+     *
+     * @param clazz 类
+     * @return 访问器，不存在时返回 null
+     */
+    private static FieldAccessor<?> load(final Class<?> clazz) {
+        if (clazz.isPrimitive() || clazz.isArray()) {
+            return null;
+        }
+        try {
+            Class<?> accessorClass = Class.forName(clazz.getName() + ACCESSOR_SUFFIX, false, clazz.getClassLoader());
+            if (!FieldAccessor.class.isAssignableFrom(accessorClass)) {
+                return null;
+            }
+            return (FieldAccessor<?>) accessorClass.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("无法创建字段访问器: " + clazz.getName() + ACCESSOR_SUFFIX, e);
+        }
+    }
+
+}
@@ -2,7 +2,11 @@ package org.tbfeng.apt.utils;
 
 import com.sun.tools.javac.code.Source;
 import com.sun.tools.javac.main.JavaCompiler;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -72,4 +76,60 @@ public final class JavacUtil {
         return version;
     }
 
+    /**
+     * 获取 javac 的处理环境
+     * <p>
+     * 构建工具可能包装 ProcessingEnvironment，例如 Gradle 增量编译的 IncrementalProcessingEnvironment（delegate 字段）、
+     * IntelliJ 的动态代理（val$delegateTo 字段）、kapt（processingEnv 字段），逐层取出被包装的对象，直到 JavacProcessingEnvironment。
+     *
+     * @param processingEnv 处理环境
+     * @return javac 的处理环境，无法取出时返回 null
+     */
+    public static JavacProcessingEnvironment getJavacProcessingEnvironment(Object processingEnv) {
+        if (processingEnv instanceof JavacProcessingEnvironment) {
+            return (JavacProcessingEnvironment) processingEnv;
+        }
+        if (processingEnv == null) {
+            return null;
+        }
+
+        for (Class<?> envClass = processingEnv.getClass(); envClass != null; envClass = envClass.getSuperclass()) {
+            Object delegate = getFieldValue(envClass, "delegate", processingEnv);
+            if (delegate == null) {
+                delegate = getProxyDelegate(processingEnv);
+            }
+            if (delegate == null) {
+                delegate = getFieldValue(envClass, "processingEnv", processingEnv);
+            }
+            if (delegate != null && delegate != processingEnv) {
+                return getJavacProcessingEnvironment(delegate);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 动态代理的被代理对象
+     */
+    private static Object getProxyDelegate(Object instance) {
+        if (!Proxy.isProxyClass(instance.getClass())) {
+            return null;
+        }
+        InvocationHandler handler = Proxy.getInvocationHandler(instance);
+        return getFieldValue(handler.getClass(), "val$delegateTo", handler);
+    }
+
+    /**
+     * 读取字段，不存在或者无法访问时返回 null
+     */
+    private static Object getFieldValue(Class<?> declaringClass, String fieldName, Object instance) {
+        try {
+            Field field = declaringClass.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            return field.get(instance);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
 }
@@ -0,0 +1,85 @@
+package org.tbfeng.apt.utils;
+
+/**
+ * 数字工具类
+ */
+public final class NumberUtil {
+
+    private NumberUtil() {
+    }
+
+    /**
+     * 是否为数字，格式与 new BigDecimal(String) 接受的格式一致
+     * <p>
+     * [+-] 数字 [. 数字] [e|E [+-] 数字]，整数、小数部分至少有一个数字。
+     * 逐个字符判断，不创建对象也不使用异常，可以用于校验等频繁调用的场景。
+     *
+     * @param chars 字符串
+     * @return {@code true} 是，null 或者空字符串返回 false
+     */
+    public static boolean isNumber(final CharSequence chars) {
+        if (chars == null) {
+            return false;
+        }
+        int length = chars.length();
+        int index = 0;
+        if (index < length && (chars.charAt(index) == '+' || chars.charAt(index) == '-')) {
+            index++;
+        }
+
+        // 整数、小数部分
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean dot = false;
+        for (; index < length; index++) {
+            char c = chars.charAt(index);
+            if (Character.isDigit(c)) {
+                digits++;
+                if (dot) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (index == length) {
+            return true;
+        }
+
+        // 指数部分
+        char e = chars.charAt(index);
+        if (e != 'e' && e != 'E') {
+            return false;
+        }
+        index++;
+        boolean negative = false;
+        if (index < length && (chars.charAt(index) == '+' || chars.charAt(index) == '-')) {
+            negative = chars.charAt(index) == '-';
+            index++;
+        }
+        if (index == length) {
+            return false;
+        }
+        long exponent = 0;
+        for (; index < length; index++) {
+            char c = chars.charAt(index);
+            if (!Character.isDigit(c)) {
+                return false;
+            }
+            exponent = exponent * 10 + Character.digit(c, 10);
+            // 指数的绝对值需要在 int 范围内
+            if (exponent > Integer.MAX_VALUE) {
+                return false;
+            }
+        }
+        // BigDecimal 的 scale 为 int（不包括 Integer.MIN_VALUE），小数位数减指数超出范围时不合法
+        long scale = fractionDigits - (negative ? -exponent : exponent);
+        return scale > Integer.MIN_VALUE && scale <= Integer.MAX_VALUE;
+    }
+
+}
@@ -11,6 +11,9 @@ import java.util.Objects;
 
 /**
  * 反射字段工具类
+ * <p>
+ * 按字段名称、字段读写值时，类上标记了 {@link org.tbfeng.apt.annotation.FieldAccess} 的优先使用编译期生成的
+ * {@link FieldAccessor}，不存在或者不包含该字段（例如父类的字段）时再使用反射。
  */
 public final class ReflectFieldUtil {
 
@@ -111,6 +114,9 @@ public final class ReflectFieldUtil {
 
     /**
      * 设置字段的值
+     * <p>
+     * 值的类型不匹配或者把 null 设置到基本类型字段时，抛出包装了 IllegalArgumentException 的 RuntimeException，
+     * 无论是否存在编译期生成的字段访问器。
      *
      * @param field      字段
      * @param instance   实例对象
@@ -118,16 +124,21 @@ public final class ReflectFieldUtil {
      * @see #setValue(Object, String, Object) 设置对象
      */
     public static void setValue(final Field field, final Object instance, final Object fieldValue) {
+        if (setByAccessor(field.getDeclaringClass(), instance, field.getName(), fieldValue)) {
+            return;
+        }
         try {
             field.setAccessible(true);
             field.set(instance, fieldValue);
-        } catch (IllegalAccessException e) {
+        } catch (IllegalAccessException | IllegalArgumentException e) {
             throw new RuntimeException(e);
         }
     }
 
     /**
      * 设置字段值
+     * <p>
+     * 值的类型不匹配或者把 null 设置到基本类型字段时，抛出包装了 IllegalArgumentException 的 RuntimeException。
      *
      * @param instance   实例
      * @param fieldName  字段名称
@@ -135,6 +146,9 @@ public final class ReflectFieldUtil {
      */
     public static void setValue(final Object instance, final String fieldName, final Object fieldValue) {
         ArgUtil.notNull(instance, "instance");
+        if (setByAccessor(instance.getClass(), instance, fieldName, fieldValue)) {
+            return;
+        }
 
         try {
             final Class clazz = instance.getClass();
@@ -142,7 +156,7 @@ public final class ReflectFieldUtil {
             Field field = fieldNameMap.get(fieldName);
             field.setAccessible(true);
             field.set(instance, fieldValue);
-        } catch (IllegalAccessException e) {
+        } catch (IllegalAccessException | IllegalArgumentException e) {
             throw new RuntimeException(e);
         }
     }
@@ -155,6 +169,13 @@ public final class ReflectFieldUtil {
      * @return 值
      */
     public static Object getValue(final Field field, final Object instance) {
+        FieldAccessor<Object> accessor = getAccessor(field.getDeclaringClass());
+        if (accessor != null) {
+            int index = accessor.indexOf(field.getName());
+            if (index >= 0) {
+                return accessor.get(instance, index);
+            }
+        }
         try {
             field.setAccessible(true);
             return field.get(instance);
@@ -171,6 +192,14 @@ public final class ReflectFieldUtil {
      * @return 值
      */
     public static Object getValue(final String fieldName, final Object instance) {
+        ArgUtil.notNull(instance, "object");
+        FieldAccessor<Object> accessor = getAccessor(instance.getClass());
+        if (accessor != null) {
+            int index = accessor.indexOf(fieldName);
+            if (index >= 0) {
+                return accessor.get(instance, index);
+            }
+        }
         Field field = getField(instance, fieldName);
         return getValue(field, instance);
     }
@@ -211,4 +240,44 @@ public final class ReflectFieldUtil {
         throw new RuntimeException("Field not found for fieldName: " + fieldName);
     }
 
+    /**
+     * 获取编译期生成的字段访问器
+     *
+     * @param clazz 类
+     * @return 访问器，不存在时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    private static FieldAccessor<Object> getAccessor(final Class<?> clazz) {
+        return (FieldAccessor<Object>) FieldAccessorRegistry.get(clazz);
+    }
+
+    /**
+     * 通过字段访问器设置值
+     *
+     * @param clazz      字段所在的类
+     * @param instance   实例
+     * @param fieldName  字段名称
+     * @param fieldValue 值
+     * @return 是否设置成功，访问器不存在、不包含该字段、字段为 final 或者实例为 null 时返回 false
+     */
+    private static boolean setByAccessor(final Class<?> clazz, final Object instance,
+                                         final String fieldName, final Object fieldValue) {
+        FieldAccessor<Object> accessor = getAccessor(clazz);
+        if (accessor == null || instance == null) {
+            return false;
+        }
+        int index = accessor.indexOf(fieldName);
+        if (index < 0 || !accessor.writable(index)) {
+            return false;
+        }
+        try {
+            accessor.set(instance, index, fieldValue);
+        } catch (NullPointerException | ClassCastException e) {
+            // 与 Field.set 一致：null 设置到基本类型、类型不匹配都是 IllegalArgumentException
+            throw new RuntimeException(new IllegalArgumentException("Can not set " + clazz.getName() + "." + fieldName
+                    + " to " + (fieldValue == null ? "null value" : fieldValue.getClass().getName()), e));
+        }
+        return true;
+    }
+
 }
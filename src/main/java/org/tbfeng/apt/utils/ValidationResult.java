@@ -0,0 +1,136 @@
+package org.tbfeng.apt.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 校验结果
+ * <p>
+ * 由 {@link org.tbfeng.apt.annotation.Validate} 生成的 validate(ValidationResult) 收集违反的约束，不抛出异常。
+ * 没有违反约束时不创建任何集合；可以在同一个线程中 {@link #clear()} 后重复使用，非线程安全。
+ */
+public class ValidationResult {
+
+    /**
+     * 违反约束的字段名称，首次添加时创建
+     */
+    private List<String> fieldNameList;
+
+    /**
+     * 错误信息，与字段名称一一对应
+     */
+    private List<String> messageList;
+
+    public static ValidationResult newInstance() {
+        return new ValidationResult();
+    }
+
+    /**
+     * 添加违反的约束
+     *
+     * @param fieldName 字段名称
+     * @param message   错误信息
+     * @return this
+     */
+    public ValidationResult add(final String fieldName, final String message) {
+        if (fieldNameList == null) {
+            fieldNameList = new ArrayList<String>();
+            messageList = new ArrayList<String>();
+        }
+        fieldNameList.add(fieldName);
+        messageList.add(message);
+        return this;
+    }
+
+    /**
+     * 是否没有违反任何约束
+     *
+     * @return 是否
+     */
+    public boolean valid() {
+        return fieldNameList == null || fieldNameList.isEmpty();
+    }
+
+    /**
+     * 违反约束的数量
+     *
+     * @return 数量
+     */
+    public int size() {
+        return fieldNameList == null ? 0 : fieldNameList.size();
+    }
+
+    /**
+     * 违反约束的字段名称
+     *
+     * @param index 下标
+     * @return 字段名称
+     */
+    public String fieldName(final int index) {
+        if (fieldNameList == null) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: 0");
+        }
+        return fieldNameList.get(index);
+    }
+
+    /**
+     * 错误信息
+     *
+     * @param index 下标
+     * @return 错误信息
+     */
+    public String message(final int index) {
+        if (messageList == null) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: 0");
+        }
+        return messageList.get(index);
+    }
+
+    /**
+     * 所有错误信息，格式为 字段名称 + " " + 错误信息
+     *
+     * @return 错误信息，只读
+     */
+    public List<String> messages() {
+        if (valid()) {
+            return Collections.emptyList();
+        }
+        List<String> messages = new ArrayList<String>(fieldNameList.size());
+        for (int i = 0; i < fieldNameList.size(); i++) {
+            messages.add(fieldNameList.get(i) + " " + messageList.get(i));
+        }
+        return Collections.unmodifiableList(messages);
+    }
+
+    /**
+     * 清空，保留已经创建的集合以便重复使用
+     *
+     * @return this
+     */
+    public ValidationResult clear() {
+        if (fieldNameList != null) {
+            fieldNameList.clear();
+            messageList.clear();
+        }
+        return this;
+    }
+
+    /**
+     * 存在违反的约束时抛出 IllegalArgumentException，信息为所有错误信息
+     *
+     * @return this
+     */
+    public ValidationResult throwIfInvalid() {
+        if (!valid()) {
+            throw new IllegalArgumentException(String.join(", ", messages()));
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "ValidationResult" + messages();
+    }
+
+}
@@ -0,0 +1,165 @@
+package org.tbfeng.apt;
+
+import com.sun.tools.javac.api.JavacTool;
+import org.tbfeng.apt.processor.DispatchProcessor;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * 测试中进程内编译测试用例
+ * <p>
+ * 直接使用 javac 的 JavacTool 与 {@link DispatchProcessor}，classpath 沿用测试的 classpath。
+ * class 输出到 outputDir/classes，生成的源码输出到 outputDir/generated。
+ */
+public final class TestCompiler {
+
+    private TestCompiler() {
+    }
+
+    /**
+     * 内存中的源文件
+     *
+     * @param className 全限定类名
+     * @param source    源码
+     * @return 源文件
+     */
+    public static JavaFileObject source(final String className, final String source) {
+        URI uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+    }
+
+    /**
+     * 测试资源中的源文件，例如 fixture.order.Order 对应 src/test/resources/fixture/order/Order.java
+     *
+     * @param className 全限定类名
+     * @return 源文件
+     */
+    public static JavaFileObject resource(final String className) {
+        String path = className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension;
+        try (InputStream in = TestCompiler.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalArgumentException("找不到测试用例: " + path);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                out.write(buffer, 0, n);
+            }
+            return source(className, new String(out.toByteArray(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 编译源文件，存在错误时抛出异常
+     *
+     * @param sourceList 源文件
+     * @param outputDir  输出目录
+     * @param options    额外的编译参数，例如 -Aapt.parallelism=4
+     * @return 编译的诊断信息，包括警告
+     */
+    public static List<Diagnostic<? extends JavaFileObject>> compile(List<? extends JavaFileObject> sourceList,
+                                                                     File outputDir, String... options) {
+        File classDir = new File(outputDir, "classes");
+        File generatedDir = new File(outputDir, "generated");
+        if (!(classDir.isDirectory() || classDir.mkdirs()) || !(generatedDir.isDirectory() || generatedDir.mkdirs())) {
+            throw new IllegalStateException("无法创建目录: " + outputDir);
+        }
+
+        List<String> optionList = new ArrayList<String>();
+        optionList.add("-classpath");
+        optionList.add(System.getProperty("java.class.path"));
+        optionList.add("-d");
+        optionList.add(classDir.getAbsolutePath());
+        optionList.add("-s");
+        optionList.add(generatedDir.getAbsolutePath());
+        optionList.add("-encoding");
+        optionList.add("UTF-8");
+        Collections.addAll(optionList, options);
+
+        JavaCompiler compiler = JavacTool.create();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, optionList, null, sourceList);
+            task.setProcessors(Collections.singletonList(new DispatchProcessor()));
+            if (!task.call()) {
+                StringBuilder errors = new StringBuilder();
+                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                    if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                        errors.append('\n').append(diagnostic);
+                    }
+                }
+                throw new IllegalStateException("编译失败: " + errors);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return diagnostics.getDiagnostics();
+    }
+
+    /**
+     * 读取目录中的所有文件
+     *
+     * @param dir 目录
+     * @return 相对路径（以 / 分隔） -> 文件内容，按路径排序
+     */
+    public static Map<String, byte[]> readTree(final File dir) {
+        Map<String, byte[]> fileMap = new TreeMap<String, byte[]>();
+        Path root = dir.toPath();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                fileMap.put(root.relativize(path).toString().replace(File.separatorChar, '/'), Files.readAllBytes(path));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return fileMap;
+    }
+
+    /**
+     * 测试的输出目录 target/fixture-output/name，已经存在时先清空
+     *
+     * @param name 名称
+     * @return 目录
+     */
+    public static File outputDir(final String name) {
+        File dir = new File("target/fixture-output", name);
+        if (dir.exists()) {
+            try (Stream<Path> paths = Files.walk(dir.toPath())) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return dir;
+    }
+
+}
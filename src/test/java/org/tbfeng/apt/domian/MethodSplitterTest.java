@@ -0,0 +1,87 @@
+package org.tbfeng.apt.domian;
+
+import com.sun.tools.classfile.ClassFile;
+import com.sun.tools.classfile.Code_attribute;
+import com.sun.tools.classfile.Method;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tbfeng.apt.TestCompiler;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译字段很多的测试用例，检查拆分后的生成方法
+ */
+public class MethodSplitterTest {
+
+    /**
+     * 宽类的字段数
+     */
+    private static final int WIDE_FIELD_COUNT = 400;
+
+    @Test
+    public void splitHelpersKeepSuppressWarnings() {
+        List<JavaFileObject> sourceList = new ArrayList<JavaFileObject>();
+        sourceList.add(TestCompiler.source("fixture.split.MapBean", wideClass("MapBean", "@org.tbfeng.apt.annotation.BeanMap\n",
+                "java.util.List<String>")));
+        sourceList.add(TestCompiler.source("fixture.split.Source", wideClass("Source", "", "java.util.List<Integer>")));
+        sourceList.add(TestCompiler.source("fixture.split.Target", wideClass("Target", "", "java.util.List<String>")));
+        sourceList.add(TestCompiler.source("fixture.split.Copier", "package fixture.split;\n\n"
+                + "@org.tbfeng.apt.annotation.BeanCopy(source = Source.class, target = Target.class)\n"
+                + "public class Copier {\n}\n"));
+
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = TestCompiler.compile(sourceList,
+                TestCompiler.outputDir("split-warnings"), "-Xlint:all");
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            Assert.assertFalse(diagnostic.toString(), diagnostic.getMessage(null).contains("unchecked"));
+        }
+    }
+
+    @Test
+    public void generatedMethodsStayUnderLimit() throws Exception {
+        File outputDir = TestCompiler.outputDir("split-size");
+        TestCompiler.compile(Collections.singletonList(TestCompiler.source("fixture.split.SizeBean",
+                wideClass("SizeBean", "@org.tbfeng.apt.annotation.ToString\n"
+                        + "@org.tbfeng.apt.annotation.Builder\n"
+                        + "@org.tbfeng.apt.annotation.EqualsHashCode\n"
+                        + "@org.tbfeng.apt.annotation.FieldAccess\n"
+                        + "@org.tbfeng.apt.annotation.BeanMap\n"
+                        + "@org.tbfeng.apt.annotation.RowMapping\n", "Integer"))), outputDir);
+
+        List<String> oversizeList = new ArrayList<String>();
+        for (Map.Entry<String, byte[]> entry : TestCompiler.readTree(new File(outputDir, "classes")).entrySet()) {
+            ClassFile classFile = ClassFile.read(new ByteArrayInputStream(entry.getValue()));
+            for (Method method : classFile.methods) {
+                String methodName = method.getName(classFile.constant_pool);
+                Code_attribute code = (Code_attribute) method.attributes.get("Code");
+                // 常量数组在静态初始化中，只执行一次；indexOf 是按桶号的跳转表，每个桶只有一次调用
+                if (code == null || "<clinit>".equals(methodName) || "indexOf".equals(methodName)) {
+                    continue;
+                }
+                if (code.code_length > MethodSplitter.DEFAULT_MAX_METHOD_SIZE) {
+                    oversizeList.add(entry.getKey() + " " + methodName + ": " + code.code_length);
+                }
+            }
+        }
+        Assert.assertTrue(oversizeList.toString(), oversizeList.isEmpty());
+    }
+
+    private static String wideClass(final String className, final String annotations, final String fieldType) {
+        StringBuilder source = new StringBuilder(WIDE_FIELD_COUNT * 48)
+                .append("package fixture.split;\n\n")
+                .append(annotations)
+                .append("public class ").append(className).append(" {\n\n");
+        for (int i = 0; i < WIDE_FIELD_COUNT; i++) {
+            source.append("    public ").append(fieldType).append(" f").append(i).append(";\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+}
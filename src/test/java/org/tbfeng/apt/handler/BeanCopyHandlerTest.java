@@ -0,0 +1,68 @@
+package org.tbfeng.apt.handler;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tbfeng.apt.TestCompiler;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 编译 @BeanCopy 的测试用例，检查生成的 copy 方法
+ */
+public class BeanCopyHandlerTest {
+
+    @Test
+    public void copyReadsAndWritesPropertiesOfInterfaces() throws Exception {
+        List<JavaFileObject> sourceList = new ArrayList<JavaFileObject>();
+        // HasId 同时被 Named、Aged 继承
+        sourceList.add(TestCompiler.source("fixture.copy.HasId", "package fixture.copy;\n\n"
+                + "public interface HasId {\n    Long getId();\n}\n"));
+        sourceList.add(TestCompiler.source("fixture.copy.Named", "package fixture.copy;\n\n"
+                + "public interface Named extends HasId {\n    String getName();\n}\n"));
+        sourceList.add(TestCompiler.source("fixture.copy.Aged", "package fixture.copy;\n\n"
+                + "public interface Aged extends HasId {\n    default int getAge() {\n        return 18;\n    }\n}\n"));
+        sourceList.add(TestCompiler.source("fixture.copy.Member", "package fixture.copy;\n\n"
+                + "public interface Member extends Named, Aged {\n}\n"));
+        sourceList.add(TestCompiler.source("fixture.copy.Writable", "package fixture.copy;\n\n"
+                + "public interface Writable {\n    void setId(Long id);\n}\n"));
+        sourceList.add(TestCompiler.source("fixture.copy.MemberView", "package fixture.copy;\n\n"
+                + "public abstract class MemberView implements Writable {\n"
+                + "    public String name;\n    public int age;\n}\n"));
+        sourceList.add(TestCompiler.source("fixture.copy.MemberViewImpl", "package fixture.copy;\n\n"
+                + "public class MemberViewImpl extends MemberView {\n"
+                + "    public Long id;\n"
+                + "    @Override\n    public void setId(Long id) {\n        this.id = id;\n    }\n}\n"));
+        sourceList.add(TestCompiler.source("fixture.copy.MemberCopier", "package fixture.copy;\n\n"
+                + "@org.tbfeng.apt.annotation.BeanCopy(source = Member.class, target = MemberView.class)\n"
+                + "public class MemberCopier {\n}\n"));
+        File outputDir = TestCompiler.outputDir("bean-copy");
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = TestCompiler.compile(sourceList, outputDir);
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            Assert.assertNotEquals(diagnostic.toString(), Diagnostic.Kind.WARNING, diagnostic.getKind());
+        }
+
+        ClassLoader loader = new URLClassLoader(new URL[]{new File(outputDir, "classes").toURI().toURL()},
+                BeanCopyHandlerTest.class.getClassLoader());
+        Class<?> memberClass = Class.forName("fixture.copy.Member", true, loader);
+        Object member = Proxy.newProxyInstance(loader, new Class<?>[]{memberClass},
+                (proxy, method, args) -> "getId".equals(method.getName()) ? (Object) 7L
+                        : "getName".equals(method.getName()) ? "tom" : 20);
+        Object view = Class.forName("fixture.copy.MemberViewImpl", true, loader).newInstance();
+        Method copy = Class.forName("fixture.copy.MemberCopier", true, loader)
+                .getMethod("copy", memberClass, Class.forName("fixture.copy.MemberView", true, loader));
+        copy.invoke(null, member, view);
+
+        Assert.assertEquals(7L, view.getClass().getField("id").get(view));
+        Assert.assertEquals("tom", view.getClass().getField("name").get(view));
+        Assert.assertEquals(20, view.getClass().getField("age").get(view));
+    }
+
+}
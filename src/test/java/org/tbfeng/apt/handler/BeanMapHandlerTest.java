@@ -0,0 +1,82 @@
+package org.tbfeng.apt.handler;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tbfeng.apt.TestCompiler;
+
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译 @BeanMap 的测试用例，检查生成的 toMap、fromMap、asMap
+ */
+public class BeanMapHandlerTest {
+
+    private static Class<?> accountClass;
+
+    @BeforeClass
+    public static void compileFixtures() throws Exception {
+        List<JavaFileObject> sourceList = new ArrayList<JavaFileObject>();
+        sourceList.add(TestCompiler.source("fixture.map.Account", "package fixture.map;\n\n"
+                + "@org.tbfeng.apt.annotation.BeanMap\npublic class Account {\n"
+                + "    public final Long id;\n    public String name;\n    public int age;\n"
+                + "    public static String TYPE = \"account\";\n\n"
+                + "    public Account() {\n        this.id = 1L;\n    }\n}\n"));
+        File outputDir = TestCompiler.outputDir("bean-map");
+        TestCompiler.compile(sourceList, outputDir);
+        ClassLoader loader = new URLClassLoader(new URL[]{new File(outputDir, "classes").toURI().toURL()},
+                BeanMapHandlerTest.class.getClassLoader());
+        accountClass = Class.forName("fixture.map.Account", true, loader);
+    }
+
+    @Test
+    public void toMapCopiesFieldsInDeclarationOrder() throws Exception {
+        Object account = accountClass.newInstance();
+        accountClass.getField("name").set(account, "tom");
+        accountClass.getField("age").setInt(account, 20);
+        Map<?, ?> map = (Map<?, ?>) accountClass.getMethod("toMap").invoke(account);
+        Assert.assertEquals(Arrays.asList("id", "name", "age"), new ArrayList<Object>(map.keySet()));
+        Assert.assertEquals(Arrays.<Object>asList(1L, "tom", 20), new ArrayList<Object>(map.values()));
+    }
+
+    @Test
+    public void fromMapSkipsFinalFields() throws Exception {
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("id", 9L);
+        map.put("name", "tom");
+        Object account = accountClass.newInstance();
+        accountClass.getField("age").setInt(account, 20);
+        Assert.assertSame(account, accountClass.getMethod("fromMap", Map.class).invoke(account, map));
+        Assert.assertEquals(1L, accountClass.getField("id").get(account));
+        Assert.assertEquals("tom", accountClass.getField("name").get(account));
+        // map 中不存在的键不修改字段
+        Assert.assertEquals(20, accountClass.getField("age").getInt(account));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void asMapWritesThroughToFields() throws Exception {
+        Object account = accountClass.newInstance();
+        Map<String, Object> map = (Map<String, Object>) accountClass.getMethod("asMap").invoke(account);
+        Assert.assertEquals(3, map.size());
+
+        map.put("name", "tom");
+        map.put("age", 20);
+        Assert.assertEquals("tom", accountClass.getField("name").get(account));
+        Assert.assertEquals(20, accountClass.getField("age").getInt(account));
+
+        // 读取时才读取字段
+        accountClass.getField("name").set(account, "jerry");
+        Assert.assertEquals("jerry", map.get("name"));
+        Assert.assertNull(map.get("TYPE"));
+    }
+
+}
@@ -0,0 +1,72 @@
+package org.tbfeng.apt.handler;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tbfeng.apt.TestCompiler;
+
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 编译 @EqualsHashCode 的测试用例，检查生成的 equals、hashCode 与包装类的 equals 一致
+ */
+public class EqualsHashCodeHandlerTest {
+
+    private static Class<?> priceClass;
+
+    @BeforeClass
+    public static void compileFixtures() throws Exception {
+        List<JavaFileObject> sourceList = new ArrayList<JavaFileObject>();
+        sourceList.add(TestCompiler.source("fixture.equals.Price", "package fixture.equals;\n\n"
+                + "@org.tbfeng.apt.annotation.EqualsHashCode\npublic class Price {\n"
+                + "    public float amount;\n    public double rate;\n    public int[] codes;\n    public String name;\n}\n"));
+        File outputDir = TestCompiler.outputDir("equals-hash-code");
+        TestCompiler.compile(sourceList, outputDir);
+        ClassLoader loader = new URLClassLoader(new URL[]{new File(outputDir, "classes").toURI().toURL()},
+                EqualsHashCodeHandlerTest.class.getClassLoader());
+        priceClass = Class.forName("fixture.equals.Price", true, loader);
+    }
+
+    @Test
+    public void nanFieldsAreEqual() throws Exception {
+        Object left = price(Float.NaN, Double.NaN, "a");
+        Object right = price(Float.NaN, Double.NaN, "a");
+        Assert.assertEquals(left, right);
+        Assert.assertEquals(left.hashCode(), right.hashCode());
+    }
+
+    @Test
+    public void signedZeroFieldsAreNotEqual() throws Exception {
+        Assert.assertNotEquals(price(0.0f, 1.0, "a"), price(-0.0f, 1.0, "a"));
+        Assert.assertNotEquals(price(1.0f, 0.0, "a"), price(1.0f, -0.0, "a"));
+    }
+
+    @Test
+    public void arraysAndReferencesCompareByContent() throws Exception {
+        Object left = price(1.5f, 2.5, new String("a"));
+        Object right = price(1.5f, 2.5, new String("a"));
+        priceClass.getField("codes").set(left, new int[]{1, 2});
+        priceClass.getField("codes").set(right, new int[]{1, 2});
+        Assert.assertEquals(left, right);
+        Assert.assertEquals(left.hashCode(), right.hashCode());
+
+        priceClass.getField("codes").set(right, new int[]{1, 3});
+        Assert.assertNotEquals(left, right);
+        Assert.assertNotEquals(left, null);
+        Assert.assertNotEquals(left, "a");
+    }
+
+    private static Object price(final float amount, final double rate, final String name) throws Exception {
+        Object price = priceClass.newInstance();
+        priceClass.getField("amount").setFloat(price, amount);
+        priceClass.getField("rate").setDouble(price, rate);
+        priceClass.getField("name").set(price, name);
+        return price;
+    }
+
+}
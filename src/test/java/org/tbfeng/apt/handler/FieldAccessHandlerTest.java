@@ -0,0 +1,135 @@
+package org.tbfeng.apt.handler;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tbfeng.apt.TestCompiler;
+import org.tbfeng.apt.utils.FieldAccessor;
+import org.tbfeng.apt.utils.FieldAccessorRegistry;
+import org.tbfeng.apt.utils.ReflectFieldUtil;
+
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 编译 @FieldAccess 的测试用例，检查生成的访问器以及 {@link ReflectFieldUtil} 通过访问器读写字段
+ */
+public class FieldAccessHandlerTest {
+
+    /**
+     * 宽类的字段数，足够把 indexOf 分桶
+     */
+    private static final int WIDE_FIELD_COUNT = 400;
+
+    private static ClassLoader fixtureLoader;
+
+    @BeforeClass
+    public static void compileFixtures() throws Exception {
+        // Aa 与 BB 的 hashCode 相同
+        StringBuilder wide = new StringBuilder("package fixture.access;\n\n@org.tbfeng.apt.annotation.FieldAccess\npublic class WideAccess {\n")
+                .append("    private int Aa;\n")
+                .append("    private int BB;\n");
+        for (int i = 0; i < WIDE_FIELD_COUNT; i++) {
+            wide.append("    private String f").append(i).append(";\n");
+        }
+        wide.append("}\n");
+
+        List<JavaFileObject> sourceList = new ArrayList<JavaFileObject>();
+        sourceList.add(TestCompiler.source("fixture.access.WideAccess", wide.toString()));
+        sourceList.add(TestCompiler.source("fixture.access.SmallAccess", "package fixture.access;\n\n"
+                + "@org.tbfeng.apt.annotation.FieldAccess\npublic class SmallAccess {\n"
+                + "    private int Aa;\n    private int BB;\n    private String name;\n}\n"));
+        sourceList.add(TestCompiler.source("fixture.access.PlainAccess", "package fixture.access;\n\n"
+                + "public class PlainAccess {\n"
+                + "    private int Aa;\n    private int BB;\n    private String name;\n}\n"));
+        sourceList.add(TestCompiler.source("fixture.access.UnrelatedAccess", "package fixture.access;\n\n"
+                + "public class UnrelatedAccess {\n"
+                + "    public static boolean initialized;\n"
+                + "    public static class Access {\n        static { initialized = true; }\n    }\n}\n"));
+        File outputDir = TestCompiler.outputDir("field-access");
+        TestCompiler.compile(sourceList, outputDir);
+        fixtureLoader = new URLClassLoader(new URL[]{new File(outputDir, "classes").toURI().toURL()},
+                FieldAccessHandlerTest.class.getClassLoader());
+    }
+
+    @Test
+    public void indexOfFindsEveryField() throws Exception {
+        for (String className : new String[]{"fixture.access.SmallAccess", "fixture.access.WideAccess"}) {
+            FieldAccessor<Object> accessor = accessor(className);
+            String[] fieldNames = accessor.fieldNames();
+            for (int i = 0; i < fieldNames.length; i++) {
+                Assert.assertEquals(className + "." + fieldNames[i], i, accessor.indexOf(fieldNames[i]));
+            }
+            Assert.assertEquals(-1, accessor.indexOf(null));
+            Assert.assertEquals(-1, accessor.indexOf("missing"));
+            // hashCode 与 Aa、BB 相同但名称不同
+            Assert.assertEquals(-1, accessor.indexOf("C#"));
+        }
+    }
+
+    @Test
+    public void wideIndexOfIsBucketed() throws Exception {
+        long helperCount = 0;
+        for (Method method : accessor("fixture.access.WideAccess").getClass().getDeclaredMethods()) {
+            if (method.getName().startsWith("indexOf$")) {
+                helperCount++;
+            }
+        }
+        Assert.assertTrue("indexOf 没有分桶", helperCount > 1);
+    }
+
+    @Test
+    public void setValueFailsTheSameWayWithAndWithoutAccessor() throws Exception {
+        // 有访问器与只能反射时抛出相同的异常
+        for (String className : new String[]{"fixture.access.SmallAccess", "fixture.access.PlainAccess"}) {
+            Object instance = Class.forName(className, true, fixtureLoader).newInstance();
+            assertInvalidValue(className, instance, "Aa", null);
+            assertInvalidValue(className, instance, "name", 1);
+
+            ReflectFieldUtil.setValue(instance, "name", "tom");
+            ReflectFieldUtil.setValue(instance.getClass().getDeclaredField("Aa"), instance, 3);
+            Assert.assertEquals("tom", ReflectFieldUtil.getValue("name", instance));
+            Assert.assertEquals(3, ReflectFieldUtil.getValue("Aa", instance));
+        }
+    }
+
+    @Test
+    public void registrySkipsUnrelatedAccessClass() throws Exception {
+        Class<?> unrelatedClass = Class.forName("fixture.access.UnrelatedAccess", true, fixtureLoader);
+        Assert.assertNull(FieldAccessorRegistry.get(unrelatedClass));
+        // 没有实现 FieldAccessor 的 X$Access 不会初始化
+        Assert.assertEquals(Boolean.FALSE, unrelatedClass.getField("initialized").get(null));
+        Assert.assertNotNull(FieldAccessorRegistry.get(Class.forName("fixture.access.SmallAccess", true, fixtureLoader)));
+    }
+
+    private static void assertInvalidValue(final String className, final Object instance,
+                                           final String fieldName, final Object value) throws Exception {
+        try {
+            ReflectFieldUtil.setValue(instance, fieldName, value);
+            Assert.fail(className + "." + fieldName + " 应该抛出异常");
+        } catch (RuntimeException e) {
+            Assert.assertEquals(RuntimeException.class, e.getClass());
+            Assert.assertTrue(className + ": " + e.getCause(), e.getCause() instanceof IllegalArgumentException);
+        }
+        try {
+            ReflectFieldUtil.setValue(instance.getClass().getDeclaredField(fieldName), instance, value);
+            Assert.fail(className + "." + fieldName + " 应该抛出异常");
+        } catch (RuntimeException e) {
+            Assert.assertEquals(RuntimeException.class, e.getClass());
+            Assert.assertTrue(className + ": " + e.getCause(), e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FieldAccessor<Object> accessor(final String className) throws Exception {
+        FieldAccessor<?> accessor = FieldAccessorRegistry.get(Class.forName(className, true, fixtureLoader));
+        Assert.assertNotNull(className + " 没有访问器", accessor);
+        return (FieldAccessor<Object>) accessor;
+    }
+
+}
@@ -0,0 +1,243 @@
+package org.tbfeng.apt.handler;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tbfeng.apt.TestCompiler;
+import org.tbfeng.apt.utils.AbstractRowMapper;
+
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 编译 @RowMapping 的测试用例，用 H2 内存数据库的结果集测试生成的 RowMapper
+ */
+public class RowMappingHandlerTest {
+
+    /**
+     * 宽类的列数，足够把 mapRow 拆分为多个方法
+     */
+    private static final int WIDE_COLUMN_COUNT = 150;
+
+    private static ClassLoader fixtureLoader;
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        if (fixtureLoader == null) {
+            fixtureLoader = compileFixtures();
+        }
+        connection = DriverManager.getConnection("jdbc:h2:mem:");
+        execute("CREATE TABLE users (id BIGINT PRIMARY KEY, user_name VARCHAR(32), age INT, score BIGINT, level INT,"
+                + " active BOOLEAN, balance DECIMAL(10, 2), created_at TIMESTAMP, status VARCHAR(16))");
+        execute("INSERT INTO users VALUES (1, 'alice', 30, 100, 3, TRUE, 12.50, TIMESTAMP '2024-01-02 03:04:05', 'ACTIVE')");
+        execute("INSERT INTO users VALUES (2, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL)");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void mapAllMapsEveryRow() throws Exception {
+        List<Object> rowList;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT * FROM users ORDER BY id")) {
+            rowList = mapper("fixture.row.UserRow").mapAll(resultSet);
+        }
+
+        Assert.assertEquals(2, rowList.size());
+        Object alice = rowList.get(0);
+        Assert.assertEquals(1L, field(alice, "id"));
+        Assert.assertEquals("alice", field(alice, "userName"));
+        Assert.assertEquals(30, field(alice, "age"));
+        Assert.assertEquals(100L, field(alice, "score"));
+        Assert.assertEquals(3, field(alice, "level"));
+        Assert.assertEquals(Boolean.TRUE, field(alice, "active"));
+        Assert.assertEquals(new BigDecimal("12.50"), field(alice, "balance"));
+        Assert.assertEquals(Timestamp.valueOf("2024-01-02 03:04:05"), field(alice, "createdAt"));
+        Assert.assertEquals("ACTIVE", String.valueOf(field(alice, "status")));
+        Assert.assertNull(field(alice, "missing"));
+
+        // NULL 的列：包装类型为 null，基本类型为 0
+        Object empty = rowList.get(1);
+        Assert.assertEquals(2L, field(empty, "id"));
+        Assert.assertNull(field(empty, "userName"));
+        Assert.assertNull(field(empty, "age"));
+        Assert.assertNull(field(empty, "score"));
+        Assert.assertEquals(0, field(empty, "level"));
+        Assert.assertNull(field(empty, "active"));
+        Assert.assertNull(field(empty, "balance"));
+        Assert.assertNull(field(empty, "createdAt"));
+        Assert.assertNull(field(empty, "status"));
+    }
+
+    @Test
+    public void mapMatchesLabelsIgnoringCaseAndUnderscore() throws Exception {
+        AbstractRowMapper<Object> mapper = mapper("fixture.row.UserRow");
+        List<Object> rowList = new ArrayList<Object>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT status AS \"Status\", user_name AS \"USERNAME\", age AS \"a_g_e\", id FROM users ORDER BY id")) {
+            while (resultSet.next()) {
+                rowList.add(mapper.map(resultSet));
+            }
+        }
+
+        Assert.assertEquals(2, rowList.size());
+        Assert.assertEquals(1L, field(rowList.get(0), "id"));
+        Assert.assertEquals("alice", field(rowList.get(0), "userName"));
+        Assert.assertEquals(30, field(rowList.get(0), "age"));
+        Assert.assertEquals("ACTIVE", String.valueOf(field(rowList.get(0), "status")));
+        // 结果集中没有的列保持默认值
+        Assert.assertNull(field(rowList.get(0), "score"));
+        Assert.assertEquals(2L, field(rowList.get(1), "id"));
+        Assert.assertNull(field(rowList.get(1), "userName"));
+    }
+
+    @Test
+    public void getResultMapsTheCurrentRow() throws Exception {
+        AbstractRowMapper<Object> mapper = mapper("fixture.row.UserRow");
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT id, user_name, age FROM users ORDER BY id")) {
+            Assert.assertTrue(resultSet.next());
+            Object alice = mapper.getResult(resultSet, "ignored");
+            Assert.assertEquals("alice", field(alice, "userName"));
+            Assert.assertEquals(30, field(alice, "age"));
+
+            Assert.assertTrue(resultSet.next());
+            Object empty = mapper.getResult(resultSet, 1);
+            Assert.assertEquals(2L, field(empty, "id"));
+            Assert.assertNull(field(empty, "age"));
+        }
+    }
+
+    @Test
+    public void mapResolvesAgainWhenResultSetObjectIsReused() throws Exception {
+        AbstractRowMapper<Object> mapper = mapper("fixture.row.UserRow");
+        // 模拟复用结果集对象的代理：同一个对象先后代表两个列不同的查询
+        ResultSet[] target = new ResultSet[1];
+        ResultSet reused = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    try {
+                        return method.invoke(target[0], args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        try (Statement first = connection.createStatement();
+             Statement second = connection.createStatement()) {
+            target[0] = first.executeQuery("SELECT id, user_name FROM users WHERE id = 1");
+            Assert.assertTrue(reused.next());
+            Assert.assertEquals("alice", field(mapper.map(reused), "userName"));
+
+            target[0] = second.executeQuery("SELECT user_name, id FROM users WHERE id = 1");
+            Assert.assertTrue(reused.next());
+            Object row = mapper.map(reused);
+            Assert.assertEquals(1L, field(row, "id"));
+            Assert.assertEquals("alice", field(row, "userName"));
+        }
+    }
+
+    @Test
+    public void parameterMethodsThrowSQLException() throws Exception {
+        AbstractRowMapper<Object> mapper = mapper("fixture.row.UserRow");
+        try {
+            mapper.setParameter(null, 1, null, null);
+            Assert.fail("setParameter 应该抛出 SQLException");
+        } catch (SQLException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("can only map rows"));
+        }
+        try {
+            mapper.getResult((CallableStatement) null, 1);
+            Assert.fail("getResult(CallableStatement, int) 应该抛出 SQLException");
+        } catch (SQLException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("can only map rows"));
+        }
+    }
+
+    @Test
+    public void wideClassIsSplitAndMapsEveryColumn() throws Exception {
+        StringBuilder columns = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < WIDE_COLUMN_COUNT; i++) {
+            columns.append(i == 0 ? "" : ", ").append("c_").append(i).append(i % 2 == 0 ? " INT" : " VARCHAR(8)");
+            values.append(i == 0 ? "" : ", ").append(i % 2 == 0 ? String.valueOf(i) : "'v" + i + "'");
+        }
+        execute("CREATE TABLE wide (" + columns + ")");
+        execute("INSERT INTO wide VALUES (" + values + ")");
+
+        AbstractRowMapper<Object> mapper = mapper("fixture.wide.WideRow");
+        List<Object> rowList;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT * FROM wide")) {
+            rowList = mapper.mapAll(resultSet);
+        }
+
+        Assert.assertEquals(1, rowList.size());
+        for (int i = 0; i < WIDE_COLUMN_COUNT; i++) {
+            Assert.assertEquals(i % 2 == 0 ? (Object) i : "v" + i, field(rowList.get(0), "c" + i));
+        }
+        long helperCount = Arrays.stream(mapper.getClass().getDeclaredMethods())
+                .map(Method::getName)
+                .filter(name -> name.startsWith("mapRow$"))
+                .count();
+        Assert.assertTrue("mapRow 没有拆分", helperCount > 1);
+    }
+
+    private void execute(final String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AbstractRowMapper<Object> mapper(final String className) throws Exception {
+        Class<?> mapperClass = Class.forName(className + "$RowMapper", true, fixtureLoader);
+        return (AbstractRowMapper<Object>) mapperClass.getField("INSTANCE").get(null);
+    }
+
+    private static Object field(final Object object, final String name) throws Exception {
+        Field field = object.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(object);
+    }
+
+    private static ClassLoader compileFixtures() throws Exception {
+        StringBuilder wide = new StringBuilder("package fixture.wide;\n\n@org.tbfeng.apt.annotation.RowMapping\npublic class WideRow {\n");
+        for (int i = 0; i < WIDE_COLUMN_COUNT; i++) {
+            wide.append("    private ").append(i % 2 == 0 ? "Integer" : "String").append(" c").append(i).append(";\n");
+        }
+        wide.append("}\n");
+
+        List<JavaFileObject> sourceList = new ArrayList<JavaFileObject>();
+        sourceList.add(TestCompiler.resource("fixture.row.Status"));
+        sourceList.add(TestCompiler.resource("fixture.row.UserRow"));
+        sourceList.add(TestCompiler.source("fixture.wide.WideRow", wide.toString()));
+        File outputDir = TestCompiler.outputDir("row-mapping");
+        TestCompiler.compile(sourceList, outputDir);
+        return new URLClassLoader(new URL[]{new File(outputDir, "classes").toURI().toURL()},
+                RowMappingHandlerTest.class.getClassLoader());
+    }
+
+}
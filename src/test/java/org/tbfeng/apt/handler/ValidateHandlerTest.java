@@ -0,0 +1,82 @@
+package org.tbfeng.apt.handler;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tbfeng.apt.TestCompiler;
+import org.tbfeng.apt.utils.ValidationResult;
+
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 编译 @Validate 的测试用例，检查生成的 validate 收集所有违反的约束
+ */
+public class ValidateHandlerTest {
+
+    private static Class<?> orderClass;
+
+    @BeforeClass
+    public static void compileFixtures() throws Exception {
+        List<JavaFileObject> sourceList = new ArrayList<JavaFileObject>();
+        sourceList.add(TestCompiler.source("fixture.validate.Order", "package fixture.validate;\n\n"
+                + "import org.tbfeng.apt.annotation.*;\n\n"
+                + "@Validate\npublic class Order {\n"
+                + "    @NotNull\n    public Long id;\n"
+                + "    @MinLen(2)\n    @MaxLen(4)\n    public String name;\n"
+                + "    @Numeric(message = \"amount is not a number\")\n    public String amount;\n"
+                + "    @Regex(\"[A-Z]{3}\")\n    public String code;\n}\n"));
+        File outputDir = TestCompiler.outputDir("validate");
+        TestCompiler.compile(sourceList, outputDir);
+        ClassLoader loader = new URLClassLoader(new URL[]{new File(outputDir, "classes").toURI().toURL()},
+                ValidateHandlerTest.class.getClassLoader());
+        orderClass = Class.forName("fixture.validate.Order", true, loader);
+    }
+
+    @Test
+    public void validateCollectsEveryViolation() throws Exception {
+        Object order = order(null, "a", "1x", "abc");
+        ValidationResult result = (ValidationResult) orderClass.getMethod("validate").invoke(order);
+        Assert.assertFalse(result.valid());
+        Assert.assertEquals(4, result.size());
+        List<String> fieldNameList = new ArrayList<String>();
+        for (int i = 0; i < result.size(); i++) {
+            fieldNameList.add(result.fieldName(i));
+        }
+        Assert.assertEquals(Arrays.asList("id", "name", "amount", "code"), fieldNameList);
+        Assert.assertEquals("amount is not a number", result.message(2));
+
+        order = order(1L, "abcde", null, null);
+        result = (ValidationResult) orderClass.getMethod("validate").invoke(order);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals("name", result.fieldName(0));
+    }
+
+    @Test
+    public void validateAppendsToGivenResult() throws Exception {
+        ValidationResult result = ValidationResult.newInstance().add("other", "invalid");
+        Object order = order(1L, "ab", "1.5e3", "ABC");
+        Assert.assertSame(result, orderClass.getMethod("validate", ValidationResult.class).invoke(order, result));
+        Assert.assertEquals(1, result.size());
+
+        order = order(1L, "ab", "-", "ABC");
+        orderClass.getMethod("validate", ValidationResult.class).invoke(order, result);
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals("amount", result.fieldName(1));
+    }
+
+    private static Object order(final Long id, final String name, final String amount, final String code) throws Exception {
+        Object order = orderClass.newInstance();
+        orderClass.getField("id").set(order, id);
+        orderClass.getField("name").set(order, name);
+        orderClass.getField("amount").set(order, amount);
+        orderClass.getField("code").set(order, code);
+        return order;
+    }
+
+}
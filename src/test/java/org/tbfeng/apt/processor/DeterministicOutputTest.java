@@ -0,0 +1,85 @@
+package org.tbfeng.apt.processor;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tbfeng.apt.TestCompiler;
+
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 相同的输入编译两次，生成的源码与 class 文件逐字节相同
+ * <p>
+ * 两次编译的源文件顺序、分析阶段的并行度、换行符都不同。
+ */
+public class DeterministicOutputTest {
+
+    /**
+     * 宽类的字段数，足够触发生成方法的拆分
+     */
+    private static final int WIDE_FIELD_COUNT = 120;
+
+    @Test
+    public void sameInputProducesSameBytes() {
+        List<JavaFileObject> sourceList = fixtureList();
+        File first = TestCompiler.outputDir("deterministic-1");
+        TestCompiler.compile(sourceList, first, "-Aapt.parallelism=1");
+
+        List<JavaFileObject> reversedList = new ArrayList<JavaFileObject>(fixtureList());
+        Collections.reverse(reversedList);
+        File second = TestCompiler.outputDir("deterministic-2");
+        String lineSeparator = System.getProperty("line.separator");
+        System.setProperty("line.separator", "\n".equals(lineSeparator) ? "\r\n" : "\n");
+        try {
+            TestCompiler.compile(reversedList, second, "-Aapt.parallelism=4");
+        } finally {
+            System.setProperty("line.separator", lineSeparator);
+        }
+
+        assertSameTree(new File(first, "generated"), new File(second, "generated"));
+        assertSameTree(new File(first, "classes"), new File(second, "classes"));
+    }
+
+    private static void assertSameTree(final File expectedDir, final File actualDir) {
+        Map<String, byte[]> expected = TestCompiler.readTree(expectedDir);
+        Map<String, byte[]> actual = TestCompiler.readTree(actualDir);
+        Assert.assertFalse("没有输出文件: " + expectedDir, expected.isEmpty());
+        Assert.assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            Assert.assertArrayEquals(entry.getKey(), entry.getValue(), actual.get(entry.getKey()));
+        }
+    }
+
+    private static List<JavaFileObject> fixtureList() {
+        List<JavaFileObject> sourceList = new ArrayList<JavaFileObject>();
+        sourceList.add(TestCompiler.resource("fixture.order.Order"));
+        sourceList.add(TestCompiler.resource("fixture.order.Item"));
+        sourceList.add(TestCompiler.resource("fixture.order.Money"));
+        sourceList.add(TestCompiler.resource("fixture.person.Person"));
+        sourceList.add(TestCompiler.resource("fixture.person.PersonView"));
+        sourceList.add(TestCompiler.resource("fixture.person.PersonCopier"));
+        sourceList.add(TestCompiler.source("fixture.wide.Wide", wideClass()));
+        return sourceList;
+    }
+
+    private static String wideClass() {
+        StringBuilder source = new StringBuilder(WIDE_FIELD_COUNT * 64)
+                .append("package fixture.wide;\n\n")
+                .append("@org.tbfeng.apt.annotation.ToString\n")
+                .append("@org.tbfeng.apt.annotation.Builder\n")
+                .append("@org.tbfeng.apt.annotation.EqualsHashCode\n")
+                .append("@org.tbfeng.apt.annotation.FieldAccess\n")
+                .append("@org.tbfeng.apt.annotation.BeanMap\n")
+                .append("public class Wide {\n\n");
+        for (int i = 0; i < WIDE_FIELD_COUNT; i++) {
+            source.append("    private ").append(i % 3 == 0 ? "int" : i % 3 == 1 ? "String" : "java.util.List<String>")
+                    .append(" f").append(i).append(";\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+}
@@ -0,0 +1,20 @@
+package fixture.order;
+
+import org.tbfeng.apt.annotation.MaxLen;
+import org.tbfeng.apt.annotation.NotNull;
+import org.tbfeng.apt.annotation.ToString;
+import org.tbfeng.apt.annotation.Validate;
+
+@ToString(snapshot = true)
+@Validate
+public class Item {
+
+    @NotNull
+    @MaxLen(16)
+    private String sku;
+
+    @ToString(maxElements = 4)
+    private long[] history;
+
+    private char grade;
+}
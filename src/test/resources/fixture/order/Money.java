@@ -0,0 +1,17 @@
+package fixture.order;
+
+import org.tbfeng.apt.annotation.EqualsHashCode;
+import org.tbfeng.apt.annotation.ToString;
+
+@ToString(cache = true)
+@EqualsHashCode(cache = true)
+public final class Money {
+
+    private final long cents;
+    private final String currency;
+
+    public Money(long cents, String currency) {
+        this.cents = cents;
+        this.currency = currency;
+    }
+}
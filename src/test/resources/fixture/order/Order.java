@@ -0,0 +1,65 @@
+package fixture.order;
+
+import org.tbfeng.apt.annotation.BeanMap;
+import org.tbfeng.apt.annotation.Builder;
+import org.tbfeng.apt.annotation.EqualsHashCode;
+import org.tbfeng.apt.annotation.FieldAccess;
+import org.tbfeng.apt.annotation.ToString;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@ToString
+@Builder
+@EqualsHashCode
+@FieldAccess
+@BeanMap
+public class Order {
+
+    private long id;
+    private int quantity;
+    private double price;
+    private boolean paid;
+    private String code;
+    private BigDecimal amount;
+    private int[] slots;
+    private List<String> tags;
+    private Map<String, Integer> counts;
+    private Item item;
+
+    public Order() {
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+}
@@ -0,0 +1,40 @@
+package fixture.person;
+
+import fixture.order.Order;
+import org.tbfeng.apt.annotation.BuildProperty;
+import org.tbfeng.apt.annotation.ToString;
+
+@ToString("builder")
+public class Person {
+
+    private String name;
+    private int age;
+    private Order lastOrder;
+
+    public String getName() {
+        return name;
+    }
+
+    @BuildProperty
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    @BuildProperty
+    public void setAge(int age) {
+        this.age = age;
+    }
+
+    public Order getLastOrder() {
+        return lastOrder;
+    }
+
+    @BuildProperty
+    public void setLastOrder(Order lastOrder) {
+        this.lastOrder = lastOrder;
+    }
+}
@@ -0,0 +1,7 @@
+package fixture.person;
+
+import org.tbfeng.apt.annotation.BeanCopy;
+
+@BeanCopy(source = Person.class, target = PersonView.class, ignore = "lastOrder")
+public class PersonCopier {
+}
@@ -0,0 +1,5 @@
+package fixture.row;
+
+public enum Status {
+    ACTIVE, BLOCKED
+}
@@ -0,0 +1,21 @@
+package fixture.row;
+
+import org.tbfeng.apt.annotation.RowMapping;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+@RowMapping
+public class UserRow {
+
+    private long id;
+    private String userName;
+    private Integer age;
+    private Long score;
+    private int level;
+    private Boolean active;
+    private BigDecimal balance;
+    private Timestamp createdAt;
+    private Status status;
+    private String missing;
+}